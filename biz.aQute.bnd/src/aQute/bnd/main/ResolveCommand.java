@@ -39,6 +39,7 @@ import aQute.lib.io.IO;
 import aQute.lib.strings.Strings;
 import biz.aQute.resolve.Bndrun;
 import biz.aQute.resolve.ResolutionCallback;
+import biz.aQute.resolve.ResolutionStatistics;
 import biz.aQute.resolve.ResolverValidator;
 import biz.aQute.resolve.ResolverValidator.Resolution;
 import biz.aQute.resolve.ResolverValidator.ResolutionType;
@@ -277,6 +278,12 @@ public class ResolveCommand extends Processor {
 
 		@Description("Quiet")
 		boolean quiet();
+
+		@Description("Print the resolver statistics: phase timings, provider lookups, cache hits and candidates")
+		boolean statistics();
+
+		@Description("Print the resolver statistics as JSON, implies --statistics")
+		boolean json();
 	}
 
 	@Description("Resolve a bndrun file")
@@ -297,10 +304,21 @@ public class ResolveCommand extends Processor {
 							bndrun.setProperty("-runorder", options.runorder()
 								.toString());
 
-						RunResolution resolution = bndrun.resolve(quiet(options.quiet()));
+						ResolutionStatistics statistics = (options.statistics() || options.json())
+							? new ResolutionStatistics()
+							: null;
+						RunResolution resolution = (statistics != null)
+							? bndrun.resolve(quiet(options.quiet()), statistics)
+							: bndrun.resolve(quiet(options.quiet()));
 
 						bnd.out.println();
 
+						if (statistics != null) {
+							bnd.out.println("# STATISTICS");
+							bnd.out.println(options.json() ? statistics.toJSON() : statistics.report());
+							bnd.out.println();
+						}
+
 						if (bndrun.isOk()) {
 
 							if (options.urls()) {
@@ -978,14 +978,46 @@ public class bnd extends Processor {
 
 		@Description("Force non-incremental")
 		boolean force();
+
+		@Description("Build up to this number of projects that do not depend on each other concurrently, the default is 1")
+		int parallel();
 	}
 
 	@Description("Build a project. This will create the jars defined in the bnd.bnd and sub-builders.")
 	public void _build(final buildoptions opts) throws Exception {
-
+		if (opts.parallel() > 1) {
+			perProjectConcurrently(opts, opts.parallel(), p -> p.build(opts.test()));
+			return;
+		}
 		perProject(opts, p -> p.build(opts.test()));
 	}
 
+	/**
+	 * Like {@link #perProject(ProjectWorkspaceOptions, PerProject)} but runs
+	 * projects that do not depend on each other concurrently. The messages of
+	 * the projects are reported in build order after all have completed.
+	 */
+	public void perProjectConcurrently(ProjectWorkspaceOptions opts, int parallelism, PerProject run)
+		throws Exception {
+		List<Project> projects = getFilteredProjects(opts);
+		if (projects.isEmpty()) {
+			return;
+		}
+		Workspace ws = projects.get(0)
+			.getWorkspace();
+		Collection<Project> buildOrder = ws.getBuildOrder(projects);
+		if (opts.verbose()) {
+			out.println("Build order: " + buildOrder);
+		}
+		try {
+			ws.runInBuildOrder(projects, parallelism, run::doit);
+		} finally {
+			for (Project p : buildOrder) {
+				getInfo(p, p + ": ");
+			}
+		}
+	}
+
 	interface CompileOptions extends ProjectWorkspaceOptions {
 
 		@Description("Compile for test")
@@ -3490,6 +3522,39 @@ public class bnd extends Processor {
 		ws.syncCache();
 	}
 
+	@Description("Download the repository bundles of all projects and bndrun files in the workspace")
+	interface PrefetchOptions extends projectOptions {
+		@Description("Download up to this number of bundles concurrently, the default is 8")
+		int parallel();
+
+		@Description("List the downloaded bundles")
+		boolean verbose();
+	}
+
+	@Description("Download the repository bundles on the -buildpath, -testpath, -runpath, -runbundles, and -runfw of all projects and bndrun files in the workspace")
+	public void _prefetch(PrefetchOptions options) throws Exception {
+		Workspace ws = getWorkspace(options.project());
+
+		if (ws == null) {
+			error("Can't find a workspace");
+			return;
+		}
+
+		int parallel = options.parallel() > 0 ? options.parallel() : 8;
+		List<Container> containers = ws.prefetch(parallel);
+		int failed = 0;
+		for (Container container : containers) {
+			if (container.getError() != null) {
+				failed++;
+				warning("Prefetch %s: %s", container, container.getError());
+			} else if (options.verbose()) {
+				out.printf("%s %s%n", container, container.getFile());
+			}
+		}
+		out.printf("Prefetched %d bundles, %d failed%n", containers.size() - failed, failed);
+		getInfo(ws);
+	}
+
 	/**
 	 * From a set of bsns, create a list of urls
 	 */
@@ -0,0 +1,59 @@
+package aQute.bnd.benchmarks;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import aQute.bnd.osgi.Analyzer;
+import aQute.bnd.osgi.Constants;
+
+/**
+ * Measures a full {@link Analyzer#analyze()} and manifest calculation of the
+ * bndlib jar.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalyzerBenchmark {
+	private File input;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		input = BenchmarkInputs.bndlib();
+	}
+
+	@Benchmark
+	public Object analyze() throws Exception {
+		try (Analyzer analyzer = new Analyzer()) {
+			analyzer.setJar(input);
+			analyzer.setProperty(Constants.EXPORT_PACKAGE, "*");
+			analyzer.setProperty(Constants.IMPORT_PACKAGE, "*");
+			analyzer.analyze();
+			return analyzer.getImports();
+		}
+	}
+
+	@Benchmark
+	public Object calcManifest() throws Exception {
+		try (Analyzer analyzer = new Analyzer()) {
+			analyzer.setJar(input);
+			analyzer.setProperty(Constants.EXPORT_PACKAGE, "*");
+			analyzer.setProperty(Constants.IMPORT_PACKAGE, "*");
+			return analyzer.calcManifest();
+		}
+	}
+}
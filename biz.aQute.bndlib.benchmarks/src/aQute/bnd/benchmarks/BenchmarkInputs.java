@@ -0,0 +1,57 @@
+package aQute.bnd.benchmarks;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import aQute.bnd.osgi.Analyzer;
+import aQute.bnd.osgi.EmbeddedResource;
+import aQute.bnd.osgi.Jar;
+import aQute.bnd.osgi.Resource;
+
+/**
+ * Shared inputs for the benchmarks. The benchmarks run against the bndlib
+ * archive on the class path so that they exercise a large, realistic bundle
+ * without requiring any external files.
+ */
+final class BenchmarkInputs {
+	private BenchmarkInputs() {}
+
+	/**
+	 * The bndlib jar (or class directory when run from an IDE).
+	 */
+	static File bndlib() {
+		try {
+			return new File(Analyzer.class.getProtectionDomain()
+				.getCodeSource()
+				.getLocation()
+				.toURI());
+		} catch (URISyntaxException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Copy all class resources of a jar into heap resources so that
+	 * benchmarks which only want to measure parsing are not affected by zip
+	 * access.
+	 */
+	static List<Map.Entry<String, Resource>> classes(Jar jar) throws Exception {
+		List<Map.Entry<String, Resource>> classes = new ArrayList<>();
+		for (Map.Entry<String, Resource> entry : jar.getResources()
+			.entrySet()) {
+			String path = entry.getKey();
+			if (path.endsWith(".class") && !path.endsWith("module-info.class")) {
+				ByteBuffer bb = entry.getValue()
+					.buffer();
+				byte[] data = new byte[bb.remaining()];
+				bb.get(data);
+				classes.add(Map.entry(path, new EmbeddedResource(data, 0L)));
+			}
+		}
+		return classes;
+	}
+}
@@ -0,0 +1,59 @@
+package aQute.bnd.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import aQute.bnd.osgi.Analyzer;
+import aQute.bnd.osgi.Clazz;
+import aQute.bnd.osgi.Jar;
+import aQute.bnd.osgi.Resource;
+
+/**
+ * Measures {@link Clazz#parseClassFile()} over all the classes of bndlib.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClazzBenchmark {
+	private List<Map.Entry<String, Resource>>	classes;
+	private Analyzer							analyzer;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		try (Jar jar = new Jar(BenchmarkInputs.bndlib())) {
+			classes = BenchmarkInputs.classes(jar);
+		}
+		analyzer = new Analyzer();
+	}
+
+	@TearDown(Level.Trial)
+	public void teardown() throws Exception {
+		analyzer.close();
+	}
+
+	@Benchmark
+	public void parseClassFile(Blackhole bh) throws Exception {
+		for (Map.Entry<String, Resource> entry : classes) {
+			Clazz clazz = new Clazz(analyzer, entry.getKey(), entry.getValue());
+			bh.consume(clazz.parseClassFile());
+		}
+	}
+}
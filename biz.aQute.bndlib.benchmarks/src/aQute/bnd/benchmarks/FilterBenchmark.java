@@ -0,0 +1,94 @@
+package aQute.bnd.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osgi.framework.Version;
+import org.osgi.framework.namespace.PackageNamespace;
+import org.osgi.resource.Capability;
+import org.osgi.resource.Requirement;
+
+import aQute.bnd.header.Attrs;
+import aQute.bnd.osgi.Constants;
+import aQute.bnd.osgi.resource.CapReqBuilder;
+import aQute.bnd.osgi.resource.ResourceBuilder;
+import aQute.bnd.osgi.resource.ResourceUtils;
+
+/**
+ * Measures filter parsing and matching of package requirements against
+ * package capabilities, which is what the resolver and the repositories do
+ * for every requirement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterBenchmark {
+	private static final int	SIZE	= 1000;
+	private List<Capability>	capabilities;
+	private List<Requirement>	requirements;
+	private String				filter;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		capabilities = new ArrayList<>(SIZE);
+		requirements = new ArrayList<>(SIZE);
+		for (int i = 0; i < SIZE; i++) {
+			ResourceBuilder rb = new ResourceBuilder();
+			Attrs attrs = new Attrs();
+			attrs.put(Constants.VERSION_ATTRIBUTE, "1." + (i % 10) + ".0");
+			rb.addExportPackage("bench.p" + i, attrs, "bench.b" + i, new Version(1, i % 10, 0));
+			capabilities.addAll(rb.build()
+				.getCapabilities(PackageNamespace.PACKAGE_NAMESPACE));
+			requirements.add(CapReqBuilder.createPackageRequirement("bench.p" + i, "[1." + (i % 5) + ",2)")
+				.buildSyntheticRequirement());
+		}
+		filter = requirements.get(SIZE / 2)
+			.getDirectives()
+			.get("filter");
+	}
+
+	@Benchmark
+	public Predicate<Map<String, Object>> parse() {
+		return ResourceUtils.filterPredicate(filter);
+	}
+
+	@Benchmark
+	public int matchAll() {
+		Predicate<Map<String, Object>> predicate = ResourceUtils.filterPredicate(filter);
+		int matches = 0;
+		for (Capability capability : capabilities) {
+			if (predicate.test(capability.getAttributes())) {
+				matches++;
+			}
+		}
+		return matches;
+	}
+
+	@Benchmark
+	public int matchEach() {
+		int matches = 0;
+		for (int i = 0; i < SIZE; i++) {
+			if (ResourceUtils.matches(requirements.get(i), capabilities.get(i))) {
+				matches++;
+			}
+		}
+		return matches;
+	}
+}
@@ -0,0 +1,79 @@
+package aQute.bnd.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.jar.Manifest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import aQute.bnd.header.OSGiHeader;
+import aQute.bnd.header.Parameters;
+import aQute.bnd.osgi.Constants;
+import aQute.bnd.osgi.Jar;
+
+/**
+ * Measures {@link OSGiHeader#parseHeader(String)} and {@link Parameters}
+ * construction on the headers of the bndlib manifest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeaderBenchmark {
+	private String	exportPackage;
+	private String	importPackage;
+	private String	provideCapability;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		try (Jar jar = new Jar(BenchmarkInputs.bndlib())) {
+			Manifest manifest = jar.getManifest();
+			exportPackage = manifest.getMainAttributes()
+				.getValue(Constants.EXPORT_PACKAGE);
+			importPackage = manifest.getMainAttributes()
+				.getValue(Constants.IMPORT_PACKAGE);
+			provideCapability = manifest.getMainAttributes()
+				.getValue(Constants.PROVIDE_CAPABILITY);
+		}
+		if (exportPackage == null) {
+			exportPackage = "aQute.bnd.osgi;version=\"7.0.0\";uses:=\"aQute.bnd.header,aQute.bnd.version\"";
+		}
+		if (importPackage == null) {
+			importPackage = "org.osgi.framework;version=\"[1.8,2)\",org.osgi.resource;version=\"[1.0,2)\"";
+		}
+		if (provideCapability == null) {
+			provideCapability = "osgi.service;objectClass:List<String>=\"a.b.C\";uses:=\"a.b\"";
+		}
+	}
+
+	@Benchmark
+	public Parameters parseExportPackage() {
+		return OSGiHeader.parseHeader(exportPackage);
+	}
+
+	@Benchmark
+	public Parameters parseImportPackage() {
+		return OSGiHeader.parseHeader(importPackage);
+	}
+
+	@Benchmark
+	public Parameters parseProvideCapability() {
+		return new Parameters(provideCapability);
+	}
+
+	@Benchmark
+	public String roundTrip() {
+		return new Parameters(exportPackage).toString();
+	}
+}
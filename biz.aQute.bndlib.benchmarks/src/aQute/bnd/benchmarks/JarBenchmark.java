@@ -0,0 +1,88 @@
+package aQute.bnd.benchmarks;
+
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import aQute.bnd.osgi.Jar;
+import aQute.bnd.osgi.Resource;
+
+/**
+ * Measures {@link Jar#write(OutputStream)} of a copy of the bndlib jar held in
+ * memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JarBenchmark {
+	@Param({
+		"DEFLATE", "STORE"
+	})
+	public Jar.Compression	compression;
+
+	@Param({
+		"false", "true"
+	})
+	public boolean			reproducible;
+
+	private Jar				jar;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		jar = new Jar("benchmark");
+		try (Jar source = new Jar(BenchmarkInputs.bndlib())) {
+			jar.setManifest(source.getManifest());
+			for (Map.Entry<String, Resource> entry : BenchmarkInputs.classes(source)) {
+				jar.putResource(entry.getKey(), entry.getValue());
+			}
+		}
+		jar.setCompression(compression);
+		if (reproducible) {
+			jar.setReproducible("true");
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void teardown() {
+		jar.close();
+	}
+
+	@Benchmark
+	public long write() throws Exception {
+		try (CountingOutputStream out = new CountingOutputStream()) {
+			jar.write(out);
+			return out.count;
+		}
+	}
+
+	static final class CountingOutputStream extends OutputStream {
+		long count;
+
+		@Override
+		public void write(int b) {
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			count += len;
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package aQute.bnd.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import aQute.bnd.osgi.Macro;
+import aQute.bnd.osgi.Processor;
+
+/**
+ * Measures macro expansion through {@link Macro#process(String)} and
+ * {@link Processor#getProperty(String)} with an inheritance chain similar to a
+ * workspace, an ext file and a project.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MacroBenchmark {
+	private Processor	workspace;
+	private Processor	ext;
+	private Processor	project;
+	private Macro		replacer;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		workspace = new Processor();
+		workspace.setProperty("base.version", "7.2.0");
+		workspace.setProperty("Bundle-Version", "${base.version}.${tstamp}-SNAPSHOT");
+		workspace.setProperty("packages", "a.b.c,a.b.d,a.b.e.impl,x.y.z,x.y.z.internal,org.example.api");
+		workspace.setProperty("public.packages", "${filter;${packages};.*(?<!\\.impl|\\.internal)$}");
+		ext = new Processor(workspace);
+		ext.setProperty("exports", "${replacelist;${public.packages};^(.*)$;$1.*}");
+		ext.setProperty("flavor", "${if;${is;${base.version};7.2.0};current;old}");
+		project = new Processor(ext);
+		project.setProperty("Export-Package", "${exports}");
+		project.setProperty("-pom", "version=${if;${def;-snapshot};${versionmask;===;${base.version}}-${def;-snapshot};${versionmask;===s;${base.version}}}");
+		project.setProperty("description", "${flavor} ${toupper;${sort;${packages}}}");
+		replacer = project.getReplacer();
+	}
+
+	@TearDown(Level.Trial)
+	public void teardown() throws Exception {
+		project.close();
+		ext.close();
+		workspace.close();
+	}
+
+	@Benchmark
+	public String processNested() {
+		return replacer.process("${if;${filter;${packages};x\\..*};${replacelist;${public.packages};^(.*)$;$1.*};none}");
+	}
+
+	@Benchmark
+	public String processLiteral() {
+		return replacer.process("a plain value without any macros that is long enough to scan");
+	}
+
+	@Benchmark
+	public String getPropertyExports() {
+		return project.getProperty("Export-Package");
+	}
+
+	@Benchmark
+	public String getPropertyPom() {
+		return project.getProperty("-pom");
+	}
+
+	@Benchmark
+	public String getPropertyInherited() {
+		return project.getProperty("description");
+	}
+}
@@ -0,0 +1,115 @@
+package aQute.bnd.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osgi.resource.Requirement;
+import org.osgi.resource.Resource;
+import org.osgi.service.resolver.Resolver;
+
+import aQute.bnd.build.model.EE;
+import aQute.bnd.osgi.Constants;
+import aQute.bnd.osgi.Domain;
+import aQute.bnd.osgi.repository.ResourcesRepository;
+import aQute.bnd.osgi.resource.CapReqBuilder;
+import aQute.bnd.osgi.resource.ResourceBuilder;
+import aQute.bnd.version.VersionRange;
+import biz.aQute.resolve.BndResolver;
+import biz.aQute.resolve.GenericResolveContext;
+import biz.aQute.resolve.ResolverLogger;
+
+/**
+ * Measures repository lookups and a complete resolve against a synthetic
+ * repository. Each synthetic bundle exports one package in two versions and
+ * imports a pseudo random set of packages from lower numbered bundles so the
+ * resolver has to deal with both depth and choice.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResolverBenchmark {
+	private static final PrintStream	DISCARD	= new PrintStream(OutputStream.nullOutputStream());
+
+	@Param({
+		"250", "1000"
+	})
+	public int					size;
+
+	private ResourcesRepository	repository;
+	private List<Requirement>	requirements;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		Random random = new Random(42L);
+		List<Resource> resources = new ArrayList<>();
+		requirements = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			StringBuilder imports = new StringBuilder();
+			for (int j = 0, n = Math.min(i, 5); j < n; j++) {
+				if (j > 0) {
+					imports.append(',');
+				}
+				imports.append("bench.p")
+					.append(random.nextInt(i))
+					.append(";version=\"[1.0,2)\"");
+			}
+			for (String version : new String[] {
+				"1.0.0", "1.1.0"
+			}) {
+				Map<String, String> headers = new TreeMap<>();
+				headers.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+				headers.put(Constants.BUNDLE_SYMBOLICNAME, "bench.b" + i);
+				headers.put(Constants.BUNDLE_VERSION, version);
+				headers.put(Constants.EXPORT_PACKAGE, "bench.p" + i + ";version=" + version);
+				if (imports.length() > 0) {
+					headers.put(Constants.IMPORT_PACKAGE, imports.toString());
+				}
+				ResourceBuilder rb = new ResourceBuilder();
+				rb.addManifest(Domain.domain(headers));
+				resources.add(rb.build());
+			}
+			requirements.add(CapReqBuilder.createPackageRequirement("bench.p" + i, "[1.0,2)")
+				.buildSyntheticRequirement());
+		}
+		repository = new ResourcesRepository(resources);
+	}
+
+	@Benchmark
+	public Object findProviders() {
+		return repository.findProviders(requirements);
+	}
+
+	@Benchmark
+	public Object resolve() throws Exception {
+		GenericResolveContext context = new GenericResolveContext(new ResolverLogger(0, DISCARD));
+		context.addRepository(repository);
+		context.addEE(EE.JavaSE_17);
+		for (int i = size - 10; i < size; i++) {
+			context.addRequireBundle("bench.b" + i, new VersionRange("[1.0,2)"));
+		}
+		context.done();
+		Resolver resolver = new BndResolver(new ResolverLogger(0, DISCARD));
+		return resolver.resolve(context);
+	}
+}
@@ -0,0 +1,124 @@
+package aQute.bnd.comm.tests;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.osgi.util.promise.Promise;
+
+import aQute.bnd.http.HttpClient;
+import aQute.bnd.osgi.Constants;
+import aQute.bnd.osgi.Processor;
+import aQute.bnd.service.url.State;
+import aQute.bnd.service.url.TaggedData;
+import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
+import aQute.http.testservers.HttpTestServer.Config;
+import aQute.http.testservers.Httpbin;
+import aQute.lib.io.IO;
+
+public class HttpClientHttp2Test {
+	@InjectTemporaryDirectory
+	File			tmp;
+	private Httpbin	httpServer;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		Config config = new Config();
+		config.https = false;
+		httpServer = new Httpbin(config);
+		httpServer.start();
+	}
+
+	@AfterEach
+	public void tearDown() throws Exception {
+		IO.close(httpServer);
+	}
+
+	@Test
+	public void testReadSettings() throws Exception {
+		try (Processor p = new Processor(); HttpClient client = new HttpClient()) {
+			assertThat(client.isHttp2()).isFalse();
+
+			p.setProperty(Constants.CONNECTION_TRANSPORT, "http2;maxperhost=4");
+			client.readSettings(p);
+			assertThat(client.isHttp2()).isTrue();
+
+			p.setProperty(Constants.CONNECTION_TRANSPORT, "urlconnection");
+			client.readSettings(p);
+			assertThat(client.isHttp2()).isFalse();
+			assertThat(p.check()).isTrue();
+
+			p.setProperty(Constants.CONNECTION_TRANSPORT, "carrierpigeon");
+			client.readSettings(p);
+			assertThat(p.check("unknown transport carrierpigeon")).isTrue();
+		}
+	}
+
+	@Test
+	public void testGet() throws Exception {
+		try (HttpClient client = new HttpClient()) {
+			client.http2(2);
+			String body = client.build()
+				.headers("X-Test", "http2")
+				.get(String.class)
+				.go(httpServer.getBaseURI("get"));
+			assertThat(body).contains("X-Test")
+				.contains("http2");
+		}
+	}
+
+	@Test
+	public void testStatus() throws Exception {
+		try (HttpClient client = new HttpClient()) {
+			client.http2(2);
+			TaggedData tag = client.build()
+				.asTag()
+				.go(httpServer.getBaseURI("status/404"));
+			assertThat(tag.getResponseCode()).isEqualTo(HttpURLConnection.HTTP_NOT_FOUND);
+			assertThat(tag.getState()).isEqualTo(State.NOT_FOUND);
+		}
+	}
+
+	@Test
+	public void testETag() throws Exception {
+		try (HttpClient client = new HttpClient()) {
+			client.http2(2);
+			TaggedData tag = client.build()
+				.asTag()
+				.go(httpServer.getBaseURI("get-tag/ABCDEFGH"));
+			assertThat(tag.getResponseCode()).isEqualTo(HttpURLConnection.HTTP_OK);
+			assertThat(tag.getTag()).isEqualTo("ABCDEFGH");
+			IO.close(tag.getInputStream());
+
+			tag = client.build()
+				.ifNoneMatch("ABCDEFGH")
+				.asTag()
+				.go(httpServer.getBaseURI("get-tag/ABCDEFGH"));
+			assertThat(tag.getState()).isEqualTo(State.UNMODIFIED);
+		}
+	}
+
+	@Test
+	public void testConcurrentAsync() throws Exception {
+		try (HttpClient client = new HttpClient()) {
+			client.http2(2);
+			List<Promise<String>> promises = new ArrayList<>();
+			for (int i = 0; i < 10; i++) {
+				promises.add(client.build()
+					.get(String.class)
+					.async(httpServer.getBaseURI("get")));
+			}
+			for (Promise<String> promise : promises) {
+				assertThat(promise.timeout(TimeUnit.MINUTES.toMillis(1))
+					.getValue()).contains("/get");
+			}
+		}
+	}
+}
@@ -0,0 +1,185 @@
+package aQute.bnd.comm.tests;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import aQute.bnd.http.HttpClient;
+import aQute.bnd.osgi.Constants;
+import aQute.bnd.osgi.Processor;
+import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
+import aQute.lib.io.IO;
+import aQute.libg.cryptography.SHA1;
+
+public class HttpClientRangesTest {
+	private static final int	SIZE		= 5 * 1024 * 1024 + 123;
+
+	@InjectTemporaryDirectory
+	File						tmp;
+	private byte[]				data;
+	private HttpServer			server;
+	private ExecutorService		executor;
+	private URI					uri;
+	private final AtomicInteger	ranges		= new AtomicInteger();
+	private final AtomicInteger	failAfter	= new AtomicInteger(-1);
+	private final AtomicBoolean	badChecksum	= new AtomicBoolean();
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		data = new byte[SIZE];
+		new Random(42).nextBytes(data);
+		String sha1 = SHA1.digest(data)
+			.asHex();
+		executor = Executors.newFixedThreadPool(8);
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.setExecutor(executor);
+		server.createContext("/big", ex -> serve(ex, sha1));
+		server.start();
+		uri = new URI("http://" + InetAddress.getLoopbackAddress()
+			.getHostAddress() + ":"
+			+ server.getAddress()
+				.getPort()
+			+ "/big");
+	}
+
+	@AfterEach
+	public void tearDown() throws Exception {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	private void serve(HttpExchange ex, String sha1) throws IOException {
+		try (ex) {
+			Headers headers = ex.getResponseHeaders();
+			headers.add("ETag", "\"V1\"");
+			headers.add("Accept-Ranges", "bytes");
+			headers.add("X-Checksum-Sha1", badChecksum.get() ? "0000000000000000000000000000000000000000" : sha1);
+			String range = ex.getRequestHeaders()
+				.getFirst("Range");
+			if ((range == null) || !"\"V1\"".equals(ex.getRequestHeaders()
+				.getFirst("If-Range"))) {
+				ex.sendResponseHeaders(200, data.length);
+				try (OutputStream out = ex.getResponseBody()) {
+					out.write(data);
+				} catch (IOException e) {
+					// client stopped reading
+				}
+				return;
+			}
+			int n = ranges.incrementAndGet();
+			if ((failAfter.get() >= 0) && (n > failAfter.get())) {
+				ex.sendResponseHeaders(500, -1);
+				return;
+			}
+			String[] bounds = range.substring("bytes=".length())
+				.split("-");
+			int start = Integer.parseInt(bounds[0]);
+			int end = Integer.parseInt(bounds[1]);
+			headers.add("Content-Range", "bytes " + start + "-" + end + "/" + data.length);
+			ex.sendResponseHeaders(206, end - start + 1);
+			try (OutputStream out = ex.getResponseBody()) {
+				out.write(data, start, end - start + 1);
+			}
+		}
+	}
+
+	private HttpClient client(String ranges) throws Exception {
+		HttpClient client = new HttpClient();
+		client.setCache(tmp);
+		try (Processor p = new Processor()) {
+			p.setProperty(Constants.CONNECTION_RANGES, ranges);
+			client.readSettings(p);
+			assertThat(p.check()).isTrue();
+		}
+		return client;
+	}
+
+	@Test
+	public void testReadSettings() throws Exception {
+		try (Processor p = new Processor(); HttpClient client = new HttpClient()) {
+			p.setProperty(Constants.CONNECTION_RANGES, "parallel=x");
+			client.readSettings(p);
+			assertThat(p.check("-connection-ranges: invalid value")).isTrue();
+		}
+	}
+
+	@Test
+	public void testRangedDownload() throws Exception {
+		try (HttpClient client = client("parallel=4,threshold=1M,chunksize=1M")) {
+			File file = client.build()
+				.useCache()
+				.go(uri);
+			assertThat(IO.read(file)).isEqualTo(data);
+			assertThat(ranges.get()).isEqualTo(5);
+			assertThat(new File(file.getPath() + ".part")).doesNotExist();
+			assertThat(new File(file.getPath() + ".part.json")).doesNotExist();
+		}
+	}
+
+	@Test
+	public void testDisabled() throws Exception {
+		try (HttpClient client = client("parallel=1,threshold=1M,chunksize=1M")) {
+			File file = client.build()
+				.useCache()
+				.go(uri);
+			assertThat(IO.read(file)).isEqualTo(data);
+			assertThat(ranges.get()).isZero();
+		}
+	}
+
+	@Test
+	public void testChecksumMismatch() throws Exception {
+		badChecksum.set(true);
+		try (HttpClient client = client("parallel=4,threshold=1M,chunksize=1M")) {
+			assertThatExceptionOfType(IOException.class).isThrownBy(() -> client.build()
+				.useCache()
+				.go(uri))
+				.withMessageContaining("Checksum");
+			File file = client.getCacheFileFor(uri);
+			assertThat(file).doesNotExist();
+			assertThat(new File(file.getPath() + ".part")).doesNotExist();
+		}
+	}
+
+	@Test
+	public void testResume() throws Exception {
+		failAfter.set(2);
+		try (HttpClient client = client("parallel=2,threshold=1M,chunksize=1M")) {
+			client.retries(0);
+			assertThatExceptionOfType(Exception.class).isThrownBy(() -> client.build()
+				.useCache()
+				.go(uri));
+			File file = client.getCacheFileFor(uri);
+			assertThat(new File(file.getPath() + ".part")).isFile();
+			assertThat(new File(file.getPath() + ".part.json")).isFile();
+
+			ranges.set(0);
+			failAfter.set(-1);
+			file = client.build()
+				.useCache()
+				.go(uri);
+			assertThat(IO.read(file)).isEqualTo(data);
+			assertThat(ranges.get()).isLessThan(5);
+			assertThat(new File(file.getPath() + ".part")).doesNotExist();
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package aQute.bnd.osgi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
+import aQute.lib.io.IO;
+
+public class ZipWriterTest {
+
+	@Test
+	public void testCopyIsSameForBothReaders(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		File source = new File(tmp, "source.zip");
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 10000; i++) {
+			sb.append("line ")
+				.append(i % 97)
+				.append('\n');
+		}
+		try (ZipOutputStream zout = new ZipOutputStream(IO.outputStream(source))) {
+			// not the default level, so the data is only the same when copied
+			zout.setLevel(Deflater.BEST_SPEED);
+			zout.putNextEntry(new ZipEntry("a/deflated.txt"));
+			zout.write(sb.toString()
+				.getBytes());
+			zout.closeEntry();
+			ZipEntry stored = new ZipEntry("a/stored.txt");
+			byte[] bytes = "stored".getBytes();
+			stored.setMethod(ZipEntry.STORED);
+			stored.setSize(bytes.length);
+			CRC32 crc = new CRC32();
+			crc.update(bytes);
+			stored.setCrc(crc.getValue());
+			zout.putNextEntry(stored);
+			zout.write(bytes);
+			zout.closeEntry();
+		}
+
+		Map<String, Resource> mapped = MappedZipResource.read(source.toPath());
+		assumeTrue(mapped != null, "mapped ZIP files are not read on this platform");
+
+		File fromMapped = new File(tmp, "mapped.jar");
+		File fromZipFile = new File(tmp, "zipfile.jar");
+		try (ZipFile zip = new ZipFile(source); Jar a = new Jar("a"); Jar b = new Jar("b")) {
+			mapped.forEach((name, resource) -> a.putResource(name, resource));
+			zip.stream()
+				.forEach(entry -> b.putResource(entry.getName(), new ZipResource(zip, entry)));
+			a.write(fromMapped);
+			b.write(fromZipFile);
+		}
+
+		assertThat(IO.read(fromZipFile)).isEqualTo(IO.read(fromMapped));
+		try (ZipFile in = new ZipFile(source); ZipFile out = new ZipFile(fromZipFile)) {
+			assertThat(out.getEntry("a/deflated.txt")
+				.getCompressedSize()).isEqualTo(in.getEntry("a/deflated.txt")
+					.getCompressedSize());
+			assertThat(IO.collect(out.getInputStream(out.getEntry("a/deflated.txt")))).isEqualTo(sb.toString());
+		}
+	}
+
+	@Test
+	public void testResourcesAreWrittenOnCallingThread(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		Thread caller = Thread.currentThread();
+		byte[] content = new byte[1024 * 1024];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) (i % 13);
+		}
+		File out = new File(tmp, "out.jar");
+		try (Jar jar = new Jar("a")) {
+			for (int i = 0; i < 8; i++) {
+				jar.putResource("a/" + i + ".bin", new WriteResource() {
+					@Override
+					public void write(OutputStream out) throws Exception {
+						assertThat(Thread.currentThread()).isSameAs(caller);
+						out.write(content);
+					}
+
+					@Override
+					public long lastModified() {
+						return 0L;
+					}
+				});
+			}
+			jar.write(out);
+		}
+		try (ZipFile zip = new ZipFile(out)) {
+			for (int i = 0; i < 8; i++) {
+				assertThat(IO.read(zip.getInputStream(zip.getEntry("a/" + i + ".bin")))).isEqualTo(content);
+			}
+		}
+	}
+}
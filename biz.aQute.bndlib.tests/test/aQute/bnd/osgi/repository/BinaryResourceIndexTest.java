@@ -0,0 +1,64 @@
+package aQute.bnd.osgi.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.osgi.resource.Resource;
+
+import aQute.bnd.osgi.resource.ResourceUtils;
+import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
+import aQute.lib.io.IO;
+
+public class BinaryResourceIndexTest {
+	@InjectTemporaryDirectory
+	File tmp;
+
+	@Test
+	public void testSameAsXML() throws Exception {
+		List<Resource> resources = XMLResourceParser.getResources(BinaryResourceIndexTest.class
+			.getResource("/test/repoindex-file.xml")
+			.toURI());
+		File xml = new File(tmp, "index.xml.gz");
+		new XMLResourceGenerator().resources(resources)
+			.base(tmp.toURI())
+			.binary()
+			.save(xml);
+		File binary = BinaryResourceIndex.location(xml);
+		assertThat(binary).isEqualTo(new File(tmp, "index.bin"))
+			.isFile();
+
+		List<Resource> expected = XMLResourceParser.getResources(xml);
+		List<Resource> actual = BinaryResourceIndex.read(binary, xml.toURI(), null);
+		assertThat(actual).hasSameSizeAs(expected)
+			.hasSize(resources.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertThat(actual.get(i)
+				.getCapabilities(null)).isEqualTo(expected.get(i)
+					.getCapabilities(null));
+			assertThat(actual.get(i)
+				.getRequirements(null)).isEqualTo(expected.get(i)
+					.getRequirements(null));
+		}
+		assertThat(ResourceUtils.getURI(actual.get(0))).isEqualTo(ResourceUtils.getURI(resources.get(0)));
+	}
+
+	@Test
+	public void testSource() throws Exception {
+		List<Resource> resources = XMLResourceParser.getResources(BinaryResourceIndexTest.class
+			.getResource("/test/repoindex-file.xml")
+			.toURI());
+		File binary = new File(tmp, "index.bin");
+		BinaryResourceIndex.save(resources, binary, null, "1234:5678");
+
+		assertThat(BinaryResourceIndex.read(binary, tmp.toURI(), "1234:5678")).hasSize(resources.size());
+		assertThat(BinaryResourceIndex.read(binary, tmp.toURI(), null)).hasSize(resources.size());
+		assertThat(BinaryResourceIndex.read(binary, tmp.toURI(), "1234:5679")).isNull();
+
+		File other = new File(tmp, "other.bin");
+		IO.store("<repository/>", other);
+		assertThat(BinaryResourceIndex.read(other, tmp.toURI(), null)).isNull();
+	}
+}
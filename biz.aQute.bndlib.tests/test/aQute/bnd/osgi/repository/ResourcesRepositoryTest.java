@@ -0,0 +1,99 @@
+package aQute.bnd.osgi.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.osgi.framework.Version;
+import org.osgi.framework.namespace.PackageNamespace;
+import org.osgi.namespace.service.ServiceNamespace;
+import org.osgi.resource.Capability;
+import org.osgi.resource.Namespace;
+import org.osgi.resource.Requirement;
+import org.osgi.resource.Resource;
+
+import aQute.bnd.osgi.resource.CapReqBuilder;
+import aQute.bnd.osgi.resource.ResourceBuilder;
+
+public class ResourcesRepositoryTest {
+
+	@Test
+	public void testIndexedFindProvider() throws Exception {
+		Resource r1 = resource(pkg("a", "1.0.0"), pkg("b", "1.0.0"), service("x.X"));
+		Resource r2 = resource(pkg("a", "2.0.0"), service("x.X", "y.Y"));
+		// not a string, so it cannot be indexed and must always be a candidate
+		Resource r3 = resource(new CapReqBuilder(PackageNamespace.PACKAGE_NAMESPACE)
+			.addAttribute(PackageNamespace.PACKAGE_NAMESPACE, new Version(1, 0, 0)));
+		Resource r4 = resource(pkg("a", "3.0.0"));
+		ResourcesRepository repository = new ResourcesRepository(List.of(r1, r2, r3));
+
+		assertThat(providers(repository, PackageNamespace.PACKAGE_NAMESPACE, "(osgi.wiring.package=a)"))
+			.containsExactly(r1, r2);
+		assertThat(providers(repository, PackageNamespace.PACKAGE_NAMESPACE,
+			"(&(osgi.wiring.package=a)(version>=2.0.0))")).containsExactly(r2);
+		assertThat(providers(repository, PackageNamespace.PACKAGE_NAMESPACE,
+			"(&(version>=1.0.0)(!(version>=2.0.0))(osgi.wiring.package=a))")).containsExactly(r1);
+		assertThat(providers(repository, PackageNamespace.PACKAGE_NAMESPACE, "(osgi.wiring.package=1.0.0)"))
+			.containsExactly(r3);
+		assertThat(providers(repository, PackageNamespace.PACKAGE_NAMESPACE, "(osgi.wiring.package=*)"))
+			.containsExactly(r1, r1, r2, r3);
+		assertThat(providers(repository, PackageNamespace.PACKAGE_NAMESPACE, "(osgi.wiring.package=c)")).isEmpty();
+		assertThat(providers(repository, ServiceNamespace.SERVICE_NAMESPACE, "(objectClass=y.Y)"))
+			.containsExactly(r2);
+		assertThat(providers(repository, ServiceNamespace.SERVICE_NAMESPACE, "(objectClass=x.X)"))
+			.containsExactly(r1, r2);
+		assertThat(providers(repository, "unknown", "(unknown=a)")).isEmpty();
+
+		repository.add(r4);
+		assertThat(providers(repository, PackageNamespace.PACKAGE_NAMESPACE, "(osgi.wiring.package=a)"))
+			.containsExactly(r1, r2, r4);
+	}
+
+	@Test
+	public void testIndexValue() {
+		assertThat(CapabilityIndex.value(null, "a")).isNull();
+		assertThat(CapabilityIndex.value("(a=b)", "a")).isEqualTo("b");
+		assertThat(CapabilityIndex.value(" ( a =b c)", "a")).isEqualTo("b c");
+		assertThat(CapabilityIndex.value("(&(c=d)(a=b))", "a")).isEqualTo("b");
+		assertThat(CapabilityIndex.value("(&(|(a=c)(a=d))(!(a=e))(a=b))", "a")).isEqualTo("b");
+		assertThat(CapabilityIndex.value("(&(c=\\)\\()(a=b))", "a")).isEqualTo("b");
+		assertThat(CapabilityIndex.value("(|(a=b))", "a")).isNull();
+		assertThat(CapabilityIndex.value("(!(a=b))", "a")).isNull();
+		assertThat(CapabilityIndex.value("(a=b*)", "a")).isNull();
+		assertThat(CapabilityIndex.value("(a=b\\*)", "a")).isNull();
+		assertThat(CapabilityIndex.value("(a>=b)", "a")).isNull();
+		assertThat(CapabilityIndex.value("(a~=b)", "a")).isNull();
+		assertThat(CapabilityIndex.value("(A=b)", "a")).isNull();
+		assertThat(CapabilityIndex.value("(&(a=b)", "a")).isNull();
+	}
+
+	private static List<Resource> providers(ResourcesRepository repository, String namespace, String filter) {
+		Requirement requirement = new CapReqBuilder(namespace)
+			.addDirective(Namespace.REQUIREMENT_FILTER_DIRECTIVE, filter)
+			.buildSyntheticRequirement();
+		return repository.findProvider(requirement)
+			.stream()
+			.map(Capability::getResource)
+			.toList();
+	}
+
+	private static CapReqBuilder pkg(String name, String version) throws Exception {
+		return new CapReqBuilder(PackageNamespace.PACKAGE_NAMESPACE)
+			.addAttribute(PackageNamespace.PACKAGE_NAMESPACE, name)
+			.addAttribute(PackageNamespace.CAPABILITY_VERSION_ATTRIBUTE, new Version(version));
+	}
+
+	private static CapReqBuilder service(String... objectClass) throws Exception {
+		return new CapReqBuilder(ServiceNamespace.SERVICE_NAMESPACE)
+			.addAttribute(ServiceNamespace.CAPABILITY_OBJECTCLASS_ATTRIBUTE, List.of(objectClass));
+	}
+
+	private static Resource resource(CapReqBuilder... capabilities) {
+		ResourceBuilder builder = new ResourceBuilder();
+		for (CapReqBuilder capability : capabilities) {
+			builder.addCapability(capability);
+		}
+		return builder.build();
+	}
+}
@@ -80,6 +80,35 @@ public class AnalyzerTest {
 
 	}
 
+	@Test
+	public void testParallelAnalysis() throws Exception {
+		Manifest sequential = buildManifest(false);
+		Manifest parallel = buildManifest(true);
+		assertThat(parallel.getMainAttributes()
+			.getValue(Constants.IMPORT_PACKAGE)).isNotNull();
+		for (String header : Arrays.asList(Constants.IMPORT_PACKAGE, Constants.EXPORT_PACKAGE,
+			Constants.PRIVATE_PACKAGE)) {
+			assertThat(parallel.getMainAttributes()
+				.getValue(header)).as(header)
+					.isEqualTo(sequential.getMainAttributes()
+						.getValue(header));
+		}
+	}
+
+	private static Manifest buildManifest(boolean parallel) throws Exception {
+		try (Builder b = new Builder()) {
+			b.setProperty(Constants.PARALLELANALYSIS, Boolean.toString(parallel));
+			b.addClasspath(IO.getFile("jar/asm.jar"));
+			b.addClasspath(IO.getFile("jar/osgi.jar"));
+			b.setExportPackage("org.objectweb.asm.*");
+			b.setPrivatePackage("org.osgi.service.*");
+			b.build();
+			assertTrue(b.check());
+			return b.getJar()
+				.getManifest();
+		}
+	}
+
 	@Test
 	public void testVersionIsLearnedFromPackageinfo() throws Exception {
 		try (Builder source = new Builder()) {
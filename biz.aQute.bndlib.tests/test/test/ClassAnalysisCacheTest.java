@@ -0,0 +1,107 @@
+package test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import aQute.bnd.osgi.Builder;
+import aQute.bnd.osgi.ClassAnalysisCache;
+import aQute.bnd.osgi.Constants;
+import aQute.bnd.osgi.Jar;
+import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
+import aQute.lib.io.IO;
+
+public class ClassAnalysisCacheTest {
+
+	@Test
+	public void testPersistence(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		ByteBuffer bb = ByteBuffer.wrap("class bytes".getBytes(StandardCharsets.UTF_8));
+		String key = ClassAnalysisCache.key(bb, null);
+		assertThat(key).hasSize(64)
+			.isNotEqualTo(ClassAnalysisCache.key(bb, "n"));
+		assertThat(bb.position()).isZero();
+
+		try (ClassAnalysisCache cache = new ClassAnalysisCache(tmp)) {
+			assertThat(cache.get(key)).isNull();
+			cache.put(key, new byte[] {
+				1, 2, 3
+			});
+			assertThat(cache.get(key)).containsExactly(1, 2, 3);
+		}
+		assertThat(IO.getFile(tmp, key.substring(0, 2) + ".cache")).isFile();
+
+		try (ClassAnalysisCache cache = new ClassAnalysisCache(tmp)) {
+			assertThat(cache.get(key)).containsExactly(1, 2, 3);
+		}
+	}
+
+	@Test
+	public void testPrune(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		String[] keys = new String[3];
+		for (int i = 0; i < keys.length; i++) {
+			// all keys in the same bucket
+			keys[i] = "00" + i;
+		}
+		try (ClassAnalysisCache cache = new ClassAnalysisCache(tmp, ClassAnalysisCache.DEFAULT_MAX_AGE, 2 * 256)) {
+			for (String key : keys) {
+				cache.put(key, new byte[] {
+					1
+				});
+				Thread.sleep(5L);
+			}
+		}
+		try (ClassAnalysisCache cache = new ClassAnalysisCache(tmp)) {
+			assertThat(cache.get(keys[0])).isNull();
+			assertThat(cache.get(keys[1])).containsExactly(1);
+			assertThat(cache.get(keys[2])).containsExactly(1);
+		}
+
+		Thread.sleep(20L);
+		try (ClassAnalysisCache cache = new ClassAnalysisCache(tmp, 10L, ClassAnalysisCache.DEFAULT_MAX_ENTRIES)) {
+			cache.put("003", new byte[] {
+				2
+			});
+		}
+		try (ClassAnalysisCache cache = new ClassAnalysisCache(tmp)) {
+			assertThat(cache.get(keys[1])).isNull();
+			assertThat(cache.get(keys[2])).isNull();
+			assertThat(cache.get("003")).containsExactly(2);
+		}
+	}
+
+	@Test
+	public void testBuildWithCache(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		String imports = build(null);
+		assertThat(imports).startsWith("org.osgi.framework;");
+		try (ClassAnalysisCache cache = new ClassAnalysisCache(tmp)) {
+			assertThat(build(cache)).isEqualTo(imports);
+		}
+		assertThat(tmp.list()).isNotEmpty();
+		try (ClassAnalysisCache cache = new ClassAnalysisCache(tmp)) {
+			assertThat(build(cache)).isEqualTo(imports);
+		}
+	}
+
+	private static String build(ClassAnalysisCache cache) throws Exception {
+		try (Builder b = new Builder()) {
+			if (cache != null) {
+				b.setProperty(Constants.CLASSANALYSISCACHE, "true");
+				b.addBasicPlugin(cache);
+			}
+			b.addClasspath(IO.getFile("jar/osgi.jar"));
+			b.setExportPackage("org.osgi.service.event");
+			Jar jar = b.build();
+			assertThat(b.check()).isTrue();
+			return jar.getManifest()
+				.getMainAttributes()
+				.getValue(Constants.IMPORT_PACKAGE);
+		}
+	}
+}
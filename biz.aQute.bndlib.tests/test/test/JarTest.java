@@ -13,14 +13,25 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
 import java.util.jar.JarInputStream;
+import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
 
 import aQute.bnd.osgi.Builder;
 import aQute.bnd.osgi.Constants;
@@ -30,9 +41,192 @@ import aQute.bnd.osgi.Jar;
 import aQute.bnd.osgi.Resource;
 import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
 import aQute.lib.io.IO;
+import aQute.lib.zip.ZipUtil;
 import aQute.libg.cryptography.SHA256;
 
 public class JarTest {
+	@Test
+	public void testReadZipEntries(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		byte[] large = new byte[200_000];
+		new Random(1).nextBytes(large);
+		byte[] text = "Hello World\n".repeat(1000)
+			.getBytes(StandardCharsets.UTF_8);
+		File file = new File(tmp, "test.jar");
+		try (OutputStream out = IO.outputStream(file); ZipOutputStream zout = new ZipOutputStream(out)) {
+			// data before the ZIP content, like a launcher script
+			out.write("#!/bin/sh\n".getBytes(StandardCharsets.UTF_8));
+			zout.setComment("comment");
+			CRC32 crc = new CRC32();
+			crc.update(large);
+			ZipEntry stored = new ZipEntry("a/stored.bin");
+			stored.setMethod(ZipEntry.STORED);
+			stored.setSize(large.length);
+			stored.setCrc(crc.getValue());
+			zout.putNextEntry(stored);
+			zout.write(large);
+			zout.putNextEntry(new ZipEntry("a/"));
+			ZipEntry deflated = new ZipEntry("a/b/deflated.txt");
+			deflated.setTime(1_600_000_000_000L);
+			zout.putNextEntry(deflated);
+			zout.write(text);
+			zout.putNextEntry(new ZipEntry("empty.txt"));
+		}
+
+		try (Jar jar = new Jar(file); ZipFile zip = new ZipFile(file)) {
+			assertThat(jar.getResources()).containsOnlyKeys("a/stored.bin", "a/b/deflated.txt", "empty.txt");
+			assertThat(jar.getDirectories()).containsKeys("a", "a/b");
+			assertThat(IO.read(jar.getResource("a/stored.bin")
+				.buffer())).isEqualTo(large);
+			assertThat(IO.read(jar.getResource("a/b/deflated.txt")
+				.openInputStream())).isEqualTo(text);
+			assertThat(jar.getResource("empty.txt")
+				.size()).isZero();
+			for (String name : jar.getResources()
+				.keySet()) {
+				Resource resource = jar.getResource(name);
+				ZipEntry entry = zip.getEntry(name);
+				assertThat(resource.size()).as(name)
+					.isEqualTo(entry.getSize());
+				assertThat(resource.lastModified()).as(name)
+					.isEqualTo(ZipUtil.getModifiedTime(entry));
+			}
+		}
+	}
+
+	@Test
+	public void testWriteSameAsZipOutputStream() throws Exception {
+		byte[] large = new byte[300_000];
+		Random random = new Random(1);
+		for (int i = 0; i < large.length; i++) {
+			large[i] = (byte) ('a' + random.nextInt(16));
+		}
+		byte[] text = "Hello World\n".repeat(1000)
+			.getBytes(StandardCharsets.UTF_8);
+		byte[] written;
+		byte[] manifest;
+		try (Jar jar = new Jar("test")) {
+			jar.setReproducible("true");
+			jar.setManifest(new Manifest());
+			jar.putResource("a/large.bin", new EmbeddedResource(large, 0L));
+			jar.putResource("a/small.txt", new EmbeddedResource(new byte[] {
+				'x'
+			}, 0L));
+			// no buffer, the content is streamed
+			jar.putResource("b/text.txt", new EmbeddedResource(text, 0L) {
+				@Override
+				public ByteBuffer buffer() {
+					return null;
+				}
+
+				@Override
+				public void write(OutputStream out) throws IOException {
+					out.write(text);
+				}
+			});
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			jar.write(out);
+			written = out.toByteArray();
+			out.reset();
+			jar.writeManifest(out);
+			manifest = out.toByteArray();
+		}
+
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		try (ZipOutputStream zout = new JarOutputStream(expected)) {
+			putEntry(zout, "META-INF/", null);
+			putEntry(zout, "META-INF/MANIFEST.MF", manifest);
+			putEntry(zout, "a/", null);
+			putEntry(zout, "a/large.bin", large);
+			putEntry(zout, "a/small.txt", new byte[] {
+				'x'
+			});
+			putEntry(zout, "b/", null);
+			putEntry(zout, "b/text.txt", text);
+		}
+		assertThat(written).isEqualTo(expected.toByteArray());
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	public void testWriteCopiesDeflatedEntries(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		byte[] large = new byte[300_000];
+		Random random = new Random(1);
+		for (int i = 0; i < large.length; i++) {
+			large[i] = (byte) ('a' + random.nextInt(16));
+		}
+		File source = new File(tmp, "source.jar");
+		try (ZipOutputStream zout = new ZipOutputStream(IO.outputStream(source))) {
+			// not the default level, so deflating again would change the data
+			zout.setLevel(Deflater.BEST_SPEED);
+			zout.putNextEntry(new ZipEntry("a/large.bin"));
+			zout.write(large);
+		}
+		File target = new File(tmp, "target.jar");
+		try (Jar jar = new Jar(source)) {
+			jar.write(target);
+		}
+
+		try (ZipFile sourceZip = new ZipFile(source); ZipFile targetZip = new ZipFile(target)) {
+			ZipEntry entry = targetZip.getEntry("a/large.bin");
+			assertThat(entry.getMethod()).isEqualTo(ZipEntry.DEFLATED);
+			assertThat(entry.getCompressedSize()).isEqualTo(sourceZip.getEntry("a/large.bin")
+				.getCompressedSize());
+			assertThat(entry.getCrc()).isEqualTo(sourceZip.getEntry("a/large.bin")
+				.getCrc());
+		}
+		// ZipInputStream checks the CRC
+		try (ZipInputStream zin = new ZipInputStream(IO.stream(target))) {
+			for (ZipEntry entry; (entry = zin.getNextEntry()) != null;) {
+				if (entry.getName()
+					.equals("a/large.bin")) {
+					assertThat(zin.readAllBytes()).isEqualTo(large);
+				}
+			}
+		}
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	public void testWriteOverMappedSource(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		byte[] large = new byte[300_000];
+		new Random(1).nextBytes(large);
+		File file = new File(tmp, "test.jar");
+		try (Jar jar = new Jar("test")) {
+			jar.putResource("a/large.bin", new EmbeddedResource(large, 0L));
+			jar.write(file);
+		}
+		Resource resource;
+		try (Jar jar = new Jar(file)) {
+			jar.putResource("a/added.txt", new EmbeddedResource("added".getBytes(StandardCharsets.UTF_8), 0L));
+			jar.write(file);
+			resource = jar.getResource("a/large.bin");
+			assertThat(IO.read(resource.openInputStream())).isEqualTo(large);
+		}
+		assertThat(tmp.list()).containsExactly("test.jar");
+		// closing the jar drops the mapping of its resources
+		assertThat(catchThrowable(resource::openInputStream)).isInstanceOf(ZipException.class);
+
+		try (Jar jar = new Jar(file)) {
+			assertThat(IO.read(jar.getResource("a/large.bin")
+				.openInputStream())).isEqualTo(large);
+			assertThat(IO.collect(jar.getResource("a/added.txt")
+				.openInputStream())).isEqualTo("added");
+		}
+	}
+
+	private static void putEntry(ZipOutputStream zout, String name, byte[] content) throws IOException {
+		ZipEntry entry = new ZipEntry(name);
+		ZipUtil.setModifiedTime(entry, 318211200000L);
+		zout.putNextEntry(entry);
+		if (content != null) {
+			zout.write(content);
+		}
+		zout.closeEntry();
+	}
+
 	@Test
 	public void testDeletePrefix() {
 		Resource r = new EmbeddedResource(new byte[1], 0L);
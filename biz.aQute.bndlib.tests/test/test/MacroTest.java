@@ -2164,4 +2164,36 @@ public class MacroTest {
 				.process("${format;%,6d;100000}"));
 		}
 	}
+
+	/**
+	 * Processing the same strings again, and with a different base, must give
+	 * the same results as the first time
+	 */
+	@Test
+	public void testRepeatedProcessing() throws IOException {
+		for (String base : new String[] {
+			"/one", "/two"
+		}) {
+			try (Processor processor = new Processor()) {
+				processor.setBase(new File(base));
+				processor.setProperty("x", "X");
+				processor.setProperty("a", "[${1}]");
+				String path = IO.absolutePath(processor.getBase());
+				Macro m = processor.getReplacer();
+				for (int i = 0; i < 2; i++) {
+					assertThat(m.process("${a;b}")).isEqualTo("[b]");
+					assertThat(m.process("\\${x}")).isEqualTo("${x}");
+					assertThat(m.process("${x")).isEqualTo("${x");
+					assertThat(m.process("$${x}}")).isEqualTo("$X}");
+					assertThat(m.process("${x;a\\;b}")).isEqualTo("X");
+					assertThat(m.process("$[x] $(x) $<x>")).isEqualTo("X X X");
+					assertThat(m.process("${x}${x}")).isEqualTo("XX");
+					assertThat(m.process("${if;${x};./y;n}")).isEqualTo(path + "/y");
+					assertThat(m.process(" ./foo ${x}")).isEqualTo(" " + path + "/foo X");
+					assertThat(m.process("a.b/c ./d")).isEqualTo("a.b/c " + path + "/d");
+				}
+				assertThat(processor.check()).isTrue();
+			}
+		}
+	}
 }
@@ -919,4 +919,73 @@ public class ProcessorTest {
 
 	}
 
+	@Test
+	void testExpandedPropertiesFollowChanges() throws IOException {
+		try (Processor top = new Processor(); Processor p = new Processor(top)) {
+			top.setProperty("v", "1");
+			p.setProperty("a", "${v}-${w}");
+			p.setProperty("w", "x");
+			assertThat(p.getProperty("a")).isEqualTo("1-x");
+
+			top.setProperty("v", "2");
+			assertThat(p.getProperty("a")).isEqualTo("2-x");
+			p.setProperty("v", "3");
+			assertThat(p.getProperty("a")).isEqualTo("3-x");
+			p.unsetProperty("v");
+			assertThat(p.getProperty("a")).isEqualTo("2-x");
+			p.getProperties()
+				.put("w", "y");
+			assertThat(p.getProperty("a")).isEqualTo("2-y");
+
+			assertThat(p.getProperty("-missing")).isNull();
+			assertThat(p.getProperty("-missing", "default")).isEqualTo("default");
+			top.setProperty("-missing", "found");
+			assertThat(p.getProperty("-missing")).isEqualTo("found");
+
+			p.setProperty("-profile", "dev");
+			p.setProperty("[dev]q", "DEV");
+			p.setProperty("[prod]q", "PROD");
+			p.setProperty("r", "${q}");
+			assertThat(p.getProperty("r")).isEqualTo("DEV");
+			p.setProperty("-profile", "prod");
+			assertThat(p.getProperty("r")).isEqualTo("PROD");
+
+			p.setProperty("l", "./x");
+			p.setBase(new File("/a"));
+			String first = p.getProperty("l");
+			p.setBase(new File("/b"));
+			assertThat(p.getProperty("l")).isNotEqualTo(first);
+			assertThat(p.check()).isTrue();
+		}
+	}
+
+	@Test
+	void testExpandedPropertiesFollowIncludes(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		File include = new File(tmp, "include.bnd");
+		File bnd = new File(tmp, "bnd.bnd");
+		IO.store("i: one\n", include);
+		IO.store("-include: include.bnd\nm: ${i}\n", bnd);
+		try (Processor p = new Processor()) {
+			p.setProperties(bnd);
+			assertThat(p.getProperty("m")).isEqualTo("one");
+
+			IO.store("i: two\n", include);
+			include.setLastModified(include.lastModified() + 10_000L);
+			assertThat(p.refresh()).isTrue();
+			assertThat(p.getProperty("m")).isEqualTo("two");
+		}
+	}
+
+	@Test
+	void testExpandedPropertiesWithWarningsAreNotCached() throws IOException {
+		try (Processor p = new Processor()) {
+			p.setProperty("a", "${undefined}");
+			p.getProperty("a");
+			p.clear();
+			p.getProperty("a");
+			assertThat(p.check("No translation found for macro: undefined")).isTrue();
+		}
+	}
+
 }
@@ -2,6 +2,7 @@ package test;
 
 import static java.util.stream.Collectors.toSet;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -12,17 +13,27 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.osgi.framework.Version;
 
+import aQute.bnd.build.Container;
 import aQute.bnd.build.Project;
+import aQute.bnd.build.ProjectBuilder;
 import aQute.bnd.build.Workspace;
+import aQute.bnd.exceptions.Exceptions;
 import aQute.bnd.header.Attrs;
 import aQute.bnd.osgi.About;
+import aQute.bnd.osgi.Analyzer;
 import aQute.bnd.osgi.Constants;
+import aQute.bnd.osgi.Descriptors.TypeRef;
 import aQute.bnd.osgi.Processor;
+import aQute.bnd.service.RepositoryPlugin;
 import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
 import aQute.lib.io.IO;
 import aQute.lib.strings.Strings;
@@ -84,6 +95,24 @@ public class WorkspaceTest {
 		return v;
 	}
 
+	@Test
+	public void testSharedDescriptors() throws Exception {
+		IO.copy(IO.getFile("testresources/ws"), testDir);
+		try (Workspace ws = Workspace.getWorkspace(testDir)) {
+			Project p1 = ws.getProject("p1");
+			Project p2 = ws.getProject("p2");
+			try (ProjectBuilder b1 = p1.getBuilder(null); ProjectBuilder b2 = p2.getBuilder(null);
+				Analyzer standalone = new Analyzer(); Analyzer adopted = new Analyzer()) {
+				TypeRef ref = b1.getTypeRef("java/lang/String");
+				assertThat(b2.getTypeRef("java/lang/String")).isSameAs(ref);
+				assertThat(b2.getPackageRef("java/lang")).isSameAs(ref.getPackageRef());
+				assertThat(standalone.getTypeRef("java/lang/String")).isNotSameAs(ref);
+				adopted.setParent(ws);
+				assertThat(adopted.getTypeRef("java/lang/String")).isSameAs(ref);
+			}
+		}
+	}
+
 	/**
 	 * In an IDE the workspace must be informed if the set of projects change
 	 */
@@ -359,6 +388,75 @@ public class WorkspaceTest {
 		}
 	}
 
+	@Test
+	public void testRunInBuildOrder() throws Exception {
+		for (String name : List.of("cnf", "a", "b", "c", "d")) {
+			IO.mkdirs(IO.getFile(testDir, name));
+		}
+		IO.store("", IO.getFile(testDir, "cnf/build.bnd"));
+		IO.store("", IO.getFile(testDir, "a/bnd.bnd"));
+		IO.store("-dependson a", IO.getFile(testDir, "b/bnd.bnd"));
+		IO.store("-dependson a", IO.getFile(testDir, "c/bnd.bnd"));
+		IO.store("-dependson b,c", IO.getFile(testDir, "d/bnd.bnd"));
+		try (Workspace ws = new Workspace(testDir)) {
+			Project a = ws.getProject("a");
+			Project b = ws.getProject("b");
+			Project c = ws.getProject("c");
+			Project d = ws.getProject("d");
+			assertThat(ws.getBuildOrder(List.of(d))).containsExactly(a, b, c, d);
+			assertThat(ws.getBuildOrder(List.of(b))).containsExactly(a, b);
+
+			List<Project> done = Collections.synchronizedList(new ArrayList<>());
+			ws.runInBuildOrder(List.of(d), 4, p -> {
+				assertThat(done).containsAll(p.getDependson());
+				done.add(p);
+			});
+			assertThat(done).hasSize(4)
+				.startsWith(a)
+				.endsWith(d);
+
+			done.clear();
+			assertThatIllegalStateException().isThrownBy(() -> ws.runInBuildOrder(List.of(d), 4, p -> {
+				done.add(p);
+				if ((p == b) || (p == c)) {
+					throw new IllegalStateException(p.getName());
+				}
+			}))
+				.withMessage("b");
+			assertThat(done).doesNotContain(d);
+		}
+	}
+
+	@Test
+	public void testPrefetch() throws Exception {
+		IO.copy(IO.getFile("testresources/ws"), testDir);
+		File a = IO.mkdirs(IO.getFile(testDir, "prefetch.a"));
+		File b = IO.mkdirs(IO.getFile(testDir, "prefetch.b"));
+		IO.store("-buildpath: osgi.core, org.apache.felix.configadmin\n-testpath: does.not.exist;version=1.0",
+			IO.getFile(a, "bnd.bnd"));
+		IO.store("-buildpath: osgi.core, p1;version=project", IO.getFile(b, "bnd.bnd"));
+		IO.store("-runbundles: org.apache.felix.ipojo, org.apache.felix.configadmin;version='[1.1,2)'",
+			IO.getFile(b, "test.bndrun"));
+		try (Workspace ws = new Workspace(testDir)) {
+			Project pa = ws.getProject("prefetch.a");
+			Project pb = ws.getProject("prefetch.b");
+			List<Container> containers = ws.prefetch(List.of(pa, pb), 4);
+			assertThat(containers).extracting(Container::getBundleSymbolicName)
+				.containsExactly("osgi.core", "org.apache.felix.configadmin", "does.not.exist",
+					"org.apache.felix.ipojo", "org.apache.felix.configadmin");
+			assertThat(containers).filteredOn(c -> c.getError() == null)
+				.hasSize(4)
+				.allSatisfy(c -> assertThat(c.getFile()).isFile());
+			assertThat(containers).filteredOn(c -> c.getError() != null)
+				.extracting(Container::getBundleSymbolicName)
+				.containsExactly("does.not.exist");
+			assertThat(containers.get(1)
+				.getVersion()).isEqualTo("1.0.1");
+			assertThat(containers.get(4)
+				.getVersion()).isEqualTo("1.8.8");
+		}
+	}
+
 	@Test
 	void workspace_lock_deadlock_write_read_write() throws Exception {
 		IO.copy(new File("testresources/ws"), testDir);
@@ -382,4 +480,103 @@ public class WorkspaceTest {
 			}, 10_000L);
 		}
 	}
+
+	@Test
+	void project_lock_concurrent_projects() throws Exception {
+		IO.copy(new File("testresources/ws"), testDir);
+		try (Workspace ws = Workspace.getWorkspace(testDir)) {
+			Project p1 = ws.getProject("p1");
+			Project p2 = ws.getProject("p2");
+			p1.writeLocked(() -> {
+				String other = CompletableFuture.supplyAsync(() -> {
+					try {
+						return p2.writeLocked(p2::getName, () -> false, 10_000L);
+					} catch (Exception e) {
+						throw Exceptions.duck(e);
+					}
+				})
+					.get(20, TimeUnit.SECONDS);
+				assertThat(other).isEqualTo("p2");
+				assertThatExceptionOfType(ExecutionException.class).isThrownBy(() -> CompletableFuture.runAsync(() -> {
+					try {
+						ws.writeLocked(() -> null, 100L);
+					} catch (Exception e) {
+						throw Exceptions.duck(e);
+					}
+				})
+					.get(20, TimeUnit.SECONDS))
+					.withCauseInstanceOf(TimeoutException.class);
+				return null;
+			});
+		}
+	}
+
+	@Test
+	void project_lock_order() throws Exception {
+		IO.copy(new File("testresources/ws"), testDir);
+		try (Workspace ws = Workspace.getWorkspace(testDir)) {
+			// unrelated projects are locked in descending build order
+			List<Project> buildOrder = new ArrayList<>(ws.getBuildOrder());
+			Project p1 = ws.getProject("p1");
+			Project p2 = ws.getProject("p2");
+			assertThat(buildOrder.indexOf(p1)).isLessThan(buildOrder.indexOf(p2));
+			RepositoryPlugin repo = ws.getRepositories()
+				.get(0);
+			assertThat(p2.readLocked(() -> p1.writeLocked(() -> ws.readLocked(repo, () -> "ok")))).isEqualTo("ok");
+			p1.readLocked(() -> {
+				assertThatIllegalStateException().isThrownBy(() -> p2.readLocked(() -> {
+					Assertions.fail("Invalid order of project locks");
+					return null;
+				}));
+				return p1.readLocked(() -> null);
+			});
+			ws.writeLocked(repo, () -> {
+				assertThatIllegalStateException().isThrownBy(() -> p1.readLocked(() -> {
+					Assertions.fail("Invalid order of repository and project locks");
+					return null;
+				}));
+				return null;
+			});
+		}
+	}
+
+	@Test
+	public void testStartupTimeline() throws Exception {
+		IO.copy(new File("testresources/ws"), testDir);
+		try (Workspace ws = Workspace.getWorkspace(testDir)) {
+			assertThat(ws.getRepositories()).extracting(RepositoryPlugin::getName)
+				.contains("Release", "Repo", "Repo2");
+			ws.getInitializedRepositories()
+				.getValue();
+			assertThat(ws.getStartupTimeline()
+				.report()).anyMatch(line -> line.endsWith("create plugin aQute.lib.deployer.FileRepo"))
+					.anyMatch(line -> line.endsWith("load class aQute.lib.deployer.FileRepo"))
+					.anyMatch(line -> line.endsWith("sync Repo2"));
+
+			ws.refresh();
+			assertThat(ws.getStartupTimeline()
+				.report()).isEmpty();
+		}
+	}
+
+	@Test
+	void project_lock_order_dependencies() throws Exception {
+		IO.copy(new File("testresources/ws"), testDir);
+		File dir = IO.getFile(testDir, "zz");
+		IO.mkdirs(dir);
+		IO.store("-dependson: p1\n", IO.getFile(dir, "bnd.bnd"));
+		try (Workspace ws = Workspace.getWorkspace(testDir)) {
+			Project p1 = ws.getProject("p1");
+			Project zz = ws.getProject("zz");
+			assertThat(zz.getDependson()).containsExactly(p1);
+			assertThat(zz.writeLocked(() -> p1.readLocked(() -> "ok"))).isEqualTo("ok");
+			p1.readLocked(() -> {
+				assertThatIllegalStateException().isThrownBy(() -> zz.readLocked(() -> {
+					Assertions.fail("Invalid order of dependency and dependent project locks");
+					return null;
+				}));
+				return null;
+			});
+		}
+	}
 }
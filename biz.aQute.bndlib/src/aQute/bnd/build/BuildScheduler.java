@@ -0,0 +1,132 @@
+package aQute.bnd.build;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import aQute.bnd.exceptions.ConsumerWithException;
+import aQute.bnd.exceptions.Exceptions;
+import aQute.bnd.osgi.Processor;
+
+/**
+ * Runs an action for a set of projects in build order while running projects
+ * that do not depend on each other concurrently.
+ * <p>
+ * The dependencies of a project are the projects returned by
+ * {@link Project#getDependson()}. A project is started when the action
+ * completed for all its dependencies. When several projects are ready, they
+ * are started in build order, see {@link Workspace#getBuildOrder(Collection)}.
+ * An action that reports errors on the project without throwing, like
+ * {@link Project#build()}, completes normally and its dependents are started.
+ * <p>
+ * When the action throws an exception, no more projects are started, so the
+ * dependents of the failed project, and all other projects that did not start
+ * yet, are skipped. After the running projects completed, the exception of the
+ * failed project that comes first in build order is thrown to the caller, so
+ * the reported error does not depend on the timing of the builds. The
+ * exceptions of other failed projects are not reported.
+ */
+class BuildScheduler {
+	private final List<Project>					order;
+	private final Map<Project, Integer>			index			= new HashMap<>();
+	private final Map<Project, Integer>			waiting			= new HashMap<>();
+	private final Map<Project, List<Project>>	dependents		= new HashMap<>();
+	private final Map<Project, Throwable>		failures		= new ConcurrentHashMap<>();
+	private final BlockingQueue<Project>		completed		= new LinkedBlockingQueue<>();
+	private final PriorityQueue<Project>		ready;
+
+	BuildScheduler(Collection<Project> order) throws Exception {
+		this.order = new ArrayList<>(order);
+		for (Project project : this.order) {
+			index.put(project, index.size());
+		}
+		this.ready = new PriorityQueue<>(Comparator.comparing(index::get));
+		for (Project project : this.order) {
+			int count = 0;
+			for (Project dependency : project.getDependson()) {
+				if ((dependency != project) && index.containsKey(dependency)) {
+					dependents.computeIfAbsent(dependency, k -> new ArrayList<>())
+						.add(project);
+					count++;
+				}
+			}
+			waiting.put(project, count);
+			if (count == 0) {
+				ready.add(project);
+			}
+		}
+	}
+
+	void run(int parallelism, ConsumerWithException<Project> action) throws Exception {
+		if (parallelism <= 1) {
+			for (Project project : order) {
+				action.accept(project);
+			}
+			return;
+		}
+		Executor executor = Processor.getExecutor();
+		int running = 0;
+		int done = 0;
+		while (done < order.size()) {
+			while (failures.isEmpty() && (running < parallelism) && !ready.isEmpty()) {
+				start(executor, ready.poll(), action);
+				running++;
+			}
+			if (running == 0) {
+				if (!failures.isEmpty()) {
+					break;
+				}
+				// a cycle, start the first waiting project as a sequential
+				// build would do
+				Project next = order.stream()
+					.filter(p -> waiting.get(p) > 0)
+					.findFirst()
+					.get();
+				waiting.put(next, 0);
+				ready.add(next);
+				continue;
+			}
+			Project project = completed.take();
+			running--;
+			done++;
+			for (Project dependent : dependents.getOrDefault(project, List.of())) {
+				int count = waiting.get(dependent);
+				if (count > 0) {
+					waiting.put(dependent, --count);
+					if (count == 0) {
+						ready.add(dependent);
+					}
+				}
+			}
+		}
+		Throwable failure = order.stream()
+			.map(failures::get)
+			.filter(Objects::nonNull)
+			.findFirst()
+			.orElse(null);
+		if (failure != null) {
+			throw Exceptions.duck(failure);
+		}
+	}
+
+	private void start(Executor executor, Project project, ConsumerWithException<Project> action) {
+		executor.execute(() -> {
+			try {
+				action.accept(project);
+			} catch (Throwable t) {
+				failures.put(project, t);
+			} finally {
+				completed.add(project);
+			}
+		});
+	}
+}
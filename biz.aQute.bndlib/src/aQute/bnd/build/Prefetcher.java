@@ -0,0 +1,197 @@
+package aQute.bnd.build;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import aQute.bnd.header.Attrs;
+import aQute.bnd.header.Parameters;
+import aQute.bnd.osgi.Constants;
+import aQute.bnd.osgi.Instructions;
+import aQute.bnd.osgi.Processor;
+import aQute.bnd.service.Strategy;
+import aQute.bnd.service.progress.ProgressPlugin;
+import aQute.bnd.unmodifiable.Sets;
+import aQute.lib.io.IO;
+
+/**
+ * Downloads the repository bundles that the projects and bndrun files of a
+ * workspace refer to.
+ * <p>
+ * All references on the {@code -buildpath}, {@code -testpath},
+ * {@code -runpath}, {@code -runbundles}, and {@code -runfw} of the projects
+ * and of the bndrun files in the project directories are collected first.
+ * References that are the same for several projects are fetched once. The
+ * references are then looked up with
+ * {@link Project#getBundle(String, String, Strategy, Map)} on a bounded
+ * number of workers, each worker waits for its download to complete before it
+ * takes the next reference. References to projects, files, and wildcards are
+ * skipped since there is nothing to download.
+ */
+class Prefetcher {
+	private final static Set<String>		SKIPPED_VERSIONS	= Sets.of(Constants.VERSION_ATTR_PROJECT,
+		Constants.VERSION_ATTR_SNAPSHOT, "file");
+
+	private final Workspace					workspace;
+	private final Map<String, Reference>	references			= new LinkedHashMap<>();
+
+	private static final class Reference {
+		final Project				context;
+		final Strategy				strategy;
+		final String				bsn;
+		final Map<String, String>	attrs;
+
+		Reference(Project context, Strategy strategy, String bsn, Map<String, String> attrs) {
+			this.context = context;
+			this.strategy = strategy;
+			this.bsn = bsn;
+			this.attrs = attrs;
+		}
+	}
+
+	Prefetcher(Workspace workspace) {
+		this.workspace = workspace;
+	}
+
+	List<Container> prefetch(Collection<Project> projects, int parallelism) throws Exception {
+		List<Run> runs = new ArrayList<>();
+		try {
+			for (Project project : projects) {
+				collect(project);
+				File[] files = project.getBase()
+					.listFiles((dir, name) -> name.endsWith(Constants.DEFAULT_BNDRUN_EXTENSION));
+				if (files != null) {
+					for (File file : files) {
+						Run run = Run.createRun(workspace, file);
+						runs.add(run);
+						collect(run);
+					}
+				}
+			}
+			return fetch(new ArrayList<>(references.values()), Math.max(1, parallelism));
+		} finally {
+			runs.forEach(IO::close);
+		}
+	}
+
+	private void collect(Project context) throws Exception {
+		collect(context, Strategy.LOWEST, Constants.BUILDPATH, context.mergeProperties(Constants.BUILDPATH));
+		collect(context, Strategy.HIGHEST, Constants.TESTPATH, context.mergeProperties(Constants.TESTPATH));
+		collect(context, Strategy.HIGHEST, Constants.RUNPATH, context.mergeProperties(Constants.RUNPATH));
+		collect(context, Strategy.HIGHEST, Constants.RUNBUNDLES, context.mergeProperties(Constants.RUNBUNDLES));
+		collect(context, Strategy.HIGHEST, Constants.RUNFW, context.getProperty(Constants.RUNFW));
+	}
+
+	/*
+	 * Parse the header the same way as Project.getBundles does, including the
+	 * decorators
+	 */
+	private void collect(Project context, Strategy strategy, String source, String spec) {
+		if (spec == null) {
+			return;
+		}
+		Parameters bundles = context.parseHeader(spec);
+		Instructions decorator = new Instructions(context.mergeProperties(source + "+"));
+		decorator.decorate(bundles);
+		decorator = new Instructions(context.mergeProperties(source + "++"));
+		decorator.decorate(bundles, true);
+
+		for (Map.Entry<String, Attrs> entry : bundles.entrySet()) {
+			String bsn = Processor.removeDuplicateMarker(entry.getKey());
+			Attrs attrs = entry.getValue();
+			String version = attrs.get(Constants.VERSION_ATTRIBUTE);
+			if ((bsn.indexOf('*') >= 0) || SKIPPED_VERSIONS.contains(version)) {
+				continue;
+			}
+			String key = strategy + ":" + bsn + ";" + attrs;
+			references.putIfAbsent(key, new Reference(context, strategy, bsn, attrs));
+		}
+	}
+
+	private List<Container> fetch(List<Reference> todo, int parallelism) throws Exception {
+		Container[] fetched = new Container[todo.size()];
+		AtomicInteger next = new AtomicInteger();
+		ProgressPlugin.Task task = startTask(todo.size());
+		Runnable worker = () -> {
+			for (int i; !task.isCanceled() && ((i = next.getAndIncrement()) < fetched.length);) {
+				Reference reference = todo.get(i);
+				fetched[i] = fetch(reference);
+				task.worked(1);
+			}
+		};
+		try {
+			int workers = Math.min(parallelism, fetched.length);
+			if (workers <= 1) {
+				worker.run();
+			} else {
+				Executor executor = Processor.getExecutor();
+				CompletableFuture<?>[] futures = new CompletableFuture<?>[workers];
+				for (int w = 0; w < workers; w++) {
+					futures[w] = CompletableFuture.runAsync(worker, executor);
+				}
+				CompletableFuture.allOf(futures)
+					.join();
+			}
+		} finally {
+			task.done(null, null);
+		}
+		List<Container> result = new ArrayList<>(fetched.length);
+		for (Container container : fetched) {
+			if (container != null) {
+				result.add(container);
+			}
+		}
+		return result;
+	}
+
+	private Container fetch(Reference reference) {
+		String version = reference.attrs.get(Constants.VERSION_ATTRIBUTE);
+		try {
+			Container container = reference.context.getBundle(reference.bsn, version, reference.strategy,
+				reference.attrs);
+			if (container == null) {
+				return new Container(reference.context, reference.bsn, version, Container.TYPE.ERROR, null,
+					reference.bsn + ";version=" + version + " not found", reference.attrs, null);
+			}
+			// wait for the download and fetch the members of a library
+			for (Container member : container.getMembers()) {
+				member.getFile();
+			}
+			return container;
+		} catch (Exception e) {
+			return new Container(reference.context, reference.bsn, version, Container.TYPE.ERROR, null,
+				reference.bsn + ";version=" + version + " " + e, reference.attrs, null);
+		}
+	}
+
+	private ProgressPlugin.Task startTask(int size) {
+		List<ProgressPlugin.Task> tasks = new ArrayList<>();
+		for (ProgressPlugin progress : workspace.getPlugins(ProgressPlugin.class)) {
+			tasks.add(progress.startTask("Prefetch " + size + " bundles", size));
+		}
+		return new ProgressPlugin.Task() {
+			@Override
+			public void worked(int units) {
+				tasks.forEach(t -> t.worked(units));
+			}
+
+			@Override
+			public void done(String message, Throwable e) {
+				tasks.forEach(t -> t.done(message, e));
+			}
+
+			@Override
+			public boolean isCanceled() {
+				return tasks.stream()
+					.anyMatch(ProgressPlugin.Task::isCanceled);
+			}
+		};
+	}
+}
@@ -39,8 +39,11 @@ import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.StringTokenizer;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.jar.Manifest;
@@ -183,6 +186,7 @@ public class Project extends Processor {
 	private volatile Memoize<List<org.osgi.resource.Resource>>	resources						= Memoize
 		.supplier(this::parseBuildResources);
 	private volatile RefreshData								data							= new RefreshData();
+	private final WorkspaceLock									projectLock;
 	public Map<String, Container>								unreferencedClasspathEntries	= new HashMap<>();
 	public ProjectInstructions									instructions					= getInstructions(
 		ProjectInstructions.class);
@@ -196,6 +200,8 @@ public class Project extends Processor {
 
 		// For backward compatibility reasons, we also read
 		readBuildProperties();
+		projectLock = new WorkspaceLock(true, WorkspaceLock.PROJECT, (getBase() != null) ? getName() : "",
+			this::lockRank);
 		repoCollector = new RepoCollector(this);
 		addClose(repoCollector);
 	}
@@ -278,6 +284,76 @@ public class Project extends Processor {
 		return workspace;
 	}
 
+	/**
+	 * Lock the project for reading. The workspace is read locked first, see
+	 * {@link Workspace#readLocked(Callable, BooleanSupplier, long)} for the
+	 * lock ordering. Other projects can be read or modified concurrently.
+	 *
+	 * @param callable the Callable to run
+	 * @param canceled Has the operation been cancelled?
+	 * @param timeoutInMs the timeout in milliseconds
+	 * @return the value of the lambda
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 *             for the lock.
+	 * @throws TimeoutException If the lock was not obtained within the timeout
+	 *             period or the specified monitor is cancelled while waiting to
+	 *             obtain the lock.
+	 * @throws Exception If the callable throws an exception.
+	 */
+	public <T> T readLocked(Callable<T> callable, BooleanSupplier canceled, long timeoutInMs) throws Exception {
+		return getWorkspace().readLocked(
+			() -> projectLock.locked(projectLock.readLock(), timeoutInMs, callable, canceled), canceled,
+			timeoutInMs);
+	}
+
+	public <T> T readLocked(Callable<T> callable, BooleanSupplier canceled) throws Exception {
+		return readLocked(callable, canceled, Workspace.WORKSPACE_LOCK_DEFAULT_TIMEOUTMS);
+	}
+
+	public <T> T readLocked(Callable<T> callable) throws Exception {
+		return readLocked(callable, () -> false, Workspace.WORKSPACE_LOCK_DEFAULT_TIMEOUTMS);
+	}
+
+	/**
+	 * Lock the project for all functions including modification, for example
+	 * a build or a refresh of the project. The workspace is only read locked,
+	 * so other projects can be built concurrently. See
+	 * {@link Workspace#readLocked(Callable, BooleanSupplier, long)} for the
+	 * lock ordering.
+	 *
+	 * @param callable the Callable to run
+	 * @param canceled Has the operation been cancelled?
+	 * @param timeoutInMs the timeout in milliseconds
+	 * @return the value of the lambda
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 *             for the lock.
+	 * @throws TimeoutException If the lock was not obtained within the timeout
+	 *             period or the specified monitor is cancelled while waiting to
+	 *             obtain the lock.
+	 * @throws Exception If the callable throws an exception.
+	 */
+	public <T> T writeLocked(Callable<T> callable, BooleanSupplier canceled, long timeoutInMs) throws Exception {
+		return getWorkspace().readLocked(
+			() -> projectLock.locked(projectLock.writeLock(), timeoutInMs, callable, canceled), canceled,
+			timeoutInMs);
+	}
+
+	public <T> T writeLocked(Callable<T> callable, BooleanSupplier canceled) throws Exception {
+		return writeLocked(callable, canceled, Workspace.WORKSPACE_LOCK_DEFAULT_TIMEOUTMS);
+	}
+
+	public <T> T writeLocked(Callable<T> callable) throws Exception {
+		return writeLocked(callable, () -> false, Workspace.WORKSPACE_LOCK_DEFAULT_TIMEOUTMS);
+	}
+
+	/*
+	 * A project comes after its dependencies in the build order, so locking in
+	 * descending rank locks a project before its dependencies.
+	 */
+	private int lockRank() {
+		return getWorkspace().getBuildOrderIndex(this);
+	}
+
 	@Override
 	public String toString() {
 		return getName();
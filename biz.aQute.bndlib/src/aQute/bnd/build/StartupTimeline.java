@@ -0,0 +1,105 @@
+package aQute.bnd.build;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import aQute.bnd.exceptions.RunnableWithException;
+import aQute.bnd.exceptions.SupplierWithException;
+
+/**
+ * Records how long the steps of the initialization of a workspace took, for
+ * example loading the plugin classes, creating the plugins, and preparing and
+ * syncing the repositories.
+ * <p>
+ * Steps can be recorded from any thread. The report lists the steps in the
+ * order they started with their offset from the creation of the timeline,
+ * their duration, and the thread they ran on, so steps that ran concurrently
+ * can be recognized.
+ */
+public final class StartupTimeline {
+	private final static Logger	logger	= LoggerFactory.getLogger(StartupTimeline.class);
+
+	private final long			origin	= System.nanoTime();
+	private final Queue<Step>	steps	= new ConcurrentLinkedQueue<>();
+
+	private record Step(String name, String thread, long begin, long end) {}
+
+	/**
+	 * Record a step that began at the given {@link System#nanoTime()} and
+	 * ended now.
+	 *
+	 * @param name the name of the step
+	 * @param begin the start time of the step in nanoseconds
+	 */
+	public void record(String name, long begin) {
+		long end = System.nanoTime();
+		String thread = Thread.currentThread()
+			.getName();
+		steps.add(new Step(name, thread, begin, end));
+		if (logger.isDebugEnabled()) {
+			logger.debug("{} took {}ms on {}", name, TimeUnit.NANOSECONDS.toMillis(end - begin), thread);
+		}
+	}
+
+	/**
+	 * Run a step and record how long it took, also when it fails.
+	 *
+	 * @param name the name of the step
+	 * @param step the step
+	 * @return the result of the step
+	 * @throws Exception when the step fails
+	 */
+	public <T> T step(String name, SupplierWithException<T> step) throws Exception {
+		long begin = System.nanoTime();
+		try {
+			return step.get();
+		} finally {
+			record(name, begin);
+		}
+	}
+
+	/**
+	 * Run a step and record how long it took, also when it fails.
+	 *
+	 * @param name the name of the step
+	 * @param step the step
+	 * @throws Exception when the step fails
+	 */
+	public void step(String name, RunnableWithException step) throws Exception {
+		long begin = System.nanoTime();
+		try {
+			step.run();
+		} finally {
+			record(name, begin);
+		}
+	}
+
+	/**
+	 * Return the recorded steps in the order they began, one line per step
+	 * with the offset of its start, its duration, its thread, and its name.
+	 *
+	 * @return the lines of the report
+	 */
+	public List<String> report() {
+		List<Step> sorted = new ArrayList<>(steps);
+		sorted.sort(Comparator.comparingLong(Step::begin));
+		List<String> lines = new ArrayList<>(sorted.size());
+		for (Step step : sorted) {
+			lines.add(String.format("+%6dms %6dms [%s] %s", TimeUnit.NANOSECONDS.toMillis(step.begin() - origin),
+				TimeUnit.NANOSECONDS.toMillis(step.end() - step.begin()), step.thread(), step.name()));
+		}
+		return lines;
+	}
+
+	@Override
+	public String toString() {
+		return String.join("\n", report());
+	}
+}
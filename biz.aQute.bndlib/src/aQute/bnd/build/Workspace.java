@@ -32,7 +32,10 @@ import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.WeakHashMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -59,6 +62,7 @@ import org.slf4j.LoggerFactory;
 import aQute.bnd.annotation.plugin.BndPlugin;
 import aQute.bnd.build.WorkspaceNotifier.ET;
 import aQute.bnd.build.api.OnWorkspace;
+import aQute.bnd.exceptions.ConsumerWithException;
 import aQute.bnd.exceptions.Exceptions;
 import aQute.bnd.exceptions.FunctionWithException;
 import aQute.bnd.exporter.executable.ExecutableJarExporter;
@@ -72,6 +76,7 @@ import aQute.bnd.memoize.CloseableMemoize;
 import aQute.bnd.memoize.Memoize;
 import aQute.bnd.osgi.About;
 import aQute.bnd.osgi.BundleId;
+import aQute.bnd.osgi.ClassAnalysisCache;
 import aQute.bnd.osgi.Constants;
 import aQute.bnd.osgi.Descriptors;
 import aQute.bnd.osgi.Jar;
@@ -137,14 +142,24 @@ public class Workspace extends Processor {
 		final CloseableMemoize<WorkspaceClassIndex>				classIndex;
 		final CloseableMemoize<WorkspaceExternalPluginHandler>	externalPlugins;
 		final CloseableMemoize<LibraryHandler>					libraryHandler;
+		final CloseableMemoize<ClassAnalysisCache>				classAnalysisCache;
 		final Memoize<Parameters>								gestalt;
+		final Memoize<Map<String, Integer>>						buildOrder;
+		final Descriptors										descriptors;
+		final Map<RepositoryPlugin, WorkspaceLock>				repositoryLocks	= Collections
+			.synchronizedMap(new WeakHashMap<>());
+		final StartupTimeline									timeline		= new StartupTimeline();
 
 		WorkspaceData() {
 			repositories = Memoize.supplier(Workspace.this::initRepositories);
 			libraryHandler = CloseableMemoize.closeableSupplier(() -> new LibraryHandler(Workspace.this));
 			classIndex = CloseableMemoize.closeableSupplier(() -> new WorkspaceClassIndex(Workspace.this));
+			classAnalysisCache = CloseableMemoize
+				.closeableSupplier(() -> new ClassAnalysisCache(getCache("classes")));
 			externalPlugins = CloseableMemoize
 				.closeableSupplier(() -> new WorkspaceExternalPluginHandler(Workspace.this));
+			descriptors = new Descriptors();
+			buildOrder = Memoize.supplier(Workspace.this::buildOrderIndex);
 			gestalt = Memoize.supplier(() -> {
 				Parameters gestalt = getMergedParameters(Constants.GESTALT);
 				gestalt.mergeWith(overallGestalt, false);
@@ -167,6 +182,7 @@ public class Workspace extends Processor {
 			IO.close(remoteServer);
 			IO.close(classIndex);
 			IO.close(externalPlugins);
+			IO.close(classAnalysisCache);
 		}
 	}
 
@@ -209,7 +225,7 @@ public class Workspace extends Processor {
 	private File					buildDir;
 	private final ProjectTracker	projects							= new ProjectTracker(this);
 	private final WorkspaceLock		workspaceLock						= new WorkspaceLock(true);
-	private static final long		WORKSPACE_LOCK_DEFAULT_TIMEOUTMS	= 120_000L;
+	static final long				WORKSPACE_LOCK_DEFAULT_TIMEOUTMS	= 120_000L;
 	final WorkspaceNotifier			notifier							= new WorkspaceNotifier(this);
 
 	public static boolean			remoteWorkspaces					= false;
@@ -720,17 +736,38 @@ public class Workspace extends Processor {
 		return data.repositories.get();
 	}
 
+	/*
+	 * The repositories are independent of each other, so they are prepared
+	 * concurrently
+	 */
 	private List<RepositoryPlugin> initRepositories() {
 		List<RepositoryPlugin> plugins = getPlugins(RepositoryPlugin.class);
+		StartupTimeline timeline = getStartupTimeline();
+		List<CompletableFuture<Void>> prepares = new ArrayList<>();
 		for (RepositoryPlugin repo : plugins) {
 			if (repo instanceof Prepare prepare) {
-				try {
-					prepare.prepare();
-				} catch (Exception e) {
-					throw Exceptions.duck(e);
+				prepares.add(CompletableFuture.runAsync(() -> {
+					try {
+						timeline.step("prepare " + repo.getName(), prepare::prepare);
+					} catch (Exception e) {
+						throw Exceptions.duck(e);
+					}
+				}, getExecutor()));
+			}
+		}
+		Throwable failure = null;
+		for (CompletableFuture<Void> prepare : prepares) {
+			try {
+				prepare.join();
+			} catch (CompletionException e) {
+				if (failure == null) {
+					failure = e.getCause();
 				}
 			}
 		}
+		if (failure != null) {
+			throw Exceptions.duck(failure);
+		}
 		return plugins;
 	}
 
@@ -742,9 +779,12 @@ public class Workspace extends Processor {
 	public Promise<List<RepositoryPlugin>> getInitializedRepositories() {
 		try {
 			List<RepositoryPlugin> repositories = getRepositories();
+			StartupTimeline timeline = getStartupTimeline();
 			List<Promise<Void>> promises = new ArrayList<>();
 			for (RepositoryPlugin repo : repositories) {
-				promises.add(repo.sync());
+				long begin = System.nanoTime();
+				promises.add(repo.sync()
+					.onResolve(() -> timeline.record("sync " + repo.getName(), begin)));
 			}
 			return getPromiseFactory().all(promises)
 				.map(l -> {
@@ -759,8 +799,42 @@ public class Workspace extends Processor {
 	}
 
 	public Collection<Project> getBuildOrder() throws Exception {
+		return getBuildOrder(getAllProjects());
+	}
+
+	/**
+	 * The position of the project in the build order of the workspace or -1
+	 * when the project is not part of it. The build order is only calculated
+	 * once and kept until the workspace is refreshed.
+	 */
+	int getBuildOrderIndex(Project project) {
+		return data.buildOrder.get()
+			.getOrDefault(project.getName(), -1);
+	}
+
+	private Map<String, Integer> buildOrderIndex() {
+		Map<String, Integer> index = new HashMap<>();
+		try {
+			for (Project project : getBuildOrder()) {
+				index.putIfAbsent(project.getName(), index.size());
+			}
+		} catch (Exception e) {
+			logger.debug("Unable to calculate the build order of {}", this, e);
+		}
+		return index;
+	}
+
+	/**
+	 * Return the given projects and the projects they depend on in build
+	 * order.
+	 *
+	 * @param projects the projects to build
+	 * @return the projects to build in build order
+	 * @throws Exception
+	 */
+	public Collection<Project> getBuildOrder(Collection<Project> projects) throws Exception {
 		Set<Project> result = new LinkedHashSet<>();
-		for (Project project : getAllProjects()) {
+		for (Project project : projects) {
 			Collection<Project> dependsOn = project.getDependson();
 			getBuildOrder(dependsOn, result);
 			result.add(project);
@@ -768,6 +842,66 @@ public class Workspace extends Processor {
 		return result;
 	}
 
+	/**
+	 * Run an action for the given projects and the projects they depend on.
+	 * The action for a project is only run after it completed for all the
+	 * projects the project depends on. Up to the given number of projects that
+	 * do not depend on each other are run concurrently.
+	 * <p>
+	 * When the action fails for a project, no further projects are started
+	 * and, after the running ones completed, the exception of the failed
+	 * project first in {@link #getBuildOrder(Collection) build order} is
+	 * thrown.
+	 *
+	 * @param projects the projects to run the action for
+	 * @param parallelism the maximum number of projects to run concurrently,
+	 *            the projects are run one by one in build order when this is
+	 *            1 or less
+	 * @param action the action, for example {@link Project#build()}
+	 * @throws Exception
+	 */
+	public void runInBuildOrder(Collection<Project> projects, int parallelism, ConsumerWithException<Project> action)
+		throws Exception {
+		new BuildScheduler(getBuildOrder(projects)).run(parallelism, action);
+	}
+
+	/**
+	 * Download the repository bundles on the {@code -buildpath},
+	 * {@code -testpath}, {@code -runpath}, {@code -runbundles}, and
+	 * {@code -runfw} of all projects and of the bndrun files in the project
+	 * directories.
+	 *
+	 * @param parallelism the maximum number of concurrent downloads
+	 * @return the containers of the bundles, the containers of the bundles
+	 *         that could not be downloaded have an error
+	 * @throws Exception
+	 * @see #prefetch(Collection, int)
+	 */
+	public List<Container> prefetch(int parallelism) throws Exception {
+		return prefetch(getAllProjects(), parallelism);
+	}
+
+	/**
+	 * Download the repository bundles the given projects and the bndrun files
+	 * in their directories refer to. A bundle that is referred to by several
+	 * projects is downloaded once. Up to the given number of bundles are
+	 * downloaded concurrently, progress is reported to the
+	 * {@link aQute.bnd.service.progress.ProgressPlugin ProgressPlugin}s.
+	 * <p>
+	 * Prefetching is best effort, a bundle that can not be found or downloaded
+	 * is returned as a container with an error and is not reported on the
+	 * workspace.
+	 *
+	 * @param projects the projects
+	 * @param parallelism the maximum number of concurrent downloads
+	 * @return the containers of the bundles, the containers of the bundles
+	 *         that could not be downloaded have an error
+	 * @throws Exception
+	 */
+	public List<Container> prefetch(Collection<Project> projects, int parallelism) throws Exception {
+		return new Prefetcher(this).prefetch(projects, parallelism);
+	}
+
 	private void getBuildOrder(Collection<Project> dependsOn, Set<Project> result) throws Exception {
 		for (Project project : dependsOn) {
 			Collection<Project> subProjects = project.getDependson();
@@ -799,6 +933,13 @@ public class Workspace extends Processor {
 				pluginsContainer.add(repo);
 			}
 
+			if (isTrue(getProperty(CLASSANALYSISCACHE))) {
+				pluginsContainer.add(data.classAnalysisCache.get());
+			}
+
+			// share the type and package references among all analyzers
+			pluginsContainer.add(data.descriptors);
+
 			resourceRepositoryImpl = new ResourceRepositoryImpl();
 			String cachedir = getProperty(CACHEDIR);
 			if (cachedir == null) {
@@ -1038,6 +1179,18 @@ public class Workspace extends Processor {
 		table.put("Plugins", getPlugins(Object.class));
 		table.put("Repos", getRepositories());
 		table.put("Projects in build order", getBuildOrder());
+		table.put("Startup timeline", getStartupTimeline().report());
+	}
+
+	/**
+	 * Return the timeline of the initialization of this workspace since it
+	 * was created or last refreshed. It shows how long it took to load and
+	 * create each plugin and to prepare and sync each repository.
+	 *
+	 * @return the startup timeline
+	 */
+	public StartupTimeline getStartupTimeline() {
+		return data.timeline;
 	}
 
 	public File getCache(String name) {
@@ -1494,6 +1647,19 @@ public class Workspace extends Processor {
 	/**
 	 * Lock the workspace for reading. The callable parameter when called can
 	 * freely use any read function in the workspace.
+	 * <p>
+	 * The workspace write lock is only needed for structural changes, such as
+	 * reloading the cnf directory or changing the set of projects or plugins.
+	 * Work on a single project or repository takes the workspace read lock
+	 * and then the lock of the project, see {@link Project#writeLocked},
+	 * or of the repository, see
+	 * {@link #writeLocked(RepositoryPlugin, Callable, BooleanSupplier, long)}.
+	 * Locks must be acquired in order: the workspace lock, then project locks
+	 * with a project before the projects it depends on, then repository locks
+	 * ordered by repository name. Project locks of projects that do not depend
+	 * on each other are ordered by the position of the project in the
+	 * {@link #getBuildOrder() build order}, last first. Acquiring a lock out of
+	 * order fails with an {@link IllegalStateException}.
 	 *
 	 * @param callable the Callable to run
 	 * @param canceled Has the operation been cancelled?
@@ -1560,6 +1726,71 @@ public class Workspace extends Processor {
 		return workspaceLock.locked(workspaceLock.writeLock(), WORKSPACE_LOCK_DEFAULT_TIMEOUTMS, callable, () -> false);
 	}
 
+	/**
+	 * Lock a repository for reading. The workspace is read locked first, see
+	 * {@link #readLocked(Callable, BooleanSupplier, long)} for the lock
+	 * ordering.
+	 *
+	 * @param repository the repository to lock
+	 * @param callable the Callable to run
+	 * @param canceled Has the operation been cancelled?
+	 * @param timeoutInMs the timeout in milliseconds
+	 * @return the value of the lambda
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 *             for the lock.
+	 * @throws TimeoutException If the lock was not obtained within the timeout
+	 *             period or the specified monitor is cancelled while waiting to
+	 *             obtain the lock.
+	 * @throws Exception If the callable throws an exception.
+	 */
+	public <T> T readLocked(RepositoryPlugin repository, Callable<T> callable, BooleanSupplier canceled,
+		long timeoutInMs) throws Exception {
+		return readLocked(() -> {
+			WorkspaceLock lock = repositoryLock(repository);
+			return lock.locked(lock.readLock(), timeoutInMs, callable, canceled);
+		}, canceled, timeoutInMs);
+	}
+
+	public <T> T readLocked(RepositoryPlugin repository, Callable<T> callable) throws Exception {
+		return readLocked(repository, callable, () -> false, WORKSPACE_LOCK_DEFAULT_TIMEOUTMS);
+	}
+
+	/**
+	 * Lock a repository for all functions including modification, for example
+	 * rereading its index. The workspace is only read locked, so other
+	 * repositories and projects can be used concurrently. See
+	 * {@link #readLocked(Callable, BooleanSupplier, long)} for the lock
+	 * ordering.
+	 *
+	 * @param repository the repository to lock
+	 * @param callable the Callable to run
+	 * @param canceled Has the operation been cancelled?
+	 * @param timeoutInMs the timeout in milliseconds
+	 * @return the value of the lambda
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 *             for the lock.
+	 * @throws TimeoutException If the lock was not obtained within the timeout
+	 *             period or the specified monitor is cancelled while waiting to
+	 *             obtain the lock.
+	 * @throws Exception If the callable throws an exception.
+	 */
+	public <T> T writeLocked(RepositoryPlugin repository, Callable<T> callable, BooleanSupplier canceled,
+		long timeoutInMs) throws Exception {
+		return readLocked(() -> {
+			WorkspaceLock lock = repositoryLock(repository);
+			return lock.locked(lock.writeLock(), timeoutInMs, callable, canceled);
+		}, canceled, timeoutInMs);
+	}
+
+	public <T> T writeLocked(RepositoryPlugin repository, Callable<T> callable) throws Exception {
+		return writeLocked(repository, callable, () -> false, WORKSPACE_LOCK_DEFAULT_TIMEOUTMS);
+	}
+
+	private WorkspaceLock repositoryLock(RepositoryPlugin repository) {
+		return data.repositoryLocks.computeIfAbsent(repository,
+			r -> new WorkspaceLock(true, WorkspaceLock.REPOSITORY, Objects.toString(r.getName(), "")));
+	}
+
 	/**
 	 * Lock the workspace for all functions including modification. The callable
 	 * parameter when called can freely use any function in the workspace. After
@@ -2,7 +2,9 @@ package aQute.bnd.build;
 
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 import java.util.Queue;
 import java.util.concurrent.Callable;
@@ -14,6 +16,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -23,16 +26,46 @@ import aQute.bnd.exceptions.FunctionWithException;
 import aQute.lib.strings.Strings;
 
 /**
- * ReentrantReadWriteLock lock for serializing access to the Workspace.
+ * ReentrantReadWriteLock lock for serializing access to the Workspace, a
+ * Project, or a repository.
+ * <p>
+ * Locks are ordered by their level, the workspace lock comes first, then the
+ * project locks, then the repository locks. Locks of the same level are
+ * ordered by their rank, highest first, and then by their name. The rank of a
+ * project lock is the position of the project in the build order of the
+ * workspace, so a project comes before all the projects it depends on and a
+ * project can lock its dependencies while it is locked itself. The rank is
+ * taken when a thread starts to acquire a lock and kept while the thread holds
+ * the lock. A thread may only acquire a lock that comes after all the other
+ * locks it holds, an attempt to acquire a lock out of order fails with an
+ * {@link IllegalStateException} instead of risking a deadlock.
  */
 final class WorkspaceLock extends ReentrantReadWriteLock {
-	private static final long	serialVersionUID	= 1L;
-	private static final Logger	logger				= LoggerFactory.getLogger(WorkspaceLock.class);
-	private final AtomicInteger	progress			= new AtomicInteger();
-	private final Queue<Thread>	readLockHolders		= new ConcurrentLinkedQueue<>();
+	private static final long								serialVersionUID	= 1L;
+	private static final Logger								logger				= LoggerFactory.getLogger(WorkspaceLock.class);
+	static final int										WORKSPACE			= 0;
+	static final int										PROJECT				= 1;
+	static final int										REPOSITORY			= 2;
+	private static final ThreadLocal<List<Held>>			held				= ThreadLocal.withInitial(ArrayList::new);
+	private final AtomicInteger								progress			= new AtomicInteger();
+	private final Queue<Thread>								readLockHolders		= new ConcurrentLinkedQueue<>();
+	private final int										level;
+	private final String									name;
+	private final IntSupplier								rank;
 
 	WorkspaceLock(boolean fair) {
+		this(fair, WORKSPACE, "workspace");
+	}
+
+	WorkspaceLock(boolean fair, int level, String name) {
+		this(fair, level, name, () -> 0);
+	}
+
+	WorkspaceLock(boolean fair, int level, String name, IntSupplier rank) {
 		super(fair);
+		this.level = level;
+		this.name = name;
+		this.rank = rank;
 	}
 
 	private String type(Lock lock) {
@@ -53,7 +86,8 @@ final class WorkspaceLock extends ReentrantReadWriteLock {
 				if (Objects.equals(className, "aQute.bnd.build.WorkspaceLock")) {
 					return true;
 				}
-				if (Objects.equals(className, "aQute.bnd.build.Workspace")) {
+				if (Objects.equals(className, "aQute.bnd.build.Workspace")
+					|| Objects.equals(className, "aQute.bnd.build.Project")) {
 					String methodName = ste.getMethodName();
 					if (Objects.equals(methodName, "readLocked") || Objects.equals(methodName, "writeLocked")) {
 						return true;
@@ -76,7 +110,7 @@ final class WorkspaceLock extends ReentrantReadWriteLock {
 			return null;
 		}
 		final Throwable cause = new Throwable(
-			owner + " owns the WorkspaceLock\n\nFull thread dump:\n" + dumpAllThreads() + "Owner stacktrace:");
+			owner + " owns the " + name + " lock\n\nFull thread dump:\n" + dumpAllThreads() + "Owner stacktrace:");
 		cause.setStackTrace(owner.getStackTrace());
 		return cause;
 	}
@@ -113,6 +147,40 @@ final class WorkspaceLock extends ReentrantReadWriteLock {
 		return e;
 	}
 
+	private IllegalStateException outOfOrder(Lock lock, WorkspaceLock holding) {
+		IllegalStateException e = new IllegalStateException(
+			String.format("Lock order violation trying to %s acquire %s. The current thread holds %s: %s", type(lock),
+				this, holding, Thread.currentThread()));
+		return e;
+	}
+
+	private record Held(WorkspaceLock lock, int rank) {
+		int compareTo(Held other) {
+			int n = Integer.compare(other.rank, rank);
+			if (n != 0) {
+				return n;
+			}
+			return lock.name.compareTo(other.lock.name);
+		}
+	}
+
+	private Held checkOrder(Lock lock) {
+		List<Held> locks = held.get();
+		for (Held holding : locks) {
+			if (holding.lock == this) {
+				// reentrant, an upgrade is detected as a deadlock
+				return holding;
+			}
+		}
+		Held acquiring = new Held(this, rank.getAsInt());
+		for (Held holding : locks) {
+			if ((holding.lock.level > level) || ((holding.lock.level == level) && (holding.compareTo(acquiring) > 0))) {
+				throw outOfOrder(lock, holding.lock);
+			}
+		}
+		return acquiring;
+	}
+
 	<T, U> T writeReadLocked(final long timeoutInMs, final Callable<U> underWrite,
 		final FunctionWithException<U, T> underRead, final BooleanSupplier canceled) throws Exception {
 		Callable<U> writeLocked = () -> {
@@ -144,6 +212,7 @@ final class WorkspaceLock extends ReentrantReadWriteLock {
 		final boolean readLockRequest = lock == readLock();
 
 		trace("Enter", lock);
+		final Held acquiring = checkOrder(lock);
 		try {
 			int startingProgress = progress.get();
 			long remaining = timeoutInMs;
@@ -161,6 +230,8 @@ final class WorkspaceLock extends ReentrantReadWriteLock {
 					throw e;
 				}
 				if (locked) {
+					List<Held> holding = held.get();
+					holding.add(acquiring);
 					try {
 						if (readLockRequest) {
 							readLockHolders.add(currentThread);
@@ -172,6 +243,7 @@ final class WorkspaceLock extends ReentrantReadWriteLock {
 						}
 						return callable.call();
 					} finally {
+						holding.remove(holding.lastIndexOf(acquiring));
 						progress.incrementAndGet();
 						lock.unlock();
 					}
@@ -198,4 +270,9 @@ final class WorkspaceLock extends ReentrantReadWriteLock {
 			}
 		}
 	}
+
+	@Override
+	public String toString() {
+		return name + " " + super.toString();
+	}
 }
@@ -1,6 +1,6 @@
 /**
  */
-@Version("4.7.0")
+@Version("4.8.0")
 package aQute.bnd.build;
 
 import org.osgi.annotation.versioning.Version;
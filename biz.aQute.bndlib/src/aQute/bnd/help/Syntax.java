@@ -386,6 +386,22 @@ public class Syntax implements Constants {
 		new Syntax(CONNECTION_SETTINGS, "Setting up the communications for bnd.",
 			CONNECTION_SETTINGS + "= ~/.bnd/connection-settings.xml", null, null),
 
+		new Syntax(CONNECTION_TRANSPORT,
+			"Selects the transport used for remote downloads. The http2 transport pools connections and multiplexes requests to the same host over HTTP/2.",
+			CONNECTION_TRANSPORT + "=http2;maxperhost=8", "(urlconnection|http2)", null,
+			new Syntax(CONNECTION_TRANSPORT_MAXPERHOST,
+				"The maximum number of concurrent requests per host, 0 means no limit.", "maxperhost=8", null,
+				Verifier.NUMBERPATTERN)),
+
+		new Syntax(CONNECTION_RANGES,
+			"Downloads large files into the cache with concurrent HTTP range requests. Partial downloads are resumed and verified against the checksum headers of the server.",
+			CONNECTION_RANGES + "=parallel=4,threshold=32M,chunksize=8M", null, null,
+			new Syntax("parallel", "The maximum number of concurrent range requests per file.", "parallel=4", null,
+				Verifier.NUMBERPATTERN),
+			new Syntax("threshold", "The minimum size of a file to download with range requests.", "threshold=32M",
+				null, null),
+			new Syntax("chunksize", "The size of a single range request.", "chunksize=8M", null, null)),
+
 		new Syntax(CONDUIT, "Allows a bnd file to point to files which will be returned when the bnd file is build.",
 			CONDUIT + "= jar/osgi.jar", null, null),
 
@@ -563,6 +579,12 @@ public class Syntax implements Constants {
 		new Syntax(NOCLASSFORNAME, "Do not calculate " + IMPORT_PACKAGE
 			+ " references for 'Class.forName(\"some.Class\")' usage found in method bodies during class processing.",
 			NOCLASSFORNAME + "=true", "true,false", Verifier.TRUEORFALSEPATTERN),
+		new Syntax(CLASSANALYSISCACHE,
+			"Cache the class analysis results in the workspace cache keyed by the digest of the class bytes so unchanged classes are not analyzed again.",
+			CLASSANALYSISCACHE + "=true", "true,false", Verifier.TRUEORFALSEPATTERN),
+		new Syntax(PARALLELANALYSIS,
+			"Parse the classes of the bundle concurrently. The result does not depend on the order in which the classes are parsed.",
+			PARALLELANALYSIS + "=true", "true,false", Verifier.TRUEORFALSEPATTERN),
 		new Syntax(NOIMPORTJAVA, "Do not calculate " + IMPORT_PACKAGE + " references for java.* packages.",
 			NOIMPORTJAVA + "=true", "true,false", Verifier.TRUEORFALSEPATTERN),
 
@@ -611,6 +633,14 @@ public class Syntax implements Constants {
 		new Syntax(RESOLVE_PREFERENCES, "Override the default order and selection of repositories.",
 			RESOLVE_PREFERENCES + "=com.example.bundle.most.priority", "${packages}", null),
 
+		new Syntax(RESOLVE_CACHE,
+			"Keep the resolutions in the workspace cache, keyed by the resolve instructions and the content of the repositories, and use them instead of resolving again.",
+			RESOLVE_CACHE + "=true", "true,false", Verifier.TRUEORFALSEPATTERN),
+
+		new Syntax(RESOLVE_INCREMENTAL,
+			"Resolve starting from the current -runbundles. Requirements that the run bundles can provide are wired to them, when this fails a full resolve is done.",
+			RESOLVE_INCREMENTAL + "=true", "true,false", Verifier.TRUEORFALSEPATTERN),
+
 		new Syntax(RUNTIMEOUT, "Specifies the test execution timeout.", RUNTIMEOUT + "=10000", null, null),
 		new Syntax(REQUIRE_BND, "Require a specific version of bnd.", REQUIRE_BND + "=\"(version>=4.1)\"",
 			"(FILTER ( ',' FILTER )* )?", null),
@@ -49,7 +49,11 @@ import org.slf4j.LoggerFactory;
 
 import aQute.bnd.connection.settings.ConnectionSettings;
 import aQute.bnd.exceptions.Exceptions;
+import aQute.bnd.header.Attrs;
+import aQute.bnd.header.OSGiHeader;
+import aQute.bnd.header.Parameters;
 import aQute.bnd.http.URLCache.Info;
+import aQute.bnd.osgi.Constants;
 import aQute.bnd.osgi.Processor;
 import aQute.bnd.service.Registry;
 import aQute.bnd.service.progress.ProgressPlugin;
@@ -76,9 +80,12 @@ import aQute.service.reporter.Reporter;
 public class HttpClient implements Closeable, URLConnector {
 	final static Logger						logger			= LoggerFactory.getLogger(HttpClient.class);
 
-	static final long						INITIAL_TIMEOUT	= TimeUnit.MINUTES.toMillis(3);
-	static final long						FINAL_TIMEOUT	= TimeUnit.MINUTES.toMillis(5);
-	static final long						MAX_RETRY_DELAY	= TimeUnit.MINUTES.toMillis(10);
+	static final long						INITIAL_TIMEOUT				= TimeUnit.MINUTES.toMillis(3);
+	static final long						FINAL_TIMEOUT				= TimeUnit.MINUTES.toMillis(5);
+	static final long						MAX_RETRY_DELAY				= TimeUnit.MINUTES.toMillis(10);
+	static final int						DEFAULT_RANGED_PARALLELISM	= 4;
+	static final long						DEFAULT_RANGED_THRESHOLD	= 32L * 1024L * 1024L;
+	static final long						DEFAULT_RANGED_CHUNK_SIZE	= 8L * 1024L * 1024L;
 
 	private final List<ProxyHandler>			proxyHandlers			= new ArrayList<>();
 	private final List<URLConnectionHandler>	connectionHandlers		= new ArrayList<>();
@@ -92,6 +99,10 @@ public class HttpClient implements Closeable, URLConnector {
 	private volatile AtomicBoolean				offline;
 	private final PromiseFactory				promiseFactory;
 	private ConnectionSettings					connectionSettings;
+	private volatile JdkHttpTransport			transport;
+	private volatile int						rangedParallelism		= 0;
+	private volatile long						rangedThreshold			= DEFAULT_RANGED_THRESHOLD;
+	private volatile long						rangedChunkSize			= DEFAULT_RANGED_CHUNK_SIZE;
 	int											retries					= 3;
 	long										retryDelay				= 0L;
 	final Map<URLConnectionHandler, Semaphore>	blocker					= new HashMap<>();
@@ -320,6 +331,53 @@ public class HttpClient implements Closeable, URLConnector {
 	public void readSettings(Processor processor) throws IOException, Exception {
 		connectionSettings = new ConnectionSettings(processor, this);
 		connectionSettings.readSettings();
+
+		Parameters transports = new Parameters(processor.getProperty(Constants.CONNECTION_TRANSPORT), processor);
+		for (Map.Entry<String, Attrs> entry : transports.entrySet()) {
+			String key = Processor.removeDuplicateMarker(entry.getKey());
+			switch (key) {
+				case "urlconnection" -> urlConnection();
+				case "http2" -> {
+					String maxPerHost = entry.getValue()
+						.get(Constants.CONNECTION_TRANSPORT_MAXPERHOST, "0");
+					try {
+						http2(Integer.parseInt(maxPerHost));
+					} catch (NumberFormatException e) {
+						processor.error("%s: %s is not a number: %s", Constants.CONNECTION_TRANSPORT,
+							Constants.CONNECTION_TRANSPORT_MAXPERHOST, maxPerHost);
+					}
+				}
+				default -> processor.error("%s: unknown transport %s, expected urlconnection or http2",
+					Constants.CONNECTION_TRANSPORT, key);
+			}
+		}
+
+		String ranges = processor.getProperty(Constants.CONNECTION_RANGES);
+		if (ranges != null) {
+			Attrs attrs = OSGiHeader.parseProperties(ranges, processor);
+			try {
+				rangedDownloads(Integer.parseInt(attrs.getOrDefault("parallel", "" + DEFAULT_RANGED_PARALLELISM)),
+					parseSize(attrs.getOrDefault("threshold", "" + DEFAULT_RANGED_THRESHOLD)),
+					parseSize(attrs.getOrDefault("chunksize", "" + DEFAULT_RANGED_CHUNK_SIZE)));
+			} catch (IllegalArgumentException e) {
+				processor.error("%s: invalid value %s: %s", Constants.CONNECTION_RANGES, ranges, e.getMessage());
+			}
+		}
+	}
+
+	private static long parseSize(String size) {
+		String s = size.trim()
+			.toUpperCase(Locale.ROOT);
+		long factor = switch (s.isEmpty() ? ' ' : s.charAt(s.length() - 1)) {
+			case 'K' -> 1024L;
+			case 'M' -> 1024L * 1024L;
+			case 'G' -> 1024L * 1024L * 1024L;
+			default -> 1L;
+		};
+		if (factor != 1L) {
+			s = s.substring(0, s.length() - 1);
+		}
+		return Long.parseLong(s.trim()) * factor;
 	}
 
 	public URI makeDir(URI uri) throws URISyntaxException {
@@ -355,6 +413,13 @@ public class HttpClient implements Closeable, URLConnector {
 		if (connectionSettings != null) {
 			connectionSettings.report(out);
 		}
+		JdkHttpTransport localTransport = transport;
+		out.format("-connection-transport         %s%n", (localTransport == null) ? "urlconnection"
+			: "http2;maxperhost=" + localTransport.maxConcurrentPerHost());
+		if (rangedParallelism > 1) {
+			out.format("-connection-ranges            parallel=%s,threshold=%s,chunksize=%s%n", rangedParallelism,
+				rangedThreshold, rangedChunkSize);
+		}
 	}
 
 	public HttpClient retries(int retries) {
@@ -367,6 +432,71 @@ public class HttpClient implements Closeable, URLConnector {
 		return this;
 	}
 
+	/**
+	 * Send http and https requests with {@code java.net.http}. Connections are
+	 * pooled and requests to the same host are multiplexed over HTTP/2 when
+	 * the server supports it. Uploads, SOCKS proxies, and proxies that require
+	 * authentication continue to use {@link URLConnection}.
+	 *
+	 * @param maxConcurrentPerHost the maximum number of concurrent requests
+	 *            per host, 0 or less for no limit
+	 * @return this
+	 */
+	public HttpClient http2(int maxConcurrentPerHost) {
+		this.transport = new JdkHttpTransport(maxConcurrentPerHost);
+		return this;
+	}
+
+	/**
+	 * Send all requests with {@link URLConnection}. This is the default.
+	 *
+	 * @return this
+	 */
+	public HttpClient urlConnection() {
+		this.transport = null;
+		return this;
+	}
+
+	public boolean isHttp2() {
+		return transport != null;
+	}
+
+	/**
+	 * Download large files into the cache with concurrent HTTP range requests.
+	 * A response is split in chunks when it is at least the threshold size,
+	 * the server accepts byte ranges, and the response has a validator to
+	 * detect changes. Partial downloads are resumed and, when the server
+	 * sends a SHA-256 or SHA-1 checksum header, verified.
+	 *
+	 * @param parallelism the maximum number of concurrent range requests per
+	 *            file, 1 or less disables ranged downloads
+	 * @param threshold the minimum size in bytes of a file to download with
+	 *            range requests
+	 * @param chunkSize the size in bytes of a range request
+	 * @return this
+	 */
+	public HttpClient rangedDownloads(int parallelism, long threshold, long chunkSize) {
+		if (chunkSize <= 0L) {
+			throw new IllegalArgumentException("chunk size must be positive: " + chunkSize);
+		}
+		this.rangedThreshold = threshold;
+		this.rangedChunkSize = chunkSize;
+		this.rangedParallelism = parallelism;
+		return this;
+	}
+
+	int rangedParallelism() {
+		return rangedParallelism;
+	}
+
+	long rangedThreshold() {
+		return rangedThreshold;
+	}
+
+	long rangedChunkSize() {
+		return rangedChunkSize;
+	}
+
 	class HttpConnection<T> implements Callable<T> {
 		// These are not in HttpURLConnection
 		private static final int		HTTP_TEMPORARY_REDIRECT			= 307;	// https://developer.mozilla.org/en-US/docs/Web/HTTP/Status/307
@@ -511,7 +641,7 @@ public class HttpClient implements Closeable, URLConnector {
 							// update the cache from the input stream
 							//
 
-							info.update(tag.getInputStream(), tag.getTag(), tag.getModified());
+							update(info, tag);
 						} else if (tag.getState() == State.UNMODIFIED) {
 							info.jsonFile.setLastModified(System.currentTimeMillis());
 						}
@@ -535,12 +665,26 @@ public class HttpClient implements Closeable, URLConnector {
 				TaggedData tag = connect();
 
 				if (tag.isOk()) {
-					info.update(tag.getInputStream(), tag.getTag(), tag.getModified());
+					update(info, tag);
 				}
 				return tag;
 			}
 		}
 
+		private void update(Info info, TaggedData tag) throws Exception {
+			RangedDownload ranged = RangedDownload.of(HttpClient.this, request.verb, tag);
+			if (ranged == null) {
+				info.update(tag.getInputStream(), tag.getTag(), tag.getModified());
+				return;
+			}
+			ranged.download(tag.getInputStream(), info.file);
+			long modified = tag.getModified();
+			if (modified > 0) {
+				info.file.setLastModified(modified);
+			}
+			info.update(tag.getTag());
+		}
+
 		private TaggedData connect() throws Exception {
 			final ProxySetup proxy = getProxySetup(request.url);
 			final URLConnectionHandler matching = findMatchingHandler(request.url);
@@ -789,7 +933,13 @@ public class HttpClient implements Closeable, URLConnector {
 
 		private URLConnection getProxiedAndConfiguredConnection(URL url, ProxySetup proxy,
 			URLConnectionHandler matching) throws Exception {
-			final URLConnection urlc = proxy != null ? url.openConnection(proxy.proxy) : url.openConnection();
+			final JdkHttpTransport localTransport = transport;
+			final URLConnection urlc;
+			if ((localTransport != null) && localTransport.accepts(url, proxy, request.upload)) {
+				urlc = localTransport.openConnection(url, proxy);
+			} else {
+				urlc = proxy != null ? url.openConnection(proxy.proxy) : url.openConnection();
+			}
 
 			if (matching == null) {
 				return urlc;
@@ -0,0 +1,424 @@
+package aQute.bnd.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.http.HttpClient.Redirect;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.security.cert.Certificate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLPeerUnverifiedException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import aQute.bnd.service.url.ProxyHandler.ProxySetup;
+
+/**
+ * A transport for {@link HttpClient} based on {@code java.net.http}. Requests
+ * to the same host share pooled connections and, when the server supports it,
+ * are multiplexed over a single HTTP/2 connection.
+ * <p>
+ * The transport hands out {@link HttpURLConnection}s so the request handling
+ * of {@link HttpClient}, the {@link URLCache}, and the
+ * {@link aQute.bnd.service.url.URLConnectionHandler URLConnectionHandler}s
+ * that set headers work unchanged. The request is sent when the response is
+ * first asked for. A request for which a handler customized the TLS socket
+ * factory or host name verification is sent with a plain
+ * {@link HttpURLConnection} instead since {@code java.net.http} can not use
+ * them. Uploads, SOCKS proxies and proxies that need authentication are not
+ * accepted by this transport.
+ */
+class JdkHttpTransport {
+	private final static Logger								logger	= LoggerFactory.getLogger(JdkHttpTransport.class);
+
+	private final int										maxConcurrentPerHost;
+	private final Map<Proxy, java.net.http.HttpClient>		clients	= new ConcurrentHashMap<>();
+	private final Map<String, Semaphore>					hosts	= new ConcurrentHashMap<>();
+
+	/**
+	 * @param maxConcurrentPerHost the maximum number of concurrent requests per
+	 *            host, 0 or less for no limit
+	 */
+	JdkHttpTransport(int maxConcurrentPerHost) {
+		this.maxConcurrentPerHost = maxConcurrentPerHost;
+	}
+
+	int maxConcurrentPerHost() {
+		return maxConcurrentPerHost;
+	}
+
+	boolean accepts(URL url, ProxySetup proxy, Object upload) {
+		if (upload != null) {
+			return false;
+		}
+		String protocol = url.getProtocol()
+			.toLowerCase(Locale.ROOT);
+		if (!protocol.equals("http") && !protocol.equals("https")) {
+			return false;
+		}
+		if (proxy != null) {
+			return (proxy.authentication == null) && (proxy.proxy.type() == Proxy.Type.HTTP)
+				&& (proxy.proxy.address() instanceof InetSocketAddress);
+		}
+		return true;
+	}
+
+	HttpURLConnection openConnection(URL url, ProxySetup proxy) {
+		return new Connection(url, (proxy != null) ? proxy.proxy : null);
+	}
+
+	private java.net.http.HttpClient client(Proxy proxy) {
+		return clients.computeIfAbsent((proxy != null) ? proxy : Proxy.NO_PROXY, p -> {
+			java.net.http.HttpClient.Builder builder = java.net.http.HttpClient.newBuilder()
+				.version(Version.HTTP_2)
+				.followRedirects(Redirect.NEVER)
+				.connectTimeout(Duration.ofMinutes(2));
+			if (p != Proxy.NO_PROXY) {
+				builder.proxy(ProxySelector.of((InetSocketAddress) p.address()));
+			}
+			return builder.build();
+		});
+	}
+
+	private Semaphore blocker(URL url) {
+		if (maxConcurrentPerHost <= 0) {
+			return null;
+		}
+		String host = url.getProtocol() + "://" + url.getAuthority();
+		return hosts.computeIfAbsent(host, h -> new Semaphore(maxConcurrentPerHost));
+	}
+
+	/**
+	 * A connection that sends its request with {@code java.net.http} or, when
+	 * the TLS settings were customized, with a plain connection.
+	 */
+	final class Connection extends HttpsURLConnection {
+		private final Proxy							proxy;
+		private HttpURLConnection					fallback;
+		private HttpResponse<InputStream>			response;
+		private Map<String, List<String>>			headers;
+		private List<String>						keys;
+		private InputStream							body;
+
+		Connection(URL url, Proxy proxy) {
+			super(url);
+			this.proxy = proxy;
+		}
+
+		@Override
+		public void connect() throws IOException {
+			if (connected) {
+				return;
+			}
+			if (isTlsCustomized()) {
+				fallback = fallback();
+				fallback.connect();
+				connected = true;
+				return;
+			}
+			java.net.http.HttpRequest.Builder builder;
+			try {
+				builder = java.net.http.HttpRequest.newBuilder(url.toURI());
+			} catch (URISyntaxException e) {
+				throw new IOException(e);
+			}
+			if ("http".equalsIgnoreCase(url.getProtocol())) {
+				// no h2c upgrade attempts on plain connections
+				builder.version(Version.HTTP_1_1);
+			}
+			long timeout = (long) getConnectTimeout() + getReadTimeout();
+			if (timeout > 0L) {
+				builder.timeout(Duration.ofMillis(timeout));
+			}
+			getRequestProperties().forEach((key, values) -> {
+				for (String value : values) {
+					try {
+						builder.header(key, value);
+					} catch (IllegalArgumentException e) {
+						// java.net.http manages some headers itself
+						logger.debug("skipping restricted header {}", key);
+					}
+				}
+			});
+			builder.method(getRequestMethod(), java.net.http.HttpRequest.BodyPublishers.noBody());
+
+			Semaphore semaphore = blocker(url);
+			try {
+				if (semaphore != null) {
+					semaphore.acquire();
+				}
+				try {
+					response = client(proxy).send(builder.build(), BodyHandlers.ofInputStream());
+				} catch (IOException | RuntimeException e) {
+					if (semaphore != null) {
+						semaphore.release();
+					}
+					throw e;
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread()
+					.interrupt();
+				throw new InterruptedIOException(e.getMessage());
+			}
+			responseCode = response.statusCode();
+			if ((responseCode / 100 == 2) && !"HEAD".equals(getRequestMethod())) {
+				body = new Body(response.body(), semaphore);
+			} else {
+				// HttpClient does not always read or close the body of
+				// redirects and errors, keep it so the connection is released
+				try (InputStream in = new Body(response.body(), semaphore)) {
+					body = new ByteArrayInputStream(in.readAllBytes());
+				}
+			}
+			headers = new LinkedHashMap<>();
+			keys = new ArrayList<>();
+			response.headers()
+				.map()
+				.forEach((key, values) -> {
+					headers.put(key, values);
+					for (int i = 0; i < values.size(); i++) {
+						keys.add(key);
+					}
+				});
+			connected = true;
+		}
+
+		private boolean isTlsCustomized() {
+			return "https".equalsIgnoreCase(url.getProtocol())
+				&& ((getSSLSocketFactory() != getDefaultSSLSocketFactory())
+					|| (getHostnameVerifier() != getDefaultHostnameVerifier()));
+		}
+
+		private HttpURLConnection fallback() throws IOException {
+			HttpURLConnection con = (HttpURLConnection) ((proxy != null) ? url.openConnection(proxy)
+				: url.openConnection());
+			getRequestProperties().forEach((key, values) -> values.forEach(value -> con.addRequestProperty(key, value)));
+			con.setRequestMethod(getRequestMethod());
+			con.setInstanceFollowRedirects(getInstanceFollowRedirects());
+			con.setConnectTimeout(getConnectTimeout());
+			con.setReadTimeout(getReadTimeout());
+			con.setUseCaches(getUseCaches());
+			if (con instanceof HttpsURLConnection https) {
+				https.setSSLSocketFactory(getSSLSocketFactory());
+				https.setHostnameVerifier(getHostnameVerifier());
+			}
+			return con;
+		}
+
+		@Override
+		public int getResponseCode() throws IOException {
+			connect();
+			return (fallback != null) ? fallback.getResponseCode() : responseCode;
+		}
+
+		@Override
+		public String getResponseMessage() throws IOException {
+			connect();
+			// HTTP/2 has no reason phrase
+			return (fallback != null) ? fallback.getResponseMessage() : null;
+		}
+
+		@Override
+		public String getHeaderField(String name) {
+			try {
+				connect();
+			} catch (IOException e) {
+				return null;
+			}
+			if (fallback != null) {
+				return fallback.getHeaderField(name);
+			}
+			List<String> values = response.headers()
+				.allValues(name);
+			return values.isEmpty() ? null : values.get(values.size() - 1);
+		}
+
+		@Override
+		public Map<String, List<String>> getHeaderFields() {
+			try {
+				connect();
+			} catch (IOException e) {
+				return Collections.emptyMap();
+			}
+			return (fallback != null) ? fallback.getHeaderFields() : Collections.unmodifiableMap(headers);
+		}
+
+		@Override
+		public String getHeaderFieldKey(int n) {
+			try {
+				connect();
+			} catch (IOException e) {
+				return null;
+			}
+			if (fallback != null) {
+				return fallback.getHeaderFieldKey(n);
+			}
+			return (n >= 0 && n < keys.size()) ? keys.get(n) : null;
+		}
+
+		@Override
+		public String getHeaderField(int n) {
+			String key = getHeaderFieldKey(n);
+			if (fallback != null) {
+				return fallback.getHeaderField(n);
+			}
+			if (key == null) {
+				return null;
+			}
+			int occurrence = 0;
+			for (int i = 0; i < n; i++) {
+				if (keys.get(i)
+					.equals(key)) {
+					occurrence++;
+				}
+			}
+			return headers.get(key)
+				.get(occurrence);
+		}
+
+		@Override
+		public InputStream getInputStream() throws IOException {
+			connect();
+			if (fallback != null) {
+				return fallback.getInputStream();
+			}
+			if (responseCode >= 400) {
+				throw new IOException("Server returned HTTP response code: " + responseCode + " for URL: " + url);
+			}
+			return body;
+		}
+
+		@Override
+		public InputStream getErrorStream() {
+			if (fallback != null) {
+				return fallback.getErrorStream();
+			}
+			return (connected && responseCode >= 400) ? body : null;
+		}
+
+		@Override
+		public void disconnect() {
+			if (fallback != null) {
+				fallback.disconnect();
+			} else if (body != null) {
+				try {
+					body.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+
+		@Override
+		public boolean usingProxy() {
+			return proxy != null;
+		}
+
+		@Override
+		public String getCipherSuite() {
+			if (fallback instanceof HttpsURLConnection https) {
+				return https.getCipherSuite();
+			}
+			return response.sslSession()
+				.map(session -> session.getCipherSuite())
+				.orElseThrow(IllegalStateException::new);
+		}
+
+		@Override
+		public Certificate[] getLocalCertificates() {
+			if (fallback instanceof HttpsURLConnection https) {
+				return https.getLocalCertificates();
+			}
+			return response.sslSession()
+				.map(session -> session.getLocalCertificates())
+				.orElse(null);
+		}
+
+		@Override
+		public Certificate[] getServerCertificates() throws SSLPeerUnverifiedException {
+			if (fallback instanceof HttpsURLConnection https) {
+				return https.getServerCertificates();
+			}
+			if (response.sslSession()
+				.isEmpty()) {
+				return null;
+			}
+			return response.sslSession()
+				.get()
+				.getPeerCertificates();
+		}
+
+		@Override
+		public String toString() {
+			return "JdkHttpTransport:" + url;
+		}
+	}
+
+	/**
+	 * Releases the per host permit when the body is read or closed.
+	 */
+	private static final class Body extends FilterInputStream {
+		private final Semaphore		semaphore;
+		private final AtomicBoolean	released	= new AtomicBoolean();
+
+		Body(InputStream in, Semaphore semaphore) {
+			super(in);
+			this.semaphore = semaphore;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b < 0) {
+				release();
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = super.read(b, off, len);
+			if (n < 0) {
+				release();
+			}
+			return n;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			} finally {
+				release();
+			}
+		}
+
+		private void release() {
+			if ((semaphore != null) && released.compareAndSet(false, true)) {
+				semaphore.release();
+			}
+		}
+	}
+}
@@ -0,0 +1,307 @@
+package aQute.bnd.http;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import aQute.bnd.exceptions.Exceptions;
+import aQute.bnd.osgi.Processor;
+import aQute.bnd.service.url.TaggedData;
+import aQute.lib.io.IO;
+import aQute.lib.io.IOConstants;
+import aQute.lib.json.JSONCodec;
+import aQute.libg.cryptography.SHA1;
+import aQute.libg.cryptography.SHA256;
+
+/**
+ * Downloads a large response of a GET request with concurrent HTTP range
+ * requests.
+ * <p>
+ * The first chunk is read from the response that was already received, the
+ * other chunks are requested with a {@code Range} and an {@code If-Range}
+ * header through the {@link HttpClient}, so the proxies, authentication, and
+ * retries of the client apply. Each chunk is written at its position in a
+ * preallocated {@code .part} file next to the target file. The completed
+ * chunks are recorded in a {@code .part.json} file so that a download that was
+ * interrupted continues with the missing chunks when the same resource is
+ * requested again.
+ * <p>
+ * When the server sends a {@code X-Checksum-Sha256} or {@code X-Checksum-Sha1}
+ * header, as Maven repository managers do, the assembled file is verified
+ * against it before it replaces the target file. A download is only split
+ * when the server accepts byte ranges, does not encode the content, and
+ * provides a strong ETag or a modification date to detect that the resource
+ * changed between the requests.
+ */
+class RangedDownload {
+	private final static Logger		logger	= LoggerFactory.getLogger(RangedDownload.class);
+	private final static JSONCodec	codec	= new JSONCodec();
+
+	/**
+	 * The progress of a partial download.
+	 */
+	public static class PartDTO {
+		public URI				uri;
+		public String			validator;
+		public long				length;
+		public long				chunkSize;
+		public List<Integer>	done	= new ArrayList<>();
+	}
+
+	private final HttpClient	client;
+	private final URL			url;
+	private final String		validator;
+	private final long			length;
+	private final long			chunkSize;
+	private final int			chunks;
+	private final int			parallelism;
+	private final String		sha256;
+	private final String		sha1;
+
+	private RangedDownload(HttpClient client, URL url, String validator, long length, long chunkSize,
+		int parallelism, String sha256, String sha1) {
+		this.client = client;
+		this.url = url;
+		this.validator = validator;
+		this.length = length;
+		this.chunkSize = chunkSize;
+		this.chunks = (int) ((length + chunkSize - 1) / chunkSize);
+		this.parallelism = parallelism;
+		this.sha256 = sha256;
+		this.sha1 = sha1;
+	}
+
+	/**
+	 * Return a ranged download for the response or {@code null} when the
+	 * response must be read as a single stream.
+	 */
+	static RangedDownload of(HttpClient client, String verb, TaggedData tag) throws Exception {
+		int parallelism = client.rangedParallelism();
+		if ((parallelism <= 1) || !"GET".equals(verb)
+			|| (tag.getResponseCode() != HttpURLConnection.HTTP_OK)
+			|| !(tag.getConnection() instanceof HttpURLConnection con)) {
+			return null;
+		}
+		long length = con.getContentLengthLong();
+		if ((length < client.rangedThreshold()) || (length <= client.rangedChunkSize())
+			|| !"bytes".equalsIgnoreCase(con.getHeaderField("Accept-Ranges"))
+			|| (con.getHeaderField("Content-Encoding") != null)) {
+			return null;
+		}
+		String validator = tag.getTag();
+		if ((validator == null) || validator.startsWith("W/")) {
+			// If-Range requires a strong validator
+			validator = con.getHeaderField("Last-Modified");
+			if (validator == null) {
+				return null;
+			}
+		}
+		long chunks = (length + client.rangedChunkSize() - 1) / client.rangedChunkSize();
+		if (chunks > Integer.MAX_VALUE) {
+			return null;
+		}
+		return new RangedDownload(client, con.getURL(), validator, length, client.rangedChunkSize(), parallelism,
+			checksum(con, "X-Checksum-Sha256"), checksum(con, "X-Checksum-Sha1"));
+	}
+
+	private static String checksum(HttpURLConnection con, String header) {
+		String value = con.getHeaderField(header);
+		return (value == null) ? null
+			: value.trim()
+				.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Download the resource into the file. The stream of the first response is
+	 * used for the first chunk and is closed.
+	 */
+	void download(InputStream first, File file) throws Exception {
+		File part = new File(file.getParentFile(), file.getName() + ".part");
+		File state = new File(file.getParentFile(), file.getName() + ".part.json");
+		IO.mkdirs(file.getParentFile());
+		PartDTO dto = resume(part, state);
+		BitSet done = new BitSet(chunks);
+		dto.done.forEach(done::set);
+		logger.debug("ranged download of {} in {} chunks, {} done", url, chunks, done.cardinality());
+
+		try (FileChannel channel = FileChannel.open(part.toPath(), StandardOpenOption.CREATE,
+			StandardOpenOption.WRITE)) {
+			if (channel.size() != length) {
+				channel.truncate(length);
+				channel.write(ByteBuffer.wrap(new byte[1]), length - 1);
+			}
+			AtomicInteger next = new AtomicInteger(1);
+			AtomicReference<Throwable> failure = new AtomicReference<>();
+			Runnable worker = () -> {
+				for (int i; (failure.get() == null) && ((i = next.getAndIncrement()) < chunks);) {
+					if (isDone(done, i)) {
+						continue;
+					}
+					try {
+						fetch(channel, i);
+						completed(dto, done, state, i);
+					} catch (Throwable t) {
+						failure.compareAndSet(null, t);
+					}
+				}
+			};
+			Executor executor = Processor.getExecutor();
+			int workers = Math.min(parallelism - 1, chunks - 1);
+			CompletableFuture<?>[] futures = new CompletableFuture<?>[workers];
+			for (int w = 0; w < workers; w++) {
+				futures[w] = CompletableFuture.runAsync(worker, executor);
+			}
+			try {
+				if (isDone(done, 0)) {
+					IO.close(first);
+				} else {
+					try (InputStream in = first) {
+						copy(in, channel, 0L, chunkSize);
+					}
+					completed(dto, done, state, 0);
+				}
+				// help with the remaining chunks
+				worker.run();
+			} catch (Throwable t) {
+				failure.compareAndSet(null, t);
+			} finally {
+				CompletableFuture.allOf(futures)
+					.handle((v, t) -> null)
+					.join();
+			}
+			if (failure.get() != null) {
+				throw Exceptions.duck(failure.get());
+			}
+			channel.force(false);
+		}
+
+		verify(part, state);
+		IO.rename(part, file);
+		IO.delete(state);
+	}
+
+	private PartDTO resume(File part, File state) {
+		if (part.isFile() && state.isFile()) {
+			try {
+				PartDTO dto = codec.dec()
+					.from(state)
+					.get(PartDTO.class);
+				if (url.toURI()
+					.equals(dto.uri) && validator.equals(dto.validator) && (length == dto.length)
+					&& (chunkSize == dto.chunkSize) && (part.length() == length)) {
+					return dto;
+				}
+			} catch (Exception e) {
+				logger.debug("ignoring the partial download state {}", state, e);
+			}
+		}
+		IO.delete(part);
+		IO.delete(state);
+		PartDTO dto = new PartDTO();
+		try {
+			dto.uri = url.toURI();
+		} catch (Exception e) {
+			throw Exceptions.duck(e);
+		}
+		dto.validator = validator;
+		dto.length = length;
+		dto.chunkSize = chunkSize;
+		return dto;
+	}
+
+	private static boolean isDone(BitSet done, int chunk) {
+		synchronized (done) {
+			return done.get(chunk);
+		}
+	}
+
+	private void completed(PartDTO dto, BitSet done, File state, int chunk) throws Exception {
+		synchronized (done) {
+			done.set(chunk);
+			dto.done = done.stream()
+				.boxed()
+				.toList();
+			codec.enc()
+				.to(state)
+				.put(dto);
+		}
+	}
+
+	private void fetch(FileChannel channel, int chunk) throws Exception {
+		long start = chunk * chunkSize;
+		long end = Math.min(start + chunkSize, length) - 1L;
+		try (TaggedData tag = client.build()
+			.headers("Range", "bytes=" + start + "-" + end)
+			.headers("If-Range", validator)
+			.asTag()
+			.go(url)) {
+			if (tag.getResponseCode() != 206) {
+				throw new IOException("Range request for " + url + " bytes " + start + "-" + end + " returned "
+					+ tag.getResponseCode() + ", the resource changed or does not support ranges");
+			}
+			String range = tag.getConnection()
+				.getHeaderField("Content-Range");
+			if ((range == null) || !range.trim()
+				.startsWith("bytes " + start + "-" + end + "/")) {
+				throw new IOException("Unexpected Content-Range " + range + " for " + url + " bytes " + start + "-" + end);
+			}
+			copy(tag.getInputStream(), channel, start, end + 1L - start);
+		}
+	}
+
+	private void copy(InputStream in, FileChannel channel, long position, long count) throws IOException {
+		long max = Math.min(count, length - position);
+		byte[] buffer = new byte[IOConstants.PAGE_SIZE * 16];
+		ByteBuffer bb = ByteBuffer.wrap(buffer);
+		long remaining = max;
+		while (remaining > 0L) {
+			int n = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+			if (n < 0) {
+				throw new IOException("Premature end of " + url + " at " + (max - remaining + position));
+			}
+			bb.limit(n)
+				.position(0);
+			while (bb.hasRemaining()) {
+				position += channel.write(bb, position);
+			}
+			remaining -= n;
+		}
+	}
+
+	private void verify(File part, File state) throws Exception {
+		String actual = null;
+		String expected = null;
+		if (sha256 != null) {
+			expected = sha256;
+			actual = SHA256.digest(part)
+				.asHex();
+		} else if (sha1 != null) {
+			expected = sha1;
+			actual = SHA1.digest(part)
+				.asHex();
+		}
+		if ((expected != null) && !expected.equalsIgnoreCase(actual)) {
+			IO.delete(part);
+			IO.delete(state);
+			throw new IOException(
+				"Checksum of the ranged download of " + url + " is " + actual + " but the server sent " + expected);
+		}
+	}
+}
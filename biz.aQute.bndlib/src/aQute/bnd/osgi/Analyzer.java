@@ -40,6 +40,9 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.StringJoiner;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.jar.Attributes;
 import java.util.jar.Attributes.Name;
@@ -63,6 +66,7 @@ import aQute.bnd.header.Attrs;
 import aQute.bnd.header.OSGiHeader;
 import aQute.bnd.header.Parameters;
 import aQute.bnd.http.HttpClient;
+import aQute.bnd.memoize.Memoize;
 import aQute.bnd.osgi.Clazz.JAVA;
 import aQute.bnd.osgi.Clazz.QUERY;
 import aQute.bnd.osgi.Descriptors.Descriptor;
@@ -117,6 +121,7 @@ import aQute.libg.tuple.Pair;
 public class Analyzer extends Processor {
 	private final static Logger						logger					= LoggerFactory.getLogger(Analyzer.class);
 	private final static Version					frameworkR7				= new Version("1.9");
+	private final static int						MIN_CLASSES_PER_THREAD	= 64;
 	private final SortedSet<Clazz.JAVA>				ees						= new TreeSet<>();
 
 	// Bundle parameters
@@ -134,7 +139,7 @@ public class Analyzer extends Processor {
 		PackageRef.class, true);
 	private final Contracts							contracts				= new Contracts(this);
 	private final Packages							classpathExports		= new Packages();
-	private final Descriptors						descriptors				= new Descriptors();
+	private final Memoize<Descriptors>				descriptors				= Memoize.supplier(this::findDescriptors);
 	private final List<Jar>							classpath				= list();
 	private final Map<TypeRef, Clazz>				classspace				= map();
 	private final Map<TypeRef, Clazz>				lookAsideClasses		= map();
@@ -149,8 +154,7 @@ public class Analyzer extends Processor {
 	private Set<PackageRef>							nonClassReferences		= new HashSet<>();
 	private Set<Check>								checks;
 	private final Map<TypeRef, String>				bcpTypes				= map();
-	final TypeRef									providerType			= getTypeRef(
-		"org/osgi/annotation/versioning/ProviderType");
+	private volatile Optional<ClassAnalysisCache>	classAnalysisCache;
 
 	public enum Check {
 		ALL,
@@ -401,7 +405,8 @@ public class Analyzer extends Processor {
 
 			// Check for use of the deprecated bnd @Export annotation
 
-			TypeRef bndAnnotation = descriptors.getTypeRefFromFQN(aQute.bnd.annotation.Export.class.getName());
+			TypeRef bndAnnotation = descriptors.get()
+				.getTypeRefFromFQN(aQute.bnd.annotation.Export.class.getName());
 			contained.keySet()
 				.stream()
 				.map(this::getPackageInfo)
@@ -556,7 +561,8 @@ public class Analyzer extends Processor {
 	private final static String STATUS_PROPERTY = "status";
 
 	private Parameters getExportedByAnnotation() {
-		TypeRef exportAnnotation = descriptors.getTypeRef("org/osgi/annotation/bundle/Export");
+		TypeRef exportAnnotation = descriptors.get()
+			.getTypeRef("org/osgi/annotation/bundle/Export");
 		Parameters exportedByAnnotation = getContained().keySet()
 			.stream()
 			.map(this::getPackageInfo)
@@ -576,7 +582,8 @@ public class Analyzer extends Processor {
 		}
 
 		Instructions instructions = new Instructions(headerAPIGuardian);
-		TypeRef apiAnnotation = descriptors.getTypeRef("org/apiguardian/api/API");
+		TypeRef apiAnnotation = descriptors.get()
+			.getTypeRef("org/apiguardian/api/API");
 		Parameters exportedByAPIGuardian = new Parameters(false);
 
 		MapStream.of(getClassspace().values()
@@ -612,7 +619,8 @@ public class Analyzer extends Processor {
 
 	// Handle org.osgi.annotation.bundle.Referenced annotation
 	private Set<PackageRef> referencesByAnnotation(Clazz clazz) {
-		TypeRef referencedAnnotation = descriptors.getTypeRef("org/osgi/annotation/bundle/Referenced");
+		TypeRef referencedAnnotation = descriptors.get()
+			.getTypeRef("org/osgi/annotation/bundle/Referenced");
 		if (clazz.annotations()
 			.contains(referencedAnnotation)) {
 			Set<PackageRef> referenced = clazz.annotations(referencedAnnotation.getBinary())
@@ -625,7 +633,8 @@ public class Analyzer extends Processor {
 	}
 
 	public Clazz getPackageInfo(PackageRef packageRef) {
-		TypeRef tr = descriptors.getPackageInfo(packageRef);
+		TypeRef tr = descriptors.get()
+			.getPackageInfo(packageRef);
 		try {
 			return findClass(tr);
 		} catch (Exception e) {
@@ -2246,7 +2255,7 @@ public class Analyzer extends Processor {
 			Clazz c = findClass(t);
 
 			return c.annotations()
-				.contains(providerType) || isProvider(c.superClass);
+				.contains(getTypeRef("org/osgi/annotation/versioning/ProviderType")) || isProvider(c.superClass);
 		} catch (Exception e) {
 			return false;
 		}
@@ -2258,7 +2267,7 @@ public class Analyzer extends Processor {
 		TypeRef packageInfo = getTypeRef(packageRef.binaryName.concat("/package-info"));
 		Clazz c = findClass(packageInfo);
 		return c != null && c.annotations()
-			.contains(providerType);
+			.contains(getTypeRef("org/osgi/annotation/versioning/ProviderType"));
 	}
 
 	/**
@@ -2744,6 +2753,8 @@ public class Analyzer extends Processor {
 			.map(Domain::getImportPackage)
 			.orElseGet(() -> new Parameters());
 
+		Map<String, Clazz> parsed = parseClasses(jar, prefix);
+
 		next: for (String path : jar.getResources()
 			.keySet()) {
 			if (path.startsWith(prefix)) {
@@ -2768,8 +2779,11 @@ public class Analyzer extends Processor {
 					Clazz clazz;
 
 					try {
-						clazz = new Clazz(this, path, resource);
-						clazz.parseClassFile();
+						clazz = parsed.get(path);
+						if (clazz == null) {
+							clazz = new Clazz(this, path, resource);
+							clazz.parseClassFile();
+						}
 					} catch (Exception e) {
 						exception(e, "Invalid class file %s (%s)", relativePath, e);
 						continue next;
@@ -2820,6 +2834,67 @@ public class Analyzer extends Processor {
 		return true;
 	}
 
+	/**
+	 * When the {@link Constants#PARALLELANALYSIS} instruction is set, parse the
+	 * classes in the jar concurrently on the bnd executor. The classes are only
+	 * parsed here. The caller merges them in jar order so the result does not
+	 * depend on the scheduling. A class that fails to parse is left out so the
+	 * caller parses it again and reports the error.
+	 *
+	 * @return the parsed classes by path
+	 */
+	private Map<String, Clazz> parseClasses(Jar jar, String prefix) {
+		if (!is(PARALLELANALYSIS)) {
+			return Collections.emptyMap();
+		}
+		List<Clazz> classes = jar.getResources()
+			.entrySet()
+			.stream()
+			.filter(e -> {
+				String path = e.getKey();
+				return path.startsWith(prefix) && path.endsWith(".class")
+					&& !path.startsWith("META-INF/", prefix.length());
+			})
+			.map(e -> new Clazz(this, e.getKey(), e.getValue()))
+			.collect(toList());
+		int parallelism = Math.min(Runtime.getRuntime()
+			.availableProcessors(), classes.size() / MIN_CLASSES_PER_THREAD);
+		if (parallelism < 2) {
+			return Collections.emptyMap();
+		}
+
+		getClassAnalysisCache(); // initialize before fanning out
+		AtomicInteger next = new AtomicInteger();
+		Clazz[] parsed = new Clazz[classes.size()];
+		Runnable worker = () -> {
+			for (int i; (i = next.getAndIncrement()) < parsed.length;) {
+				Clazz clazz = classes.get(i);
+				try {
+					clazz.parseClassFile();
+					parsed[i] = clazz;
+				} catch (Exception e) {
+					logger.debug("Failed to parse {} in parallel, deferring", clazz.getAbsolutePath(), e);
+				}
+			}
+		};
+		Executor executor = getExecutor();
+		CompletableFuture<?>[] workers = new CompletableFuture<?>[parallelism - 1];
+		for (int i = 0; i < workers.length; i++) {
+			workers[i] = CompletableFuture.runAsync(worker, executor);
+		}
+		worker.run();
+		CompletableFuture.allOf(workers)
+			.join();
+
+		Map<String, Clazz> result = new HashMap<>(parsed.length);
+		for (Clazz clazz : parsed) {
+			if (clazz != null) {
+				result.put(clazz.getAbsolutePath(), clazz);
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * Clean up version parameters. Other builders use more fuzzy definitions of
 	 * the version syntax. This method cleans up such a version to match an OSGi
@@ -3038,7 +3113,8 @@ public class Analyzer extends Processor {
 		for (Entry<PackageRef, Attrs> entry : scope.entrySet()) {
 			PackageRef pkg = entry.getKey();
 
-			TypeRef pkgInfoTypeRef = descriptors.getPackageInfo(pkg);
+			TypeRef pkgInfoTypeRef = descriptors.get()
+				.getPackageInfo(pkg);
 			Clazz pkgInfo = classspace.get(pkgInfoTypeRef);
 			boolean accept = false;
 			if (queryType != null) {
@@ -3202,7 +3278,8 @@ public class Analyzer extends Processor {
 	}
 
 	public void referToByBinaryName(String binaryClassName) {
-		TypeRef ref = descriptors.getTypeRef(binaryClassName);
+		TypeRef ref = descriptors.get()
+			.getTypeRef(binaryClassName);
 		referTo(ref);
 	}
 
@@ -3277,40 +3354,74 @@ public class Analyzer extends Processor {
 		}
 	}
 
+	/**
+	 * Use the {@link Descriptors} shared by the parent, for example the
+	 * workspace, so that all analyzers below it intern the same type and
+	 * package references. Otherwise use a private instance.
+	 */
+	private Descriptors findDescriptors() {
+		Processor parent = getParent();
+		Descriptors shared = (parent != null) ? parent.getPlugin(Descriptors.class) : null;
+		return (shared != null) ? shared : new Descriptors();
+	}
+
 	public Descriptor getDescriptor(String descriptor) {
-		return descriptors.getDescriptor(descriptor);
+		return descriptors.get()
+			.getDescriptor(descriptor);
+	}
+
+	/**
+	 * Return the cache for class analysis results if the
+	 * {@link Constants#CLASSANALYSISCACHE} instruction is set and a
+	 * {@link ClassAnalysisCache} plugin is available.
+	 */
+	ClassAnalysisCache getClassAnalysisCache() {
+		Optional<ClassAnalysisCache> cache = classAnalysisCache;
+		if (cache == null) {
+			classAnalysisCache = cache = Optional
+				.ofNullable(is(CLASSANALYSISCACHE) ? getPlugin(ClassAnalysisCache.class) : null);
+		}
+		return cache.orElse(null);
 	}
 
 	public TypeRef getTypeRef(String binaryClassName) {
-		return descriptors.getTypeRef(binaryClassName);
+		return descriptors.get()
+			.getTypeRef(binaryClassName);
 	}
 
 	public PackageRef getPackageRef(String binaryName) {
-		return descriptors.getPackageRef(binaryName);
+		return descriptors.get()
+			.getPackageRef(binaryName);
 	}
 
 	public TypeRef getTypeRefFrom(Class<?> clazz) {
-		return descriptors.getTypeRefFromFQN(clazz.getName());
+		return descriptors.get()
+			.getTypeRefFromFQN(clazz.getName());
 	}
 
 	public TypeRef getTypeRefFromFQN(String fqn) {
-		return descriptors.getTypeRefFromFQN(fqn);
+		return descriptors.get()
+			.getTypeRefFromFQN(fqn);
 	}
 
 	public TypeRef getTypeRefFromPath(String path) {
-		return descriptors.getTypeRefFromPath(path);
+		return descriptors.get()
+			.getTypeRefFromPath(path);
 	}
 
 	public ClassSignature getClassSignature(String signature) {
-		return descriptors.getClassSignature(signature);
+		return descriptors.get()
+			.getClassSignature(signature);
 	}
 
 	public MethodSignature getMethodSignature(String signature) {
-		return descriptors.getMethodSignature(signature);
+		return descriptors.get()
+			.getMethodSignature(signature);
 	}
 
 	public FieldSignature getFieldSignature(String signature) {
-		return descriptors.getFieldSignature(signature);
+		return descriptors.get()
+			.getFieldSignature(signature);
 	}
 
 	public boolean isImported(PackageRef packageRef) {
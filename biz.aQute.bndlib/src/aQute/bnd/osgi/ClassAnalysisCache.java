@@ -0,0 +1,278 @@
+package aQute.bnd.osgi;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import aQute.bnd.exceptions.Exceptions;
+import aQute.lib.hex.Hex;
+import aQute.lib.io.IO;
+
+/**
+ * A persistent cache of class analysis summaries keyed by the SHA-256 digest
+ * of the class bytes.
+ * <p>
+ * {@link Clazz} stores the result of its reference and API analysis here so
+ * that a byte-identical class seen in a later build does not have to be
+ * analyzed again. The summaries are opaque to the cache.
+ * <p>
+ * Entries are spread over 256 bucket files selected by the first byte of the
+ * digest. A bucket is read on first use and written back on {@link #flush()}
+ * after merging with any entries another process wrote in the meantime. Bucket
+ * files are replaced atomically so a concurrent reader sees either the old or
+ * the new content. An unreadable bucket file is treated as empty.
+ * <p>
+ * Each entry records when it was last used. When a bucket is written, entries
+ * that were not used within the maximum age are dropped and, when the bucket
+ * holds more than its share of the maximum number of entries, the least
+ * recently used entries are dropped.
+ */
+public class ClassAnalysisCache implements Closeable {
+	private final static Logger	logger				= LoggerFactory.getLogger(ClassAnalysisCache.class);
+	private final static int	MAGIC				= 0x424E4443;
+	private final static int	VERSION				= 2;
+	private final static long	TOUCH_INTERVAL		= TimeUnit.HOURS.toMillis(1L);
+	/**
+	 * The default maximum age of an entry that is not used, 30 days.
+	 */
+	public final static long	DEFAULT_MAX_AGE		= TimeUnit.DAYS.toMillis(30L);
+	/**
+	 * The default maximum number of entries.
+	 */
+	public final static int		DEFAULT_MAX_ENTRIES	= 256 * 1024;
+
+	private final File			dir;
+	private final Bucket[]		buckets				= new Bucket[256];
+
+	/**
+	 * Create a cache storing its bucket files in the given directory with the
+	 * default bounds.
+	 *
+	 * @param dir the cache directory, created on first flush
+	 */
+	public ClassAnalysisCache(File dir) {
+		this(dir, DEFAULT_MAX_AGE, DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * Create a cache storing its bucket files in the given directory.
+	 *
+	 * @param dir the cache directory, created on first flush
+	 * @param maxAge the time in milliseconds after which an entry that is not
+	 *            used is dropped
+	 * @param maxEntries the maximum number of entries, the least recently used
+	 *            entries are dropped first
+	 */
+	public ClassAnalysisCache(File dir, long maxAge, int maxEntries) {
+		this.dir = dir;
+		int maxPerBucket = Math.max(1, (maxEntries + buckets.length - 1) / buckets.length);
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i] = new Bucket(new File(dir, Hex.toHex((byte) i) + ".cache"), maxAge, maxPerBucket);
+		}
+	}
+
+	/**
+	 * Calculate the cache key for the class bytes in the remaining content of
+	 * the specified buffer. The buffer position is not changed.
+	 *
+	 * @param bb the class bytes
+	 * @param variant distinguishes analyses of the same bytes made with
+	 *            different analyzer options
+	 * @return the cache key
+	 */
+	public static String key(ByteBuffer bb, String variant) {
+		try {
+			MessageDigest md = MessageDigest.getInstance("SHA-256");
+			md.update(bb.duplicate());
+			String digest = Hex.toHexString(md.digest());
+			return (variant == null) || variant.isEmpty() ? digest : digest.concat(variant);
+		} catch (NoSuchAlgorithmException e) {
+			throw Exceptions.duck(e);
+		}
+	}
+
+	/**
+	 * Return the summary stored for the key.
+	 *
+	 * @param key the cache key
+	 * @return the summary or {@code null} if there is none
+	 */
+	public byte[] get(String key) {
+		Bucket bucket = bucket(key);
+		Entry entry = bucket.entries()
+			.get(key);
+		if (entry == null) {
+			return null;
+		}
+		long now = System.currentTimeMillis();
+		if (now - entry.used > TOUCH_INTERVAL) {
+			// only persisted once in a while to not rewrite buckets on reads
+			entry.used = now;
+			bucket.dirty = true;
+		}
+		return entry.summary;
+	}
+
+	/**
+	 * Store a summary for the key. The summary is persisted on the next
+	 * {@link #flush()}.
+	 *
+	 * @param key the cache key
+	 * @param summary the summary
+	 */
+	public void put(String key, byte[] summary) {
+		Bucket bucket = bucket(key);
+		if (bucket.entries()
+			.put(key, new Entry(summary, System.currentTimeMillis())) == null) {
+			bucket.dirty = true;
+		}
+	}
+
+	/**
+	 * Write all modified buckets to disk.
+	 */
+	public void flush() {
+		for (Bucket bucket : buckets) {
+			if (bucket.dirty) {
+				try {
+					bucket.flush();
+				} catch (Exception e) {
+					logger.debug("Failed to write class analysis cache {}", bucket.file, e);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		flush();
+	}
+
+	@Override
+	public String toString() {
+		return "ClassAnalysisCache[" + dir + "]";
+	}
+
+	private Bucket bucket(String key) {
+		return buckets[Hex.nibble(key.charAt(0)) << 4 | Hex.nibble(key.charAt(1))];
+	}
+
+	static final class Entry {
+		final byte[]	summary;
+		volatile long	used;
+
+		Entry(byte[] summary, long used) {
+			this.summary = summary;
+			this.used = used;
+		}
+	}
+
+	static final class Bucket {
+		final File								file;
+		private final long						maxAge;
+		private final int						maxEntries;
+		private volatile Map<String, Entry>		entries;
+		volatile boolean						dirty;
+
+		Bucket(File file, long maxAge, int maxEntries) {
+			this.file = file;
+			this.maxAge = maxAge;
+			this.maxEntries = maxEntries;
+		}
+
+		Map<String, Entry> entries() {
+			Map<String, Entry> e = entries;
+			if (e == null) {
+				synchronized (this) {
+					e = entries;
+					if (e == null) {
+						entries = e = new ConcurrentHashMap<>(read());
+					}
+				}
+			}
+			return e;
+		}
+
+		synchronized void flush() throws IOException {
+			dirty = false;
+			Map<String, Entry> merged = read();
+			entries.forEach((key, entry) -> merged.merge(key, entry, (a, b) -> (a.used >= b.used) ? a : b));
+			prune(merged);
+			IO.mkdirs(file.getParentFile());
+			File tmp = IO.createTempFile(file.getParentFile(), "bucket", ".tmp");
+			try (DataOutputStream out = new DataOutputStream(IO.outputStream(tmp))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(merged.size());
+				for (Map.Entry<String, Entry> entry : merged.entrySet()) {
+					out.writeUTF(entry.getKey());
+					Entry e = entry.getValue();
+					out.writeLong(e.used);
+					out.writeInt(e.summary.length);
+					out.write(e.summary);
+				}
+			} catch (IOException e) {
+				IO.delete(tmp);
+				throw e;
+			}
+			IO.rename(tmp, file);
+		}
+
+		private void prune(Map<String, Entry> merged) {
+			long oldest = System.currentTimeMillis() - maxAge;
+			merged.values()
+				.removeIf(e -> e.used < oldest);
+			int excess = merged.size() - maxEntries;
+			if (excess > 0) {
+				merged.entrySet()
+					.stream()
+					.sorted(Comparator.comparingLong(e -> e.getValue().used))
+					.limit(excess)
+					.map(Map.Entry::getKey)
+					.toList()
+					.forEach(merged::remove);
+			}
+			Map<String, Entry> current = entries;
+			if (current != null) {
+				current.keySet()
+					.retainAll(merged.keySet());
+			}
+		}
+
+		private Map<String, Entry> read() {
+			Map<String, Entry> result = new HashMap<>();
+			if (!file.isFile()) {
+				return result;
+			}
+			try (DataInputStream in = new DataInputStream(IO.stream(file))) {
+				if ((in.readInt() != MAGIC) || (in.readInt() != VERSION)) {
+					return result;
+				}
+				for (int n = in.readInt(); n > 0; n--) {
+					String key = in.readUTF();
+					long used = in.readLong();
+					byte[] summary = new byte[in.readInt()];
+					in.readFully(summary);
+					result.put(key, new Entry(summary, used));
+				}
+			} catch (Exception e) {
+				logger.debug("Ignoring unreadable class analysis cache {}", file, e);
+				result.clear();
+			}
+			return result;
+		}
+	}
+}
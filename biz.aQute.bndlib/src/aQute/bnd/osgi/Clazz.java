@@ -17,8 +17,11 @@ import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toMap;
 import static java.util.stream.Collectors.toSet;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInput;
 import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.annotation.RetentionPolicy;
@@ -780,6 +783,10 @@ public class Clazz {
 	public static final int					TYPEUSE_INDEX_NONE				= TypeAnnotationInfo.TYPEUSE_INDEX_NONE;
 	public static final int					TYPEUSE_TARGET_INDEX_EXTENDS	= TypeAnnotationInfo.TYPEUSE_TARGET_INDEX_EXTENDS;
 
+	private static final int				SUMMARY_RUNTIMEANNOTATIONS		= 1 << 0;
+	private static final int				SUMMARY_CLASSANNOTATIONS		= 1 << 1;
+	private static final int				SUMMARY_DEFAULTCONSTRUCTOR		= 1 << 2;
+
 	public Clazz(Analyzer analyzer, String path, Resource resource) {
 		this.path = path;
 		this.resource = resource;
@@ -797,41 +804,45 @@ public class Clazz {
 	public Set<TypeRef> parseClassFileWithCollector(ClassDataCollector cd) throws Exception {
 		ByteBuffer bb = resource.buffer();
 		if (bb != null) {
-			return parseClassFileData(ByteBufferDataInput.wrap(bb), cd);
+			return parseClassFileData(ByteBufferDataInput.wrap(bb), bb, cd);
 		}
 		return parseClassFile(resource.openInputStream(), cd);
 	}
 
 	public Set<TypeRef> parseClassFile(InputStream in, ClassDataCollector cd) throws Exception {
 		try (DataInputStream din = new DataInputStream(in)) {
-			return parseClassFileData(din, cd);
+			return parseClassFileData(din, null, cd);
 		}
 	}
 
-	private Set<TypeRef> parseClassFileData(DataInput in, ClassDataCollector cd) throws Exception {
-		Set<TypeRef> xref = parseClassFileData(in);
+	private Set<TypeRef> parseClassFileData(DataInput in, ByteBuffer bb, ClassDataCollector cd) throws Exception {
+		Set<TypeRef> xref = parseClassFileData(in, bb);
 		visitClassFile(cd);
 		return xref;
 	}
 
-	private synchronized Set<TypeRef> parseClassFileData(DataInput in) throws Exception {
+	/**
+	 * Parse the class file and analyze its references.
+	 * <p>
+	 * When the class bytes are available as a buffer and the analyzer has a
+	 * {@link ClassAnalysisCache}, the result of the reference analysis is
+	 * restored from the cache if the same bytes were analyzed before. The class
+	 * file itself is always parsed since the collectors visit it.
+	 */
+	private synchronized Set<TypeRef> parseClassFileData(DataInput in, ByteBuffer bb) throws Exception {
 		if (classFile != null) {
 			return xref;
 		}
 
 		logger.debug("parseClassFile(): path={} resource={}", path, resource);
 
+		ClassAnalysisCache cache = (bb != null) ? analyzer.getClassAnalysisCache() : null;
+		String key = (cache != null) ? ClassAnalysisCache.key(bb, analyzer.is(Constants.NOCLASSFORNAME) ? "n" : null)
+			: null;
+
 		classFile = ClassFile.parseClassFile(in);
 		classDef = new ClassDef(classFile);
 		constantPool = classFile.constant_pool;
-		referred = new HashMap<>(constantPool.size());
-
-		if (classDef.isPublic()) {
-			api = new HashSet<>();
-		}
-		if (!classDef.isModule()) {
-			referTo(classDef.getType(), Modifier.PUBLIC);
-		}
 
 		String superName = classFile.super_class;
 		if (superName == null) {
@@ -841,7 +852,6 @@ public class Clazz {
 			}
 		} else {
 			superClass = analyzer.getTypeRef(superName);
-			referTo(superClass, classFile.access);
 		}
 
 		int interfaces_count = classFile.interfaces.length;
@@ -849,7 +859,30 @@ public class Clazz {
 			interfaces = new TypeRef[interfaces_count];
 			for (int i = 0; i < interfaces_count; i++) {
 				interfaces[i] = analyzer.getTypeRef(classFile.interfaces[i]);
-				referTo(interfaces[i], classFile.access);
+			}
+		}
+
+		if (key != null) {
+			byte[] summary = cache.get(key);
+			if ((summary != null) && readSummary(summary)) {
+				return xref;
+			}
+		}
+
+		referred = new HashMap<>(constantPool.size());
+
+		if (classDef.isPublic()) {
+			api = new HashSet<>();
+		}
+		if (!classDef.isModule()) {
+			referTo(classDef.getType(), Modifier.PUBLIC);
+		}
+		if (superClass != null) {
+			referTo(superClass, classFile.access);
+		}
+		if (interfaces != null) {
+			for (TypeRef interfaceRef : interfaces) {
+				referTo(interfaceRef, classFile.access);
 			}
 		}
 
@@ -908,9 +941,114 @@ public class Clazz {
 
 		processAttributes(classFile.attributes, elementType(classFile), classFile.access);
 
+		if (key != null) {
+			cache.put(key, writeSummary());
+		}
 		return xref;
 	}
 
+	/**
+	 * Serialize the result of the reference analysis for the
+	 * {@link ClassAnalysisCache}.
+	 */
+	private byte[] writeSummary() throws IOException {
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bout)) {
+			out.writeByte((hasRuntimeAnnotations ? SUMMARY_RUNTIMEANNOTATIONS : 0)
+				| (hasClassAnnotations ? SUMMARY_CLASSANNOTATIONS : 0)
+				| (hasDefaultConstructor ? SUMMARY_DEFAULTCONSTRUCTOR : 0));
+			out.writeInt(xref.size());
+			for (TypeRef typeRef : xref) {
+				out.writeUTF(typeRef.getBinary());
+			}
+			out.writeInt(referred.size());
+			for (Map.Entry<TypeRef, Integer> entry : referred.entrySet()) {
+				out.writeUTF(entry.getKey()
+					.getBinary());
+				out.writeInt(entry.getValue());
+			}
+			writePackages(out, api);
+			if (annotations == null) {
+				out.writeInt(-1);
+			} else {
+				out.writeInt(annotations.size());
+				for (TypeRef typeRef : annotations) {
+					out.writeUTF(typeRef.getBinary());
+				}
+			}
+		}
+		return bout.toByteArray();
+	}
+
+	private static void writePackages(DataOutputStream out, Set<PackageRef> packageRefs) throws IOException {
+		if (packageRefs == null) {
+			out.writeInt(-1);
+			return;
+		}
+		out.writeInt(packageRefs.size());
+		for (PackageRef packageRef : packageRefs) {
+			out.writeUTF(packageRef.getBinary());
+		}
+	}
+
+	/**
+	 * Restore the result of the reference analysis from a
+	 * {@link ClassAnalysisCache} summary.
+	 *
+	 * @return {@code false} if the summary could not be read, in which case
+	 *         no state was changed
+	 */
+	private boolean readSummary(byte[] summary) {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(summary))) {
+			int flags = in.readUnsignedByte();
+			Set<TypeRef> xref = new HashSet<>();
+			for (int n = in.readInt(); n > 0; n--) {
+				xref.add(analyzer.getTypeRef(in.readUTF()));
+			}
+			int size = in.readInt();
+			Map<TypeRef, Integer> referred = new HashMap<>(size);
+			Set<PackageRef> imports = Create.set();
+			for (int n = size; n > 0; n--) {
+				TypeRef typeRef = analyzer.getTypeRef(in.readUTF());
+				referred.put(typeRef, Integer.valueOf(in.readInt()));
+				imports.add(typeRef.getPackageRef());
+			}
+			Set<PackageRef> api = readPackages(in);
+			Set<TypeRef> annotations = null;
+			size = in.readInt();
+			if (size >= 0) {
+				annotations = new HashSet<>();
+				for (int n = size; n > 0; n--) {
+					annotations.add(analyzer.getTypeRef(in.readUTF()));
+				}
+			}
+			this.hasRuntimeAnnotations = (flags & SUMMARY_RUNTIMEANNOTATIONS) != 0;
+			this.hasClassAnnotations = (flags & SUMMARY_CLASSANNOTATIONS) != 0;
+			this.hasDefaultConstructor = (flags & SUMMARY_DEFAULTCONSTRUCTOR) != 0;
+			this.xref = xref;
+			this.referred = referred;
+			this.imports = imports;
+			this.api = api;
+			this.annotations = annotations;
+			return true;
+		} catch (Exception e) {
+			logger.debug("Ignoring unreadable class analysis summary for {}", path, e);
+			return false;
+		}
+	}
+
+	private Set<PackageRef> readPackages(DataInputStream in) throws IOException {
+		int size = in.readInt();
+		if (size < 0) {
+			return null;
+		}
+		Set<PackageRef> packageRefs = new HashSet<>();
+		for (int n = size; n > 0; n--) {
+			packageRefs.add(analyzer.getPackageRef(in.readUTF()));
+		}
+		return packageRefs;
+	}
+
 	private void visitClassFile(ClassDataCollector cd) throws Exception {
 		if (cd == null) {
 			return;
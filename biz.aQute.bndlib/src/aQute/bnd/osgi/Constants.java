@@ -118,6 +118,9 @@ public interface Constants {
 	String		CONDITIONALPACKAGE							= "-conditionalpackage";
 	String		CONNECTION_SETTINGS							= "-connection-settings";
 	String		CONNECTION_LOG								= "-connection-log";
+	String		CONNECTION_TRANSPORT						= "-connection-transport";
+	String		CONNECTION_TRANSPORT_MAXPERHOST				= "maxperhost";
+	String		CONNECTION_RANGES							= "-connection-ranges";
 
 	String		COMPRESSION									= "-compression";
 	String		DIFFIGNORE									= "-diffignore";
@@ -195,6 +198,8 @@ public interface Constants {
 	String		MANIFEST_NAME								= "-manifest-name";
 	String		NOUSES										= "-nouses";
 	String		NOCLASSFORNAME								= "-noclassforname";
+	String		CLASSANALYSISCACHE							= "-classanalysiscache";
+	String		PARALLELANALYSIS							= "-parallelanalysis";
 	String		NOIMPORTJAVA								= "-noimportjava";
 	String		NOBUNDLES									= "-nobundles";
 	String		OUTPUTMASK									= "-outputmask";																																						// default
@@ -231,6 +236,8 @@ public interface Constants {
 	String		RESOLVE_EXCLUDESYSTEM						= "-resolve.excludesystem";
 	String		RESOLVE_EFFECTIVE							= "-resolve.effective";
 	String		RESOLVE_PREFERENCES							= "-resolve.preferences";
+	String		RESOLVE_CACHE								= "-resolve.cache";
+	String		RESOLVE_INCREMENTAL							= "-resolve.incremental";
 
 	String		RUNNOREFERENCES								= "-runnoreferences";
 	String		RUNFRAMEWORKRESTART							= "-runframeworkrestart";
@@ -337,7 +344,9 @@ public interface Constants {
 		CONNECTION_SETTINGS, RUNPROVIDEDCAPABILITIES, WORKINGSET, RUNSTORAGE, REPRODUCIBLE, INCLUDEPACKAGE,
 		CDIANNOTATIONS, REMOTEWORKSPACE, MAVEN_DEPENDENCIES, BUILDERIGNORE, STALECHECK, MAVEN_SCOPE, RUNSTARTLEVEL,
 		RUNOPTIONS, NOCLASSFORNAME, EXPORT_APIGUARDIAN, RESOLVE, DEFINE_CONTRACT, GENERATE, RUNFRAMEWORKRESTART,
-		NOIMPORTJAVA, VERSIONDEFAULTS, LIBRARY, METAINF_SERVICES);
+		NOIMPORTJAVA, VERSIONDEFAULTS, LIBRARY, METAINF_SERVICES, CLASSANALYSISCACHE,
+		PARALLELANALYSIS, CONNECTION_TRANSPORT,
+		CONNECTION_RANGES);
 
 	// Ignore bundle specific headers. These headers do not make a lot of sense
 	// to inherit
@@ -42,18 +42,15 @@ import java.util.function.Predicate;
 import java.util.jar.Attributes;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
-import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
-import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
-import java.util.zip.ZipOutputStream;
 
 import aQute.bnd.exceptions.Exceptions;
 import aQute.bnd.stream.MapStream;
@@ -106,6 +103,7 @@ public class Jar implements Closeable {
 	private String												name;
 	private File												source;
 	private ZipFile												zipFile;
+	private boolean												mappedSource;
 	private long												lastModified;
 	private String												lastModifiedReason;
 	private boolean												doNotTouchManifest;
@@ -296,6 +294,12 @@ public class Jar implements Closeable {
 
 	private Jar buildFromZip(File file) throws IOException {
 		try {
+			Map<String, Resource> mapped = readMapped(file);
+			if (mapped != null) {
+				mapped.forEach((name, resource) -> putResource(name, resource, true));
+				mappedSource = true;
+				return this;
+			}
 			zipFile = new ZipFile(file);
 			for (ZipEntry entry : Iterables.iterable(zipFile.entries())) {
 				if (entry.isDirectory()) {
@@ -319,6 +323,18 @@ public class Jar implements Closeable {
 		}
 	}
 
+	/*
+	 * Any failure of the mapped reader falls back to ZipFile which reports a
+	 * corrupted file. Closing the resources drops their mapping.
+	 */
+	private static Map<String, Resource> readMapped(File file) {
+		try {
+			return MappedZipResource.read(file.toPath());
+		} catch (IOException | RuntimeException e) {
+			return null;
+		}
+	}
+
 	private Jar buildFromResource(Resource resource) throws Exception {
 		return buildFromInputStream(resource.openInputStream());
 	}
@@ -522,6 +538,20 @@ public class Jar implements Closeable {
 
 	public void write(File file) throws Exception {
 		check();
+		if (mappedSource && isSource(file)) {
+			// Truncating a mapped file breaks the resources read from it, so
+			// write a new file and replace the source with it
+			File tmp = IO.createTempFile(file.getAbsoluteFile()
+				.getParentFile(), "jar", ".tmp");
+			try {
+				write(tmp);
+				IO.rename(tmp, file);
+			} catch (Exception t) {
+				IO.delete(tmp);
+				throw t;
+			}
+			return;
+		}
 		try (OutputStream out = IO.outputStream(file)) {
 			write(out);
 		} catch (Exception t) {
@@ -531,6 +561,14 @@ public class Jar implements Closeable {
 		file.setLastModified(lastModified());
 	}
 
+	private boolean isSource(File file) {
+		try {
+			return (source != null) && file.isFile() && Files.isSameFile(file.toPath(), source.toPath());
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
 	public void write(String file) throws Exception {
 		check();
 		write(new File(file));
@@ -553,17 +591,17 @@ public class Jar implements Closeable {
 			out = digester = SHA256.getDigester(out);
 		}
 
-		ZipOutputStream jout = nomanifest || doNotTouchManifest ? new ZipOutputStream(out) : new JarOutputStream(out);
-
-		switch (compression) {
-			case STORE :
-				jout.setMethod(ZipOutputStream.STORED);
-				break;
+		try (ZipWriter jout = new ZipWriter(out, !nomanifest && !doNotTouchManifest)) {
+			write(jout);
+		}
 
-			default :
-				// default is DEFLATED
+		if (digester != null) {
+			this.sha256 = digester.digest();
+			this.fileLength = digester.getLength();
 		}
+	}
 
+	private void write(ZipWriter jout) throws Exception {
 		Set<String> done = new HashSet<>();
 
 		Set<String> directories = new HashSet<>();
@@ -602,11 +640,6 @@ public class Jar implements Closeable {
 				writeResource(jout, directories, entry.getKey(), entry.getValue());
 		}
 		jout.finish();
-
-		if (digester != null) {
-			this.sha256 = digester.digest();
-			this.fileLength = digester.getLength();
-		}
 	}
 
 	public void writeFolder(File dir) throws Exception {
@@ -695,7 +728,7 @@ public class Jar implements Closeable {
 		return new String(cs);
 	}
 
-	private void doManifest(ZipOutputStream jout, Set<String> directories, String manifestName) throws Exception {
+	private void doManifest(ZipWriter jout, Set<String> directories, String manifestName) throws Exception {
 		check();
 		createDirectories(directories, jout, manifestName);
 		JarEntry ze = new JarEntry(manifestName);
@@ -715,29 +748,11 @@ public class Jar implements Closeable {
 		putEntry(jout, ze, r);
 	}
 
-	private void putEntry(ZipOutputStream jout, ZipEntry entry, Resource r) throws Exception {
-
+	private void putEntry(ZipWriter jout, ZipEntry entry, Resource r) throws Exception {
 		if (compression == Compression.STORE) {
-			ByteBuffer buffer = r.buffer();
-			if (buffer == null) {
-				buffer = IO.copy(r.openInputStream(), new ByteBufferOutputStream())
-					.toByteBuffer();
-			}
-			entry.setMethod(ZipOutputStream.STORED);
-			CRC32 crc = new CRC32();
-			buffer.mark();
-			crc.update(buffer);
-			buffer.reset();
-			entry.setCrc(crc.getValue());
-			entry.setSize(buffer.remaining());
-			entry.setCompressedSize(buffer.remaining());
-			jout.putNextEntry(entry);
-			IO.copy(buffer, jout);
-		} else {
-			jout.putNextEntry(entry);
-			r.write(jout);
+			entry.setMethod(ZipEntry.STORED);
 		}
-		jout.closeEntry();
+		jout.write(entry, r);
 	}
 
 	/**
@@ -828,7 +843,7 @@ public class Jar implements Closeable {
 			return s;
 	}
 
-	private void writeResource(ZipOutputStream jout, Set<String> directories, String path, Resource resource)
+	private void writeResource(ZipWriter jout, Set<String> directories, String path, Resource resource)
 		throws Exception {
 		if (resource == null)
 			return;
@@ -857,7 +872,7 @@ public class Jar implements Closeable {
 		}
 	}
 
-	void createDirectories(Set<String> directories, ZipOutputStream zip, String name) throws IOException {
+	void createDirectories(Set<String> directories, ZipWriter zip, String name) throws IOException {
 		int index = name.lastIndexOf('/');
 		if (index > 0) {
 			String path = name.substring(0, index);
@@ -867,13 +882,9 @@ public class Jar implements Closeable {
 			ZipEntry ze = new ZipEntry(path + '/');
 			ZipUtil.setModifiedTime(ze, isReproducible() ? zipEntryConstantTime : lastModified());
 			if (compression == Compression.STORE) {
-				ze.setMethod(ZipOutputStream.STORED);
-				ze.setCrc(0L);
-				ze.setSize(0L);
-				ze.setCompressedSize(0L);
+				ze.setMethod(ZipEntry.STORED);
 			}
-			zip.putNextEntry(ze);
-			zip.closeEntry();
+			zip.write(ze, ByteBuffer.allocate(0));
 			directories.add(path);
 		}
 	}
@@ -118,6 +118,13 @@ public class Macro {
 	}
 
 	String process(CharSequence line, Link link) {
+		if (line == null) {
+			return "";
+		}
+		MacroTemplate template = MacroTemplate.of(line);
+		if (template != null) {
+			return template.evaluate(this, link);
+		}
 		StringBuilder sb = new StringBuilder();
 		process(line, 0, '\u0000', '\u0000', sb, link, false);
 		return sb.toString();
@@ -164,6 +171,7 @@ public class Macro {
 				if (index == 1 || Character.isWhitespace(line.charAt(index - 2))) {
 					// make sure it is preceded by whitespace or starts at begin
 					index++;
+					PropertyCache.base(domain);
 					variable.append(IO.absolutePath(domain.getBase()));
 					variable.append('/');
 					continue outer;
@@ -197,8 +205,10 @@ public class Macro {
 	}
 
 	private String getMacro(String key, List<String> args2, Link link, char begin, char end) {
-		if (link != null && link.contains(key))
+		if (link != null && link.contains(key)) {
+			PropertyCache.uncacheable();
 			return "${infinite:" + link.toString() + "}";
+		}
 
 		if (key != null) {
 			key = key.trim();
@@ -226,6 +236,7 @@ public class Macro {
 				if (args.length == 1) {
 					Instruction ins = new Instruction(args[0]);
 					if (!ins.isLiteral()) {
+						PropertyCache.uncacheable();
 						String keyname = key;
 						return domain.stream()
 							.filter(ins::matches)
@@ -249,9 +260,11 @@ public class Macro {
 				//
 
 				String value = domain.getUnexpandedProperty(args[0]);
+				PropertyCache.property(domain, args[0], value);
 				if (value != null) {
 					Link next = new Link(domain, link, key);
 					if (args.length > 1) {
+						PropertyCache.uncacheable();
 						return processWithArgs(value, args, next);
 					} else {
 						return process(value, next);
@@ -264,6 +277,7 @@ public class Macro {
 
 				value = doCommands(args, link);
 				if (value != null) {
+					PropertyCache.uncacheable();
 					if (value == NULLVALUE)
 						return null;
 					if (value == LITERALVALUE)
@@ -278,10 +292,12 @@ public class Macro {
 
 				if (args.length == 1) {
 					value = System.getProperty(args[0]);
+					PropertyCache.system(domain, args[0], value);
 					if (value != null)
 						return value;
 					if (key.startsWith("env.")) {
 						value = System.getenv(args[0].substring(4));
+						PropertyCache.env(domain, args[0].substring(4), value);
 						if (value != null)
 							return value;
 					}
@@ -290,14 +306,17 @@ public class Macro {
 				if (!args[0].startsWith("[")) {
 
 					String profile = domain.getUnexpandedProperty(Constants.PROFILE);
+					PropertyCache.property(domain, Constants.PROFILE, profile);
 
 					if (profile != null) {
 						profile = process(profile, link);
 						String profiledKey = "[" + profile + "]" + args[0];
 						value = domain.getUnexpandedProperty(profiledKey);
+						PropertyCache.property(domain, profiledKey, value);
 						if (value != null) {
 							Link next = new Link(domain, link, key);
 							if (args.length > 1) {
+								PropertyCache.uncacheable();
 								return processWithArgs(value, args, next);
 							} else {
 								return process(value, next);
@@ -307,9 +326,11 @@ public class Macro {
 				}
 
 			} else {
+				PropertyCache.uncacheable();
 				reporter.warning("Found empty macro key '%s'", key);
 			}
 		} else {
+			PropertyCache.uncacheable();
 			reporter.warning("Found null macro key");
 		}
 
@@ -347,6 +368,7 @@ public class Macro {
 		if (value != LITERALVALUE) {
 			if (value != null)
 				return value;
+			PropertyCache.uncacheable();
 			if (!flattening && !key.startsWith("@"))
 				reporter.warning("No translation found for macro: %s", key);
 		}
@@ -376,6 +398,7 @@ public class Macro {
 			}
 
 		if (args[0].startsWith("^")) {
+			PropertyCache.uncacheable();
 			String varname = args[0].substring(1)
 				.trim();
 
@@ -0,0 +1,196 @@
+package aQute.bnd.osgi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import aQute.bnd.osgi.Macro.Link;
+import aQute.lib.io.IO;
+
+/**
+ * A parsed form of a string that is processed by the {@link Macro} processor.
+ * <p>
+ * A template is a sequence of literal segments, macro invocations, and the
+ * base directory of the processor for a leading {@code ./}. It is parsed with
+ * the same rules as {@link Macro#process(CharSequence, int, char, char,
+ * StringBuilder, Link, boolean)}, so evaluating a template gives the same
+ * result without scanning the string again. The arguments of an invocation
+ * are kept as the raw strings the macro processor expands when the invocation
+ * is replaced, they are templates in turn.
+ * <p>
+ * Templates do not depend on a processor and are shared in a bounded cache.
+ * Strings for which the parse rules depend on the processor, a {@code ./}
+ * inside a macro invocation, are not compiled and are processed by the
+ * {@link Macro} processor directly.
+ */
+final class MacroTemplate {
+	private final static int					MAX_CACHED	= 8192;
+	private final static Map<String, Object>	cache		= new ConcurrentHashMap<>();
+	private final static Object					BASE		= new Object();
+	private final static Object					INTERPRET	= new Object();
+
+	private final Object[]						segments;
+
+	private record Invocation(String key, String[] args, char begin, char end) {}
+
+	private MacroTemplate(Object[] segments) {
+		this.segments = segments;
+	}
+
+	/**
+	 * Return the template for a string or {@code null} when the string must
+	 * be processed by the macro processor.
+	 */
+	static MacroTemplate of(CharSequence line) {
+		String s = line.toString();
+		if (isLiteral(s)) {
+			return new MacroTemplate(new Object[] {
+				s
+			});
+		}
+		Object template = cache.get(s);
+		if (template == null) {
+			template = compile(s);
+			if (cache.size() >= MAX_CACHED) {
+				cache.clear();
+			}
+			cache.put(s, template);
+		}
+		return (template == INTERPRET) ? null : (MacroTemplate) template;
+	}
+
+	/**
+	 * Evaluate the template with the macro processor.
+	 */
+	String evaluate(Macro macro, Link link) {
+		if ((segments.length == 1) && (segments[0] instanceof String literal)) {
+			return literal;
+		}
+		StringBuilder sb = new StringBuilder();
+		for (Object segment : segments) {
+			if (segment instanceof String literal) {
+				sb.append(literal);
+			} else if (segment instanceof Invocation invocation) {
+				// the list is handed out since replace may modify it
+				List<String> args = new ArrayList<>(Arrays.asList(invocation.args()));
+				sb.append(macro.replace(invocation.key(), args, link, invocation.begin(), invocation.end()));
+			} else {
+				PropertyCache.base(macro.domain);
+				sb.append(IO.absolutePath(macro.domain.getBase()));
+			}
+		}
+		return sb.toString();
+	}
+
+	private static boolean isLiteral(String s) {
+		for (int i = 0, length = s.length(); i < length; i++) {
+			switch (s.charAt(i)) {
+				case '$', '\\', '\u0000' :
+					return false;
+				case '.' :
+					if ((i + 1 < length) && (s.charAt(i + 1) == '/')) {
+						return false;
+					}
+					break;
+				default :
+					break;
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * Parse a string at the top level, mirrors Macro.process with inMacro false
+	 */
+	private static Object compile(String line) {
+		if (line.indexOf('\u0000') >= 0) {
+			return INTERPRET;
+		}
+		List<Object> segments = new ArrayList<>();
+		StringBuilder literal = new StringBuilder();
+		int length = line.length();
+		int index = 0;
+		while (index < length) {
+			char c1 = line.charAt(index++);
+			if (c1 == '\\' && index < length - 1 && (line.charAt(index) == '$' || line.charAt(index) == ';')) {
+				literal.append(line.charAt(index));
+				index++;
+				continue;
+			} else if (c1 == '$' && index < length - 2) {
+				char c2 = line.charAt(index);
+				char terminator = Macro.getTerminator(c2);
+				if (terminator != 0) {
+					index = compile(line, index + 1, c2, terminator, segments, literal);
+					if (index < 0) {
+						return INTERPRET;
+					}
+					continue;
+				}
+			} else if (c1 == '.' && index < length && line.charAt(index) == '/') {
+				if (index == 1 || Character.isWhitespace(line.charAt(index - 2))) {
+					index++;
+					flush(segments, literal);
+					segments.add(BASE);
+					literal.append('/');
+					continue;
+				}
+			}
+			literal.append(c1);
+		}
+		flush(segments, literal);
+		return new MacroTemplate(segments.toArray());
+	}
+
+	/*
+	 * Parse a macro invocation, mirrors Macro.process with inMacro true.
+	 * Returns the index after the invocation or -1 if the invocation can not
+	 * be compiled.
+	 */
+	private static int compile(String line, int index, char begin, char end, List<Object> segments,
+		StringBuilder literal) {
+		List<String> args = new ArrayList<>();
+		StringBuilder variable = new StringBuilder();
+		int length = line.length();
+		int nesting = 1;
+		int pStart = 0;
+		while (index < length) {
+			char c1 = line.charAt(index++);
+			if (c1 == end) {
+				if (--nesting == 0) {
+					args.add(variable.substring(pStart));
+					flush(segments, literal);
+					segments.add(new Invocation(variable.toString(), args.toArray(new String[0]), begin, end));
+					return index;
+				}
+			} else if (c1 == begin) {
+				nesting++;
+			} else if (c1 == '\\' && index < length - 1
+				&& (line.charAt(index) == '$' || line.charAt(index) == ';')) {
+				variable.append(line.charAt(index));
+				index++;
+				continue;
+			} else if (c1 == '.' && index < length && line.charAt(index) == '/') {
+				if (index == 1 || Character.isWhitespace(line.charAt(index - 2))) {
+					// the base directory becomes part of the arguments
+					return -1;
+				}
+			} else if (c1 == ';' && nesting == 1) {
+				args.add(variable.substring(pStart));
+				pStart = variable.length() + 1;
+			}
+			variable.append(c1);
+		}
+		// not terminated
+		literal.append(variable);
+		return index;
+	}
+
+	private static void flush(List<Object> segments, StringBuilder literal) {
+		if (literal.length() > 0) {
+			segments.add(literal.toString());
+			literal.setLength(0);
+		}
+	}
+}
@@ -0,0 +1,342 @@
+package aQute.bnd.osgi;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import aQute.lib.io.IO;
+import aQute.lib.zip.ZipUtil;
+
+/**
+ * Resource for an entry of a ZIP file whose content is held in a buffer,
+ * normally a read-only mapping of the file.
+ * <p>
+ * Stored entries are returned as slices of the buffer without copying.
+ * Deflated entries are inflated straight from the buffer into a heap buffer of
+ * the entry size. The deflated data can also be copied as is into another ZIP
+ * file, see {@link ZipWriter}.
+ * <p>
+ * {@link #read(Path)} only handles plain ZIP files. It returns {@code null} for
+ * anything else, like ZIP64 or encrypted entries, so the caller can fall back
+ * to {@link java.util.zip.ZipFile}.
+ * <p>
+ * The file must not be truncated while it is mapped, see
+ * {@link Jar#write(java.io.File)}.
+ */
+class MappedZipResource implements Resource {
+	private static final int				EOCD_SIG		= 0x06054b50;
+	private static final int				CEN_SIG			= 0x02014b50;
+	private static final int				LOC_SIG			= 0x04034b50;
+	private static final int				EOCD_SIZE		= 22;
+	private static final int				CEN_SIZE		= 46;
+	private static final int				LOC_SIZE		= 30;
+	private static final int				MAX_COMMENT		= 0xFFFF;
+	private static final int				INFLATERS		= 8;
+	private static final Deque<Inflater>	inflaters		= new ArrayDeque<>(INFLATERS);
+
+	private ByteBuffer						zip;
+	private final String					zipName;
+	private final String					name;
+	private final int						method;
+	private final int						offset;
+	private final int						compressedSize;
+	private final int						size;
+	private final long						crc;
+	private final long						time;
+	private final byte[]					timeExtra;
+	private ByteBuffer						buffer;
+	private long							lastModified	= -11L;
+	private String							extra;
+
+	private MappedZipResource(ByteBuffer zip, String zipName, String name, int method, int offset,
+		int compressedSize, int size, long crc, long time, byte[] extra) {
+		this.zip = zip;
+		this.zipName = zipName;
+		this.name = name;
+		this.method = method;
+		this.offset = offset;
+		this.compressedSize = compressedSize;
+		this.size = size;
+		this.crc = crc;
+		this.time = time;
+		this.timeExtra = extra;
+		if (extra != null) {
+			this.extra = Resource.encodeExtra(extra);
+		}
+	}
+
+	/**
+	 * Read the central directory of the ZIP file.
+	 * <p>
+	 * The file is mapped when it is large enough, see
+	 * {@link IO#read(Path)}. On Windows a mapped file cannot be deleted or
+	 * replaced until the mapping is garbage collected, so this method is not
+	 * used there.
+	 *
+	 * @param path the ZIP file
+	 * @return the resources of the file entries in central directory order or
+	 *         {@code null} if the file cannot be handled here
+	 */
+	static Map<String, Resource> read(Path path) throws IOException {
+		if (IO.isWindows() || !Files.isRegularFile(path) || (Files.size(path) > Integer.MAX_VALUE)) {
+			return null;
+		}
+		ByteBuffer zip = IO.read(path)
+			.order(ByteOrder.LITTLE_ENDIAN);
+		int limit = zip.limit();
+		int eocd = -1;
+		for (int i = limit - EOCD_SIZE, end = Math.max(0, i - MAX_COMMENT); i >= end; i--) {
+			if (zip.getInt(i) == EOCD_SIG) {
+				eocd = i;
+				break;
+			}
+		}
+		if (eocd < 0) {
+			return null;
+		}
+		int entries = Short.toUnsignedInt(zip.getShort(eocd + 10));
+		long cenSize = Integer.toUnsignedLong(zip.getInt(eocd + 12));
+		long cenOffset = Integer.toUnsignedLong(zip.getInt(eocd + 16));
+		// Data prepended to the ZIP file, like a launcher script, moves all
+		// offsets by the same amount
+		long base = eocd - cenSize - cenOffset;
+		if ((entries == 0xFFFF) || (cenOffset == 0xFFFFFFFFL) || (base < 0)) {
+			return null; // ZIP64
+		}
+
+		String zipName = path.toString();
+		Map<String, Resource> resources = new LinkedHashMap<>(entries * 4 / 3 + 1);
+		int cen = (int) (base + cenOffset);
+		for (int n = 0; n < entries; n++) {
+			if ((cen + CEN_SIZE > eocd) || (zip.getInt(cen) != CEN_SIG)) {
+				return null;
+			}
+			int flags = Short.toUnsignedInt(zip.getShort(cen + 8));
+			int method = Short.toUnsignedInt(zip.getShort(cen + 10));
+			int dostime = zip.getInt(cen + 12);
+			long crc = Integer.toUnsignedLong(zip.getInt(cen + 16));
+			long compressedSize = Integer.toUnsignedLong(zip.getInt(cen + 20));
+			long size = Integer.toUnsignedLong(zip.getInt(cen + 24));
+			int nameLength = Short.toUnsignedInt(zip.getShort(cen + 28));
+			int extraLength = Short.toUnsignedInt(zip.getShort(cen + 30));
+			int commentLength = Short.toUnsignedInt(zip.getShort(cen + 32));
+			long offset = Integer.toUnsignedLong(zip.getInt(cen + 42));
+			if (((flags & 1) != 0) || ((method != ZipEntry.STORED) && (method != ZipEntry.DEFLATED))
+				|| (compressedSize == 0xFFFFFFFFL) || (size == 0xFFFFFFFFL) || (offset == 0xFFFFFFFFL)
+				|| (size > Integer.MAX_VALUE)) {
+				return null; // encrypted, unsupported method, or ZIP64
+			}
+			int next = cen + CEN_SIZE + nameLength + extraLength + commentLength;
+			if (next > eocd) {
+				return null;
+			}
+			String name = string(zip, cen + CEN_SIZE, nameLength);
+			if (!name.endsWith("/")) {
+				byte[] extra = null;
+				if (extraLength > 0) {
+					extra = new byte[extraLength];
+					zip.duplicate()
+						.position(cen + CEN_SIZE + nameLength)
+						.get(extra);
+				}
+				long local = base + offset;
+				if (local + LOC_SIZE + compressedSize > limit) {
+					return null;
+				}
+				resources.put(name, new MappedZipResource(zip, zipName, name, method, (int) local,
+					(int) compressedSize, (int) size, crc, dosToJavaTime(dostime), extra));
+			}
+			cen = next;
+		}
+		return resources;
+	}
+
+	private static String string(ByteBuffer bb, int position, int length) {
+		byte[] bytes = new byte[length];
+		bb.duplicate()
+			.position(position)
+			.get(bytes);
+		return new String(bytes, UTF_8);
+	}
+
+	/**
+	 * Convert the MS-DOS date and time in local time to Java time the same way
+	 * {@link ZipEntry#getTime()} does. Out of range fields roll over.
+	 */
+	private static long dosToJavaTime(int dostime) {
+		LocalDateTime ldt = LocalDateTime.of(((dostime >>> 25) & 0x7f) + 1980, 1, 1, 0, 0)
+			.plusMonths(((dostime >>> 21) & 0x0f) - 1)
+			.plusDays(((dostime >>> 16) & 0x1f) - 1)
+			.plusHours((dostime >>> 11) & 0x1f)
+			.plusMinutes((dostime >>> 5) & 0x3f)
+			.plusSeconds((dostime << 1) & 0x3e);
+		return ldt.atZone(ZoneId.systemDefault())
+			.toInstant()
+			.toEpochMilli();
+	}
+
+	@Override
+	public ByteBuffer buffer() throws Exception {
+		return getBuffer().duplicate();
+	}
+
+	/**
+	 * Return the compressed data of a deflated entry so it can be copied into
+	 * another ZIP file without inflating and deflating it again.
+	 *
+	 * @return the deflated data or {@code null} if the entry is stored
+	 */
+	ByteBuffer deflated() throws ZipException {
+		return (method == ZipEntry.DEFLATED) ? data() : null;
+	}
+
+	/**
+	 * Return the CRC-32 of the uncompressed data from the central directory.
+	 */
+	long crc() {
+		return crc;
+	}
+
+	private ByteBuffer data() throws ZipException {
+		ByteBuffer zip = this.zip;
+		if (zip == null) {
+			throw new ZipException("Closed " + this);
+		}
+		if (zip.getInt(offset) != LOC_SIG) {
+			throw new ZipException("Invalid local header for " + name);
+		}
+		int start = offset + LOC_SIZE + Short.toUnsignedInt(zip.getShort(offset + 26))
+			+ Short.toUnsignedInt(zip.getShort(offset + 28));
+		if (start + compressedSize > zip.limit()) {
+			throw new ZipException("Truncated entry " + name);
+		}
+		return zip.duplicate()
+			.position(start)
+			.limit(start + compressedSize)
+			.slice();
+	}
+
+	private ByteBuffer getBuffer() throws Exception {
+		if (buffer != null) {
+			return buffer;
+		}
+		ByteBuffer data = data();
+		if (method == ZipEntry.STORED) {
+			return buffer = data;
+		}
+		ByteBuffer bb = ByteBuffer.allocate(size);
+		Inflater inflater = inflater();
+		try {
+			inflater.setInput(data);
+			while (bb.hasRemaining() && !inflater.finished()) {
+				if ((inflater.inflate(bb) == 0) && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+			}
+		} catch (DataFormatException e) {
+			throw new ZipException("Invalid deflated data for " + name + ": " + e.getMessage());
+		} finally {
+			release(inflater);
+		}
+		if (bb.hasRemaining()) {
+			throw new ZipException("Truncated deflated data for " + name);
+		}
+		bb.flip();
+		return buffer = bb;
+	}
+
+	private static Inflater inflater() {
+		synchronized (inflaters) {
+			Inflater inflater = inflaters.poll();
+			if (inflater != null) {
+				return inflater;
+			}
+		}
+		return new Inflater(true);
+	}
+
+	private static void release(Inflater inflater) {
+		inflater.reset();
+		synchronized (inflaters) {
+			if (inflaters.size() < INFLATERS) {
+				inflaters.push(inflater);
+				return;
+			}
+		}
+		inflater.end();
+	}
+
+	@Override
+	public InputStream openInputStream() throws Exception {
+		return IO.stream(buffer());
+	}
+
+	@Override
+	public void write(OutputStream out) throws Exception {
+		IO.copy(buffer(), out);
+	}
+
+	@Override
+	public long lastModified() {
+		if (lastModified != -11L) {
+			return lastModified;
+		}
+		ZipEntry entry = new ZipEntry(name);
+		entry.setTime(time);
+		if (timeExtra != null) {
+			try {
+				// picks up the extended timestamp, if any
+				entry.setExtra(timeExtra);
+			} catch (IllegalArgumentException e) {
+				// malformed extra field, use the MS-DOS time
+			}
+		}
+		return lastModified = ZipUtil.getModifiedTime(entry);
+	}
+
+	@Override
+	public String getExtra() {
+		return extra;
+	}
+
+	@Override
+	public void setExtra(String extra) {
+		this.extra = extra;
+	}
+
+	@Override
+	public long size() {
+		return size;
+	}
+
+	@Override
+	public String toString() {
+		return ":" + zipName + "(" + name + "):";
+	}
+
+	/**
+	 * Drop the buffer of the ZIP file so the mapping can be released. The
+	 * resource cannot be read anymore.
+	 */
+	@Override
+	public void close() {
+		zip = null;
+		buffer = null;
+	}
+}
@@ -14,16 +14,21 @@ import java.util.AbstractSet;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.Spliterators.AbstractSpliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -33,7 +38,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import aQute.bnd.build.Project;
+import aQute.bnd.build.StartupTimeline;
 import aQute.bnd.build.Workspace;
+import aQute.bnd.exceptions.Exceptions;
 import aQute.bnd.exceptions.SupplierWithException;
 import aQute.bnd.header.Attrs;
 import aQute.bnd.header.Parameters;
@@ -424,6 +431,9 @@ public class PluginsContainer extends AbstractSet<Object> implements Set<Object>
 		 * code is to load the URL connectors so that any access to remote
 		 * plugins can use the connector model.
 		 */
+		StartupTimeline timeline = (processor instanceof Workspace workspace) ? workspace.getStartupTimeline() : null;
+		Map<String, CompletableFuture<Class<?>>> classes = loadClasses(processor.getClass()
+			.getClassLoader(), pluginParameters.keySet(), new HashMap<>(), timeline);
 		Set<String> loaded = new HashSet<>();
 		for (Entry<String, Attrs> entry : pluginParameters.entrySet()) {
 			String className = removeDuplicateMarker(entry.getKey());
@@ -431,8 +441,7 @@ public class PluginsContainer extends AbstractSet<Object> implements Set<Object>
 
 			logger.debug("Trying pre-plugin {}", className);
 
-			Object plugin = loadPlugin(processor, processor.getClass()
-				.getClassLoader(), attrs, className, true);
+			Object plugin = loadPlugin(processor, classes.get(className), attrs, className, true, timeline);
 			if (plugin != null) {
 				// with the marker!!
 				loaded.add(entry.getKey());
@@ -449,8 +458,13 @@ public class PluginsContainer extends AbstractSet<Object> implements Set<Object>
 		loadPluginPath(processor, pluginPathString, loader);
 
 		/*
-		 * Load the remaining plugins
+		 * Load the remaining plugins. The plugin loader delegates to our own
+		 * class loader first, so only the classes that were not found before
+		 * need to be loaded.
 		 */
+		classes.values()
+			.removeIf(CompletableFuture::isCompletedExceptionally);
+		classes = loadClasses(loader, pluginParameters.keySet(), classes, timeline);
 		for (Entry<String, Attrs> entry : pluginParameters.entrySet()) {
 			String className = removeDuplicateMarker(entry.getKey());
 			Attrs attrs = entry.getValue();
@@ -465,7 +479,8 @@ public class PluginsContainer extends AbstractSet<Object> implements Set<Object>
 			 */
 			String commands = attrs.get(Constants.COMMAND_DIRECTIVE);
 
-			Object plugin = loadPlugin(processor, loader, attrs, className, commands != null);
+			Object plugin = loadPlugin(processor, classes.get(className), attrs, className, commands != null,
+				timeline);
 			if (plugin == null) {
 				Strings.splitAsStream(commands)
 					.forEach(missingCommand::add);
@@ -571,17 +586,58 @@ public class PluginsContainer extends AbstractSet<Object> implements Set<Object>
 	}
 
 	/**
-	 * Load a plugin and customize it. If the plugin cannot be loaded then we
-	 * return null.
+	 * Start loading the plugin classes concurrently. Loading the classes of
+	 * the plugins and their dependencies is independent of the order of the
+	 * plugins, creating and customizing the plugins is done in order.
 	 *
-	 * @param loader Name of the loader
+	 * @param loader the loader of the classes
+	 * @param keys the plugin clauses
+	 * @param classes the classes that are already loaded, the classes of the
+	 *            plugin clauses are added to it
+	 * @param timeline the timeline to record the loaded classes in or
+	 *            {@code null}
+	 * @return the loading classes by class name
+	 */
+	private Map<String, CompletableFuture<Class<?>>> loadClasses(ClassLoader loader, Collection<String> keys,
+		Map<String, CompletableFuture<Class<?>>> classes, StartupTimeline timeline) {
+		Executor executor = (keys.size() > 1) ? Processor.getExecutor() : Runnable::run;
+		for (String key : keys) {
+			classes.computeIfAbsent(removeDuplicateMarker(key), className -> CompletableFuture.supplyAsync(() -> {
+				long begin = System.nanoTime();
+				Class<?> c;
+				try {
+					c = loader.loadClass(className);
+				} catch (ClassNotFoundException e) {
+					throw Exceptions.duck(e);
+				}
+				if (timeline != null) {
+					timeline.record("load class " + className, begin);
+				}
+				return c;
+			}, executor));
+		}
+		return classes;
+	}
+
+	/**
+	 * Create a plugin from its loaded class and customize it. If the plugin
+	 * cannot be loaded then we return null.
+	 *
+	 * @param loading the loading class of the plugin
 	 * @param attrs
 	 * @param className
+	 * @param timeline the timeline to record the creation in or {@code null}
 	 */
-	private Object loadPlugin(Processor processor, ClassLoader loader, Attrs attrs, String className,
-		boolean ignoreError) {
+	private Object loadPlugin(Processor processor, CompletableFuture<Class<?>> loading, Attrs attrs,
+		String className, boolean ignoreError, StartupTimeline timeline) {
 		try {
-			Class<?> c = loader.loadClass(className);
+			Class<?> c;
+			try {
+				c = loading.join();
+			} catch (CompletionException e) {
+				throw e.getCause();
+			}
+			long begin = System.nanoTime();
 			Object plugin;
 			if (c.isInterface()) {
 				plugin = new AbstractPlugin<>(c, attrs);
@@ -594,6 +650,9 @@ public class PluginsContainer extends AbstractSet<Object> implements Set<Object>
 			if (plugin instanceof AutoCloseable closeable) {
 				closeablePlugins.add(closeable);
 			}
+			if (timeline != null) {
+				timeline.record("create plugin " + className, begin);
+			}
 			return plugin;
 		} catch (NoClassDefFoundError e) {
 			if (!ignoreError)
@@ -135,6 +135,7 @@ public class Processor extends Domain implements Reporter, Registry, Constants,
 	private boolean								fixup				= true;
 	private Processor							parent;
 	private final CopyOnWriteArrayList<File>	included			= new CopyOnWriteArrayList<>();
+	private final PropertyCache					propertyCache		= new PropertyCache();
 
 	Collection<String>							filter;
 	Boolean										strict;
@@ -197,6 +198,7 @@ public class Processor extends Domain implements Reporter, Registry, Constants,
 		Properties updated = (parent != null) ? new UTF8Properties(parent.getRawProperties()) : new UTF8Properties();
 		updated.putAll(getRawProperties());
 		properties = updated;
+		propertyCache.clear();
 		propertiesChanged();
 	}
 
@@ -981,6 +983,7 @@ public class Processor extends Domain implements Reporter, Registry, Constants,
 		included.clear();
 		Processor p = getParent();
 		properties = (p != null) ? new UTF8Properties(p.getRawProperties()) : new UTF8Properties();
+		propertyCache.clear();
 
 		setProperties(propertiesFile, base);
 	}
@@ -1107,12 +1110,12 @@ public class Processor extends Domain implements Reporter, Registry, Constants,
 	@SuppressWarnings("resource")
 	private String getProperty(String key, String deflt, String separator, boolean inherit) {
 
-		Instruction ins = new Instruction(key);
-		if (ins.isLiteral()) {
-			return getLiteralProperty(ins.getLiteral(), deflt, this, inherit);
+		String literal = propertyCache.literalKey(key);
+		if (literal != null) {
+			return getLiteralProperty(literal, deflt, this, inherit);
 		}
 
-		return getWildcardProperty(deflt, separator, inherit, ins);
+		return getWildcardProperty(deflt, separator, inherit, new Instruction(key));
 	}
 
 	/**
@@ -1244,6 +1247,24 @@ public class Processor extends Domain implements Reporter, Registry, Constants,
 	}
 
 	private String getLiteralProperty(String key, String deflt, Processor source, boolean inherit) {
+		// Inherited properties are expanded through the cache, it expands
+		// them again when something they depend on changed
+		String value = (inherit && (source == this)) ? propertyCache.get(this, key)
+			: expandLiteralProperty(key, source, inherit);
+
+		if (value != null)
+			return value;
+		else if (deflt != null)
+			return getReplacer().process(deflt, this);
+		else
+			return null;
+	}
+
+	String expandLiteralProperty(String key) {
+		return expandLiteralProperty(key, this, true);
+	}
+
+	private String expandLiteralProperty(String key, Processor source, boolean inherit) {
 		String value = null;
 		// Use the key as is first, if found ok
 
@@ -1253,9 +1274,12 @@ public class Processor extends Domain implements Reporter, Registry, Constants,
 			if (raw != null) {
 				if (raw instanceof String string) {
 					value = string;
-				} else if (isPedantic()) {
-					warning("Key '%s' has a non-String value: %s:%s", key, raw.getClass()
-						.getName(), raw);
+				} else {
+					PropertyCache.uncacheable();
+					if (isPedantic()) {
+						warning("Key '%s' has a non-String value: %s:%s", key, raw.getClass()
+							.getName(), raw);
+					}
 				}
 				source = proc;
 				break;
@@ -1269,6 +1293,7 @@ public class Processor extends Domain implements Reporter, Registry, Constants,
 				break;
 			}
 		}
+		PropertyCache.literal(this, key, value);
 		//
 		// Check if we can find a replacement through the
 		// replacer, which takes profiles into account
@@ -1278,12 +1303,29 @@ public class Processor extends Domain implements Reporter, Registry, Constants,
 
 		if (value != null)
 			return getReplacer().process(value, source);
-		else if (deflt != null)
-			return getReplacer().process(deflt, this);
 		else
 			return null;
 	}
 
+	/**
+	 * Return the raw value of a property as it is found in the inheritance
+	 * chain.
+	 */
+	String getInheritedRawProperty(String key) {
+		for (Processor proc = this; proc != null; proc = proc.getParent()) {
+			Object raw = proc.getProperties()
+				.get(key);
+			if (raw != null) {
+				return (raw instanceof String string) ? string : null;
+			}
+			Collection<String> keyFilter = proc.filter;
+			if ((keyFilter != null) && (keyFilter.contains(key))) {
+				break;
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * Helper to load a properties file from disk.
 	 *
@@ -0,0 +1,195 @@
+package aQute.bnd.osgi;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import aQute.lib.io.IO;
+
+/**
+ * A cache of the expanded values of the literal properties of a
+ * {@link Processor}.
+ * <p>
+ * While a property is expanded, the {@link Macro} processor records every
+ * lookup the expansion depends on: the raw value of the property in the
+ * inheritance chain, the raw values of the properties it references
+ * (including the ones that were not found), the system properties and
+ * environment variables it fell back to, and the base directory when a
+ * {@code ./} was expanded. A cached value is returned only when all these
+ * lookups still give the same result, so a changed property, a reloaded
+ * properties or include file, or a refreshed parent invalidates exactly the
+ * values that depend on it, regardless of how the properties were changed.
+ * <p>
+ * Expansions that call a macro function, use a wildcard or a parameterized
+ * macro, or report a problem are not cached since their result can depend on
+ * state that is not recorded or their warnings must be reported again.
+ */
+final class PropertyCache {
+	private final static ThreadLocal<Recording>	recording	= new ThreadLocal<>();
+	private final static char					LITERAL		= 'l';
+	private final static char					PROPERTY	= 'p';
+	private final static char					SYSTEM		= 's';
+	private final static char					ENV			= 'e';
+	private final static char					BASE		= 'b';
+
+	private final Map<String, Optional<String>>	literals	= new ConcurrentHashMap<>();
+	private final Map<String, Entry>			entries		= new ConcurrentHashMap<>();
+
+	/**
+	 * An expanded value and the lookups it depends on. The dependencies are
+	 * stored as pairs of a kind prefixed key and the observed value.
+	 */
+	private static final class Entry {
+		final String	value;
+		final String[]	dependencies;
+
+		Entry(String value, String[] dependencies) {
+			this.value = value;
+			this.dependencies = dependencies;
+		}
+
+		boolean isValid(Processor processor) {
+			for (int i = 0; i < dependencies.length; i += 2) {
+				String dependency = dependencies[i];
+				String key = dependency.substring(1);
+				String actual = switch (dependency.charAt(0)) {
+					case LITERAL -> processor.getInheritedRawProperty(key);
+					case PROPERTY -> processor.getUnexpandedProperty(key);
+					case SYSTEM -> System.getProperty(key);
+					case ENV -> System.getenv(key);
+					case BASE -> IO.absolutePath(processor.getBase());
+					default -> throw new IllegalStateException(dependency);
+				};
+				if (!Objects.equals(actual, dependencies[i + 1])) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	private static final class Recording {
+		final Processor				processor;
+		final Map<String, String>	dependencies	= new LinkedHashMap<>();
+		boolean						cacheable		= true;
+
+		Recording(Processor processor) {
+			this.processor = processor;
+		}
+
+		void record(Processor domain, char kind, String key, String value) {
+			if (domain != processor) {
+				cacheable = false;
+			} else if (cacheable) {
+				dependencies.putIfAbsent(kind + key, value);
+			}
+		}
+
+		String[] dependencies() {
+			String[] result = new String[dependencies.size() * 2];
+			int i = 0;
+			for (Map.Entry<String, String> e : dependencies.entrySet()) {
+				result[i++] = e.getKey();
+				result[i++] = e.getValue();
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Return the literal of a property key or {@code null} when the key is a
+	 * wildcard. The key is parsed as an {@link Instruction} once.
+	 */
+	String literalKey(String key) {
+		return literals.computeIfAbsent(key, k -> {
+			Instruction ins = new Instruction(k);
+			return ins.isLiteral() ? Optional.of(ins.getLiteral()) : Optional.empty();
+		})
+			.orElse(null);
+	}
+
+	/**
+	 * Return the expanded value of a literal property of the processor,
+	 * expanding it only when a dependency of the cached value changed.
+	 */
+	String get(Processor processor, String key) {
+		Entry entry = entries.get(key);
+		if ((entry != null) && entry.isValid(processor)) {
+			return entry.value;
+		}
+		Recording previous = recording.get();
+		if (previous != null) {
+			// the expansion of another property depends on this one, it is
+			// only called from macro functions
+			previous.cacheable = false;
+		}
+		Recording current = new Recording(processor);
+		recording.set(current);
+		String value;
+		try {
+			value = processor.expandLiteralProperty(key);
+		} finally {
+			if (previous == null) {
+				recording.remove();
+			} else {
+				recording.set(previous);
+			}
+		}
+		if (current.cacheable) {
+			entries.put(key, new Entry(value, current.dependencies()));
+		} else {
+			entries.remove(key);
+		}
+		return value;
+	}
+
+	/**
+	 * Drop all cached values.
+	 */
+	void clear() {
+		entries.clear();
+	}
+
+	/*
+	 * The following methods are called while a property is expanded
+	 */
+
+	static void literal(Processor domain, String key, String value) {
+		record(domain, LITERAL, key, value);
+	}
+
+	static void property(Processor domain, String key, String value) {
+		record(domain, PROPERTY, key, value);
+	}
+
+	static void system(Processor domain, String key, String value) {
+		record(domain, SYSTEM, key, value);
+	}
+
+	static void env(Processor domain, String name, String value) {
+		record(domain, ENV, name, value);
+	}
+
+	static void base(Processor domain) {
+		record(domain, BASE, "", IO.absolutePath(domain.getBase()));
+	}
+
+	/**
+	 * Mark the property that is currently expanded as not cacheable.
+	 */
+	static void uncacheable() {
+		Recording r = recording.get();
+		if (r != null) {
+			r.cacheable = false;
+		}
+	}
+
+	private static void record(Processor domain, char kind, String key, String value) {
+		Recording r = recording.get();
+		if (r != null) {
+			r.record(domain, kind, key, value);
+		}
+	}
+}
@@ -1,25 +1,50 @@
 package aQute.bnd.osgi;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
 
 import aQute.lib.io.IO;
 import aQute.lib.zip.ZipUtil;
 
 public class ZipResource implements Resource {
-	private ByteBuffer		buffer;
-	private final ZipFile	zip;
-	private final ZipEntry	entry;
-	private final boolean	closeZipFile;
-	private long			lastModified;
-	private long			size;
-	private String			extra;
+	private static final int								EOCD_SIG	= 0x06054b50;
+	private static final int								CEN_SIG		= 0x02014b50;
+	private static final int								LOC_SIG		= 0x04034b50;
+	private static final int								EOCD_SIZE	= 22;
+	private static final int								CEN_SIZE	= 46;
+	private static final int								LOC_SIZE	= 30;
+	private static final int								MAX_COMMENT	= 0xFFFF;
+	/**
+	 * The local header offsets of the entries of a ZIP file by name, empty if
+	 * the file cannot be handled.
+	 */
+	private static final Map<ZipFile, Map<String, long[]>>	locals		= Collections
+		.synchronizedMap(new WeakHashMap<>());
+
+	private ByteBuffer										buffer;
+	private final ZipFile									zip;
+	private final ZipEntry									entry;
+	private final boolean									closeZipFile;
+	private long											lastModified;
+	private long											size;
+	private String											extra;
 
 	ZipResource(Path path, String entryName) throws IOException {
 		this(new ZipFile(path.toFile()), entryName);
@@ -66,6 +91,107 @@ public class ZipResource implements Resource {
 		return buffer = bb;
 	}
 
+	/**
+	 * Return the compressed data of a deflated entry so it can be copied into
+	 * another ZIP file without inflating and deflating it again, see
+	 * {@link ZipWriter}.
+	 *
+	 * @return the deflated data or {@code null} if the entry is stored or its
+	 *         data cannot be located in the ZIP file
+	 */
+	ByteBuffer deflated() throws IOException {
+		if (entry.getMethod() != ZipEntry.DEFLATED) {
+			return null;
+		}
+		long[] local = locals.computeIfAbsent(zip, ZipResource::locals)
+			.get(entry.getName());
+		// the file may have been replaced since the ZipFile was opened
+		if ((local == null) || (local[1] != entry.getCompressedSize()) || (local[2] != entry.getCrc())) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(Paths.get(zip.getName()), StandardOpenOption.READ)) {
+			ByteBuffer loc = read(channel, local[0], LOC_SIZE);
+			if (loc.getInt(0) != LOC_SIG) {
+				throw new ZipException("Invalid local header for " + entry.getName());
+			}
+			long start = local[0] + LOC_SIZE + Short.toUnsignedInt(loc.getShort(26))
+				+ Short.toUnsignedInt(loc.getShort(28));
+			return read(channel, start, (int) local[1]);
+		}
+	}
+
+	/**
+	 * Return the CRC-32 of the uncompressed data.
+	 */
+	long crc() {
+		return entry.getCrc();
+	}
+
+	/**
+	 * Read the local header offset, compressed size and CRC-32 of the entries
+	 * from the central directory. ZIP64 files are not handled.
+	 */
+	private static Map<String, long[]> locals(ZipFile zip) {
+		Map<String, long[]> result = new HashMap<>();
+		try (FileChannel channel = FileChannel.open(Paths.get(zip.getName()), StandardOpenOption.READ)) {
+			long length = channel.size();
+			int tail = (int) Math.min(length, EOCD_SIZE + MAX_COMMENT);
+			ByteBuffer end = read(channel, length - tail, tail);
+			int eocd = -1;
+			for (int i = tail - EOCD_SIZE; i >= 0; i--) {
+				if (end.getInt(i) == EOCD_SIG) {
+					eocd = i;
+					break;
+				}
+			}
+			if (eocd < 0) {
+				return result;
+			}
+			int entries = Short.toUnsignedInt(end.getShort(eocd + 10));
+			long cenSize = Integer.toUnsignedLong(end.getInt(eocd + 12));
+			long cenOffset = Integer.toUnsignedLong(end.getInt(eocd + 16));
+			long base = length - tail + eocd - cenSize - cenOffset;
+			if ((entries == 0xFFFF) || (cenOffset == 0xFFFFFFFFL) || (base < 0) || (cenSize > Integer.MAX_VALUE)) {
+				return result; // ZIP64
+			}
+			ByteBuffer cen = read(channel, base + cenOffset, (int) cenSize);
+			for (int n = 0, pos = 0; n < entries; n++) {
+				if ((pos + CEN_SIZE > cen.limit()) || (cen.getInt(pos) != CEN_SIG)) {
+					result.clear();
+					return result;
+				}
+				long crc = Integer.toUnsignedLong(cen.getInt(pos + 16));
+				long compressedSize = Integer.toUnsignedLong(cen.getInt(pos + 20));
+				int nameLength = Short.toUnsignedInt(cen.getShort(pos + 28));
+				int extraLength = Short.toUnsignedInt(cen.getShort(pos + 30));
+				int commentLength = Short.toUnsignedInt(cen.getShort(pos + 32));
+				long offset = Integer.toUnsignedLong(cen.getInt(pos + 42));
+				byte[] name = new byte[nameLength];
+				cen.get(pos + CEN_SIZE, name);
+				if ((compressedSize < 0xFFFFFFFFL) && (offset < 0xFFFFFFFFL)) {
+					result.put(new String(name, UTF_8), new long[] {
+						base + offset, compressedSize, crc
+					});
+				}
+				pos += CEN_SIZE + nameLength + extraLength + commentLength;
+			}
+		} catch (IOException | RuntimeException e) {
+			result.clear();
+		}
+		return result;
+	}
+
+	private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+		ByteBuffer bb = ByteBuffer.allocate(length)
+			.order(ByteOrder.LITTLE_ENDIAN);
+		while (bb.hasRemaining()) {
+			if (channel.read(bb, position + bb.position()) < 0) {
+				throw new ZipException("Unexpected end of ZIP file");
+			}
+		}
+		return bb.flip();
+	}
+
 	@Override
 	public InputStream openInputStream() throws Exception {
 		return IO.stream(buffer());
@@ -0,0 +1,701 @@
+package aQute.bnd.osgi;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import aQute.bnd.exceptions.Exceptions;
+import aQute.lib.io.ByteBufferOutputStream;
+import aQute.lib.io.IO;
+
+/**
+ * Writes a ZIP stream with the layout of a {@link ZipOutputStream} while the
+ * entry data is compressed concurrently on the {@link Processor#getExecutor()
+ * executor}.
+ * <p>
+ * The headers are written by a {@link ZipOutputStream}, or a
+ * {@link JarOutputStream}, into a scratch buffer without any entry data. So
+ * the names, times, flags and extra fields are exactly what that stream writes
+ * and only the CRC, sizes and offsets are filled in here. The data is deflated
+ * with the same deflater settings as the stream uses and deflate output does
+ * not depend on how the input is fed, so the archive is the same, byte for
+ * byte, as one written sequentially by a {@link ZipOutputStream}.
+ * <p>
+ * Entries are written in the order they are added. Only a bounded number of
+ * entries, and bytes, wait for their compression at any time. The content of
+ * a resource that is not already in memory, or mapped, is not read into
+ * memory. Resources are not thread safe, so such a resource is written on the
+ * calling thread and only the compression of what it writes is done on the
+ * executor. The compressed data goes to a spool that keeps a bounded amount of
+ * it in memory and moves the rest to a temporary file.
+ * <p>
+ * A deflated entry of a {@link MappedZipResource} or a {@link ZipResource} is
+ * copied with its compressed data and CRC as is. It is not inflated and deflated again, so
+ * the data of such an entry is as compressed by the tool that wrote the
+ * source ZIP file.
+ */
+class ZipWriter implements Closeable {
+	private static final int								LOCSIG				= 0x04034b50;
+	private static final int								EXTSIG				= 0x08074b50;
+	private static final int								CENSIG				= 0x02014b50;
+	private static final int								ENDSIG				= 0x06054b50;
+	private static final int								ZIP64_ENDSIG		= 0x06064b50;
+	private static final int								ZIP64_LOCSIG		= 0x07064b50;
+	private static final int								ZIP64_EXTID			= 0x0001;
+	private static final long								ZIP64_MAGICVAL		= 0xFFFFFFFFL;
+	private static final int								ZIP64_MAGICCOUNT	= 0xFFFF;
+	private static final int								CENHDR				= 46;
+	private static final int								ZIP64_ENDHDR		= 56;
+	/**
+	 * Entries smaller than this are compressed on the calling thread, handing
+	 * them off costs more than compressing them.
+	 */
+	private static final int								INLINE_SIZE			= 1024;
+	private static final long								MAX_PENDING_BYTES	= 64L * 1024L * 1024L;
+	/**
+	 * The compressed data of a streamed entry kept in memory, the rest is
+	 * spooled to a temporary file.
+	 */
+	private static final int								SPOOL_SIZE			= 1024 * 1024;
+	private static final int								PARALLELISM			= Runtime.getRuntime()
+		.availableProcessors();
+	private static final Deque<Deflater>					deflaters			= new ArrayDeque<>(PARALLELISM);
+
+	private final Counter									out;
+	private final ByteBufferOutputStream					headers				= new ByteBufferOutputStream();
+	private final ZipOutputStream							scratch;
+	private final Deque<CompletableFuture<ZipWriterEntry>>	pending				= new ArrayDeque<>();
+	private final List<ZipWriterEntry>						entries				= new ArrayList<>();
+	private final byte[]									buf					= new byte[8];
+	private long											pendingBytes;
+	private long											written;
+
+	/**
+	 * @param out the output stream, which is not closed by this writer
+	 * @param jar {@code true} to mark the archive as a JAR file like
+	 *            {@link JarOutputStream} does
+	 */
+	ZipWriter(OutputStream out, boolean jar) throws IOException {
+		this.out = new Counter(out);
+		this.scratch = jar ? new JarOutputStream(headers) : new ZipOutputStream(headers);
+	}
+
+	/**
+	 * Add an entry with the content of the resource. The entry method must be
+	 * {@link ZipEntry#STORED} or {@link ZipEntry#DEFLATED}, which is the
+	 * default. The CRC and sizes of the entry are ignored.
+	 */
+	void write(ZipEntry ze, Resource resource) throws Exception {
+		if ((ze.getMethod() != ZipEntry.STORED) && copy(ze, resource)) {
+			return;
+		}
+		ByteBuffer content = inMemory(resource) ? resource.buffer() : null;
+		if (content != null) {
+			write(ze, content);
+		} else {
+			// resources are not thread safe, so only the compression of what
+			// the resource writes is done on the executor
+			ZipWriterEntry entry = header(ze);
+			add(entry.stream(resource, (PARALLELISM < 2) ? null : Processor.getExecutor()), SPOOL_SIZE);
+		}
+	}
+
+	/*
+	 * Copy the compressed data of a deflated entry of another ZIP file as is
+	 */
+	private boolean copy(ZipEntry ze, Resource resource) throws Exception {
+		ByteBuffer deflated;
+		long crc;
+		if (resource instanceof MappedZipResource mapped) {
+			deflated = mapped.deflated();
+			crc = mapped.crc();
+		} else if (resource instanceof ZipResource zipResource) {
+			deflated = zipResource.deflated();
+			crc = zipResource.crc();
+		} else {
+			return false;
+		}
+		if (deflated == null) {
+			return false;
+		}
+		ZipWriterEntry entry = header(ze);
+		entry.copy(crc, resource.size(), deflated);
+		add(CompletableFuture.completedFuture(entry), entry.size);
+		return true;
+	}
+
+	/*
+	 * The buffer of other resources is read on demand and then kept by the
+	 * resource
+	 */
+	private static boolean inMemory(Resource resource) {
+		return (resource instanceof EmbeddedResource) || (resource instanceof MappedZipResource)
+			|| (resource instanceof FileResource);
+	}
+
+	/**
+	 * Add an entry with the remaining content of the buffer. The buffer must
+	 * not be modified until this writer is finished.
+	 */
+	void write(ZipEntry ze, ByteBuffer content) throws IOException {
+		ZipWriterEntry entry = header(ze);
+		int size = content.remaining();
+		if ((PARALLELISM < 2) || (size < INLINE_SIZE)) {
+			add(CompletableFuture.completedFuture(entry.compress(content)), size);
+		} else {
+			add(CompletableFuture.supplyAsync(() -> entry.compress(content), Processor.getExecutor()), size);
+		}
+	}
+
+	private void add(CompletableFuture<ZipWriterEntry> entry, long size) throws IOException {
+		pending.add(entry);
+		pendingBytes += size;
+		drain(2 * PARALLELISM, MAX_PENDING_BYTES);
+	}
+
+	/**
+	 * Write the central directory. The output stream is flushed but not
+	 * closed.
+	 */
+	void finish() throws IOException {
+		drain(0, 0L);
+		headers.clear();
+		scratch.finish();
+		ByteBuffer cen = headers.toByteBuffer()
+			.order(ByteOrder.LITTLE_ENDIAN);
+		long offset = written;
+		for (ZipWriterEntry entry : entries) {
+			writeCEN(cen, entry);
+		}
+		writeEND(offset, written - offset);
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		scratch.close();
+		// wait for the entries still being compressed so their spool files
+		// are known
+		for (CompletableFuture<ZipWriterEntry> entry; (entry = pending.poll()) != null;) {
+			try {
+				entry.join();
+			} catch (CompletionException | CancellationException e) {
+				// already reported or the writer is abandoned
+			}
+		}
+		for (ZipWriterEntry entry : entries) {
+			if (entry.spool != null) {
+				IO.delete(entry.spool);
+			}
+		}
+	}
+
+	private ZipWriterEntry header(ZipEntry ze) throws IOException {
+		int method = (ze.getMethod() == ZipEntry.STORED) ? ZipEntry.STORED : ZipEntry.DEFLATED;
+		if (method == ZipEntry.STORED) {
+			// the scratch stream does not see the data
+			ze = new ZipEntry(ze);
+			ze.setCrc(0L);
+			ze.setSize(0L);
+			ze.setCompressedSize(0L);
+		}
+		headers.clear();
+		scratch.putNextEntry(ze);
+		ZipWriterEntry entry = new ZipWriterEntry(method, headers.toByteArray());
+		scratch.closeEntry();
+		entries.add(entry);
+		return entry;
+	}
+
+	private void drain(int maxEntries, long maxBytes) throws IOException {
+		CompletableFuture<ZipWriterEntry> next;
+		while ((next = pending.peek()) != null
+			&& ((pending.size() > maxEntries) || (pendingBytes > maxBytes) || next.isDone())) {
+			pending.remove();
+			ZipWriterEntry entry;
+			try {
+				entry = next.join();
+			} catch (CompletionException e) {
+				throw Exceptions.duck(Exceptions.unrollCause(e, CompletionException.class));
+			}
+			pendingBytes -= entry.size;
+			writeEntry(entry);
+		}
+	}
+
+	private void writeEntry(ZipWriterEntry entry) throws IOException {
+		entry.offset = written;
+		byte[] loc = entry.loc;
+		if (entry.method == ZipEntry.STORED) {
+			ByteBuffer bb = ByteBuffer.wrap(loc)
+				.order(ByteOrder.LITTLE_ENDIAN);
+			bb.putInt(14, (int) entry.crc);
+			bb.putInt(18, (int) entry.csize);
+			bb.putInt(22, (int) entry.size);
+		}
+		out.write(loc);
+		IO.copy(entry.data, out);
+		entry.data = null;
+		if (entry.spool != null) {
+			IO.copy(entry.spool, out);
+			IO.delete(entry.spool);
+			entry.spool = null;
+		}
+		if (entry.method == ZipEntry.DEFLATED) {
+			writeEXT(entry);
+		}
+	}
+
+	private void writeEXT(ZipWriterEntry entry) throws IOException {
+		writeInt(EXTSIG);
+		writeInt(entry.crc);
+		if ((entry.csize >= ZIP64_MAGICVAL) || (entry.size >= ZIP64_MAGICVAL)) {
+			writeLong(entry.csize);
+			writeLong(entry.size);
+		} else {
+			writeInt(entry.csize);
+			writeInt(entry.size);
+		}
+	}
+
+	/**
+	 * Copy the scratch central directory header of the entry, which is at the
+	 * position of the buffer, replacing the CRC, sizes and offset.
+	 */
+	private void writeCEN(ByteBuffer cen, ZipWriterEntry entry) throws IOException {
+		int pos = cen.position();
+		int nameLength = Short.toUnsignedInt(cen.getShort(pos + 28));
+		int extraLength = Short.toUnsignedInt(cen.getShort(pos + 30));
+		int commentLength = Short.toUnsignedInt(cen.getShort(pos + 32));
+		long csize = entry.csize;
+		long size = entry.size;
+		long offset = entry.offset;
+		int elenZIP64 = 0;
+		if (csize >= ZIP64_MAGICVAL) {
+			csize = ZIP64_MAGICVAL;
+			elenZIP64 += 8;
+		}
+		if (size >= ZIP64_MAGICVAL) {
+			size = ZIP64_MAGICVAL;
+			elenZIP64 += 8;
+		}
+		if (offset >= ZIP64_MAGICVAL) {
+			offset = ZIP64_MAGICVAL;
+			elenZIP64 += 8;
+		}
+		writeInt(CENSIG);
+		if (elenZIP64 > 0) {
+			writeShort(45); // version made by
+			writeShort(45); // version needed to extract
+			extraLength += elenZIP64 + 4;
+		} else {
+			copy(cen, pos + 4, 4);
+		}
+		copy(cen, pos + 8, 8); // flag, method and time
+		writeInt(entry.crc);
+		writeInt(csize);
+		writeInt(size);
+		writeShort(nameLength);
+		writeShort(extraLength);
+		writeShort(commentLength);
+		copy(cen, pos + 34, 8); // disk, internal and external attributes
+		writeInt(offset);
+		copy(cen, pos + CENHDR, nameLength);
+		if (elenZIP64 > 0) {
+			writeShort(ZIP64_EXTID);
+			writeShort(elenZIP64);
+			if (size == ZIP64_MAGICVAL) {
+				writeLong(entry.size);
+			}
+			if (csize == ZIP64_MAGICVAL) {
+				writeLong(entry.csize);
+			}
+			if (offset == ZIP64_MAGICVAL) {
+				writeLong(entry.offset);
+			}
+		}
+		int next = pos + CENHDR + nameLength;
+		int rest = Short.toUnsignedInt(cen.getShort(pos + 30)) + commentLength;
+		copy(cen, next, rest);
+		cen.position(next + rest);
+	}
+
+	private void writeEND(long offset, long length) throws IOException {
+		boolean hasZip64 = false;
+		long xlen = length;
+		long xoff = offset;
+		if (xlen >= ZIP64_MAGICVAL) {
+			xlen = ZIP64_MAGICVAL;
+			hasZip64 = true;
+		}
+		if (xoff >= ZIP64_MAGICVAL) {
+			xoff = ZIP64_MAGICVAL;
+			hasZip64 = true;
+		}
+		int count = entries.size();
+		if (count >= ZIP64_MAGICCOUNT) {
+			count = ZIP64_MAGICCOUNT;
+			hasZip64 = true;
+		}
+		if (hasZip64) {
+			long off64 = written;
+			writeInt(ZIP64_ENDSIG);
+			writeLong(ZIP64_ENDHDR - 12);
+			writeShort(45); // version made by
+			writeShort(45); // version needed to extract
+			writeInt(0); // number of this disk
+			writeInt(0); // central directory start disk
+			writeLong(entries.size());
+			writeLong(entries.size());
+			writeLong(length);
+			writeLong(offset);
+			writeInt(ZIP64_LOCSIG);
+			writeInt(0); // zip64 end start disk
+			writeLong(off64);
+			writeInt(1); // total number of disks
+		}
+		writeInt(ENDSIG);
+		writeShort(0); // number of this disk
+		writeShort(0); // central directory start disk
+		writeShort(count);
+		writeShort(count);
+		writeInt(xlen);
+		writeInt(xoff);
+		writeShort(0); // comment length
+	}
+
+	private void copy(ByteBuffer bb, int position, int length) throws IOException {
+		IO.copy(bb.duplicate()
+			.position(position)
+			.limit(position + length), out);
+	}
+
+	private void writeShort(int v) throws IOException {
+		buf[0] = (byte) v;
+		buf[1] = (byte) (v >>> 8);
+		out.write(buf, 0, 2);
+	}
+
+	private void writeInt(long v) throws IOException {
+		buf[0] = (byte) v;
+		buf[1] = (byte) (v >>> 8);
+		buf[2] = (byte) (v >>> 16);
+		buf[3] = (byte) (v >>> 24);
+		out.write(buf, 0, 4);
+	}
+
+	private void writeLong(long v) throws IOException {
+		writeInt(v);
+		writeInt(v >>> 32);
+	}
+
+	private static Deflater deflater() {
+		synchronized (deflaters) {
+			Deflater deflater = deflaters.poll();
+			if (deflater != null) {
+				return deflater;
+			}
+		}
+		// the settings of ZipOutputStream
+		return new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+	}
+
+	private static void release(Deflater deflater) {
+		deflater.reset();
+		synchronized (deflaters) {
+			if (deflaters.size() < PARALLELISM) {
+				deflaters.push(deflater);
+				return;
+			}
+		}
+		deflater.end();
+	}
+
+	static final class ZipWriterEntry {
+		final int	method;
+		final byte[]	loc;
+		ByteBuffer	data;
+		File		spool;
+		long		crc;
+		long		size;
+		long		csize;
+		long		offset;
+
+		ZipWriterEntry(int method, byte[] loc) {
+			this.method = method;
+			this.loc = loc;
+		}
+
+		void copy(long crc, long size, ByteBuffer deflated) {
+			this.crc = crc;
+			this.size = size;
+			this.data = deflated;
+			this.csize = deflated.remaining();
+		}
+
+		/**
+		 * Compress the content the resource writes. The resource is written on
+		 * the calling thread since resources are not thread safe. With an
+		 * executor, the content is compressed in chunks on the executor, in
+		 * order, while the resource writes. The compressed data is in the data
+		 * buffer followed by the spool file, if any.
+		 */
+		CompletableFuture<ZipWriterEntry> stream(Resource resource, Executor executor) throws Exception {
+			Spool spool = new Spool();
+			Deflater deflater = (method == ZipEntry.STORED) ? null : deflater();
+			Chunks chunks = new Chunks(spool, deflater, (deflater == null) ? null : executor);
+			CompletableFuture<Void> done;
+			try {
+				resource.write(chunks);
+				done = chunks.finish();
+			} catch (Exception e) {
+				// wait until the chunks no longer use the deflater
+				chunks.tail.handle((v, failure) -> null)
+					.join();
+				done(deflater, spool, false);
+				throw e;
+			}
+			return done.handle((v, failure) -> {
+				done(deflater, spool, failure == null);
+				if (failure != null) {
+					throw Exceptions.duck(Exceptions.unrollCause(failure, CompletionException.class));
+				}
+				crc = chunks.crc32.getValue();
+				csize = spool.count;
+				data = spool.memory.toByteBuffer();
+				this.spool = spool.file;
+				return this;
+			});
+		}
+
+		private static void done(Deflater deflater, Spool spool, boolean keep) {
+			if (deflater != null) {
+				release(deflater);
+			}
+			IO.close(spool);
+			if (!keep && (spool.file != null)) {
+				IO.delete(spool.file);
+			}
+		}
+
+		/**
+		 * Collects the content a resource writes and compresses it, directly
+		 * or in chunks on the executor. At most {@link #MAX_CHUNKS} chunks wait
+		 * for their compression.
+		 */
+		final class Chunks extends OutputStream {
+			private static final int						CHUNK_SIZE	= 64 * 1024;
+			private static final int						MAX_CHUNKS	= 8;
+			final CRC32										crc32		= new CRC32();
+			private final OutputStream						out;
+			private final Executor							executor;
+			private final Deque<CompletableFuture<Void>>	queued		= new ArrayDeque<>();
+			CompletableFuture<Void>							tail		= CompletableFuture.completedFuture(null);
+			private byte[]									chunk;
+			private int										length;
+
+			Chunks(Spool spool, Deflater deflater, Executor executor) {
+				this.out = (deflater == null) ? spool : new DeflaterOutputStream(spool, deflater);
+				this.executor = executor;
+			}
+
+			@Override
+			public void write(int b) throws IOException {
+				write(new byte[] {
+					(byte) b
+				}, 0, 1);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				crc32.update(b, off, len);
+				size += len;
+				if (executor == null) {
+					out.write(b, off, len);
+					return;
+				}
+				while (len > 0) {
+					if (chunk == null) {
+						chunk = new byte[CHUNK_SIZE];
+					}
+					int n = Math.min(len, CHUNK_SIZE - length);
+					System.arraycopy(b, off, chunk, length, n);
+					length += n;
+					off += n;
+					len -= n;
+					if (length == CHUNK_SIZE) {
+						submit();
+					}
+				}
+			}
+
+			/*
+			 * Compress the collected chunk after the previous chunks
+			 */
+			private void submit() throws IOException {
+				byte[] b = chunk;
+				int n = length;
+				chunk = null;
+				length = 0;
+				tail = tail.thenRunAsync(() -> {
+					try {
+						out.write(b, 0, n);
+					} catch (IOException e) {
+						throw Exceptions.duck(e);
+					}
+				}, executor);
+				queued.add(tail);
+				while (!queued.isEmpty() && ((queued.size() > MAX_CHUNKS) || queued.peek()
+					.isDone())) {
+					try {
+						queued.remove()
+							.join();
+					} catch (CompletionException e) {
+						throw Exceptions.duck(Exceptions.unrollCause(e, CompletionException.class));
+					}
+				}
+			}
+
+			/**
+			 * Called when the resource is written.
+			 *
+			 * @return completes when all content is compressed
+			 */
+			CompletableFuture<Void> finish() throws IOException {
+				if (executor == null) {
+					finish(out);
+					return tail;
+				}
+				if (length > 0) {
+					submit();
+				}
+				return tail.thenRunAsync(() -> {
+					try {
+						finish(out);
+					} catch (IOException e) {
+						throw Exceptions.duck(e);
+					}
+				}, executor);
+			}
+
+			private static void finish(OutputStream out) throws IOException {
+				if (out instanceof DeflaterOutputStream dout) {
+					dout.finish();
+				}
+			}
+		}
+
+		ZipWriterEntry compress(ByteBuffer content) {
+			size = content.remaining();
+			CRC32 crc32 = new CRC32();
+			crc32.update(content.duplicate());
+			crc = crc32.getValue();
+			if (method == ZipEntry.STORED) {
+				data = content.duplicate();
+				csize = size;
+				return this;
+			}
+			Deflater deflater = deflater();
+			try {
+				deflater.setInput(content.duplicate());
+				deflater.finish();
+				ByteBuffer bb = ByteBuffer.allocate((int) Math.min(Integer.MAX_VALUE - 8, size + (size >>> 12) + 64));
+				while (!deflater.finished()) {
+					if (!bb.hasRemaining()) {
+						bb = ByteBuffer.allocate(bb.capacity() * 2)
+							.put(bb.flip());
+					}
+					deflater.deflate(bb);
+				}
+				data = bb.flip();
+				csize = data.remaining();
+			} finally {
+				release(deflater);
+			}
+			return this;
+		}
+	}
+
+	/**
+	 * Keeps the first bytes written in memory and the rest in a temporary
+	 * file.
+	 */
+	static final class Spool extends OutputStream {
+		final ByteBufferOutputStream	memory	= new ByteBufferOutputStream();
+		File							file;
+		private OutputStream			fileOut;
+		long							count;
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] {
+				(byte) b
+			}, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			int n = (int) Math.min(len, Math.max(0L, SPOOL_SIZE - count));
+			count += len;
+			memory.write(b, off, n);
+			if (n < len) {
+				if (fileOut == null) {
+					file = IO.createTempFile(null, "bndzip", ".tmp");
+					fileOut = IO.outputStream(file);
+				}
+				fileOut.write(b, off + n, len - n);
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (fileOut != null) {
+				fileOut.close();
+			}
+		}
+	}
+
+	/**
+	 * Counts the bytes written to the output stream.
+	 */
+	final class Counter extends FilterOutputStream {
+		Counter(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			written++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			written += len;
+		}
+
+		@Override
+		public void close() {
+			// the output stream belongs to the caller
+		}
+	}
+}
@@ -1,4 +1,4 @@
-@Version("7.5.0")
+@Version("7.6.0")
 package aQute.bnd.osgi;
 
 import org.osgi.annotation.versioning.Version;
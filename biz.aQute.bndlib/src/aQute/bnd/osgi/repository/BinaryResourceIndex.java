@@ -0,0 +1,408 @@
+package aQute.bnd.osgi.repository;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.osgi.resource.Capability;
+import org.osgi.resource.Requirement;
+import org.osgi.resource.Resource;
+import org.osgi.service.repository.ContentNamespace;
+
+import aQute.bnd.header.Attrs;
+import aQute.bnd.osgi.resource.CapReqBuilder;
+import aQute.bnd.osgi.resource.ResourceBuilder;
+import aQute.bnd.osgi.resource.TypedAttribute;
+import aQute.bnd.service.resource.SupportingResource;
+import aQute.lib.io.ByteBufferOutputStream;
+import aQute.lib.io.IO;
+
+/**
+ * A compact binary form of a set of resources that is much faster to read than
+ * an {@code http://www.osgi.org/xmlns/repository/v1.0.0} XML index.
+ * <p>
+ * The file holds the same information as the XML index: every string, like a
+ * namespace, an attribute name or a filter, is stored once in a string table
+ * and referred to by its index. Attribute values are stored with their type as
+ * in the XML index and are converted when read, so reading a binary index
+ * gives the same resources as parsing the XML index. Equal values are shared
+ * between the resources read. Referrals to other indexes are not kept, the
+ * resources of the referred indexes are included instead.
+ * <p>
+ * A binary index can record the source it was made from, for example the
+ * size and modification time of a downloaded XML index. Reading the index for
+ * a different source returns {@code null} so the caller can fall back to the
+ * source.
+ * <p>
+ * The format is a magic number, a format version, the source, the string
+ * table and the resources. All numbers are unsigned variable length integers
+ * of 7 bits per byte.
+ */
+public class BinaryResourceIndex {
+	private static final int	MAGIC	= 0x42524958;	// BRIX
+	private static final int	FORMAT	= 1;
+
+	private BinaryResourceIndex() {}
+
+	/**
+	 * Return the location of the binary index that goes with an XML index. The
+	 * {@code .xml} and {@code .gz} extensions are replaced by {@code .bin}.
+	 *
+	 * @param xml the location of the XML index
+	 * @return the location of the binary index
+	 */
+	public static File location(File xml) {
+		String name = xml.getName();
+		if (name.endsWith(".gz")) {
+			name = name.substring(0, name.length() - 3);
+		}
+		if (name.endsWith(".xml")) {
+			name = name.substring(0, name.length() - 4);
+		}
+		return new File(xml.getParentFile(), name + ".bin");
+	}
+
+	/**
+	 * Save the resources in a binary index file.
+	 *
+	 * @param resources the resources
+	 * @param location the file to save the index to
+	 * @param base the URI the content URLs are made relative to or
+	 *            {@code null}
+	 * @param source the source of the resources or {@code null}
+	 * @throws IOException
+	 */
+	public static void save(Collection<? extends Resource> resources, File location, URI base, String source)
+		throws IOException {
+		IO.mkdirs(location.getParentFile());
+		File tmp = IO.createTempFile(location.getParentFile(), "index", ".bin");
+		try (OutputStream out = IO.outputStream(tmp)) {
+			write(resources, out, base, source);
+		} catch (IOException | RuntimeException e) {
+			IO.delete(tmp);
+			throw e;
+		}
+		IO.rename(tmp, location);
+	}
+
+	/**
+	 * Write the resources as a binary index.
+	 *
+	 * @param resources the resources
+	 * @param out the stream to write to, it is not closed
+	 * @param base the URI the content URLs are made relative to or
+	 *            {@code null}
+	 * @param source the source of the resources or {@code null}
+	 * @throws IOException
+	 */
+	public static void write(Collection<? extends Resource> resources, OutputStream out, URI base, String source)
+		throws IOException {
+		// resources are only equal when they have the same content so the
+		// supporting resources are only skipped when already present
+		Set<Resource> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+		List<Resource> all = new ArrayList<>();
+		for (Resource resource : resources) {
+			if (visited.add(resource)) {
+				all.add(resource);
+				if (resource instanceof SupportingResource s) {
+					for (Resource supporting : s.getSupportingResources()) {
+						if (visited.add(supporting)) {
+							all.add(supporting);
+						}
+					}
+				}
+			}
+		}
+		Writer writer = new Writer(base);
+		writer.number(all.size());
+		for (Resource resource : all) {
+			List<Capability> capabilities = resource.getCapabilities(null);
+			writer.number(capabilities.size());
+			for (Capability capability : capabilities) {
+				writer.clause(capability.getNamespace(), capability.getDirectives(), capability.getAttributes());
+			}
+			List<Requirement> requirements = resource.getRequirements(null);
+			writer.number(requirements.size());
+			for (Requirement requirement : requirements) {
+				writer.clause(requirement.getNamespace(), requirement.getDirectives(), requirement.getAttributes());
+			}
+		}
+
+		ByteBufferOutputStream header = new ByteBufferOutputStream();
+		header.write(ByteBuffer.allocate(5)
+			.putInt(MAGIC)
+			.put((byte) FORMAT)
+			.flip());
+		if (source == null) {
+			number(header, 0);
+		} else {
+			byte[] bytes = source.getBytes(UTF_8);
+			number(header, bytes.length + 1);
+			header.write(bytes);
+		}
+		number(header, writer.strings.size());
+		for (String string : writer.strings.keySet()) {
+			byte[] bytes = string.getBytes(UTF_8);
+			number(header, bytes.length);
+			header.write(bytes);
+		}
+		IO.copy(header.toByteBuffer(), out);
+		IO.copy(writer.body.toByteBuffer(), out);
+		out.flush();
+	}
+
+	/**
+	 * Read a binary index file.
+	 *
+	 * @param location the binary index file
+	 * @param uri the URI the content URLs are relative to
+	 * @param source the source the index must have been made from or
+	 *            {@code null} to accept any
+	 * @return the resources or {@code null} if the file is not a binary index
+	 *         of the source
+	 * @throws IOException if the file cannot be read or is corrupt
+	 */
+	public static List<Resource> read(File location, URI uri, String source) throws IOException {
+		return read(IO.read(location.toPath()), uri, source);
+	}
+
+	/**
+	 * Read a binary index.
+	 *
+	 * @param bb the binary index
+	 * @param uri the URI the content URLs are relative to
+	 * @param source the source the index must have been made from or
+	 *            {@code null} to accept any
+	 * @return the resources or {@code null} if the buffer does not hold a
+	 *         binary index of the source
+	 * @throws IOException if the index is corrupt
+	 */
+	public static List<Resource> read(ByteBuffer bb, URI uri, String source) throws IOException {
+		try {
+			if ((bb.remaining() < 5) || (bb.getInt() != MAGIC) || (bb.get() != FORMAT)) {
+				return null;
+			}
+			int length = number(bb);
+			if (length > 0) {
+				String actual = string(bb, length - 1);
+				if ((source != null) && !source.equals(actual)) {
+					return null;
+				}
+			} else if (source != null) {
+				return null;
+			}
+			return new Reader(bb, uri).resources();
+		} catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+			throw new IOException("Invalid binary index: " + e, e);
+		}
+	}
+
+	private static final class Writer {
+		final Map<String, Integer>		strings	= new LinkedHashMap<>();
+		final ByteBufferOutputStream	body	= new ByteBufferOutputStream();
+		final URI						base;
+
+		Writer(URI base) {
+			this.base = base;
+		}
+
+		void clause(String namespace, Map<String, String> directives, Map<String, Object> attributes) {
+			string(namespace);
+			number(directives.size());
+			directives.forEach((key, value) -> {
+				string(key);
+				string(value);
+			});
+			boolean isContent = ContentNamespace.CONTENT_NAMESPACE.equals(namespace);
+			List<String> typed = new ArrayList<>();
+			attributes.forEach((key, value) -> {
+				if (value == null) {
+					return;
+				}
+				TypedAttribute ta = TypedAttribute.getTypedAttribute(value);
+				if (ta == null) {
+					return;
+				}
+				typed.add(key);
+				typed.add(ta.type);
+				typed.add((isContent && ContentNamespace.CAPABILITY_URL_ATTRIBUTE.equals(key)) ? relativize(ta.value)
+					: ta.value);
+			});
+			number(typed.size() / 3);
+			for (int i = 0; i < typed.size(); i += 3) {
+				string(typed.get(i));
+				String type = typed.get(i + 1);
+				if (type == null) {
+					number(0);
+				} else {
+					number(index(type) + 1);
+				}
+				string(typed.get(i + 2));
+			}
+		}
+
+		private String relativize(String value) {
+			if (base == null) {
+				return value;
+			}
+			try {
+				return base.relativize(new URI(value))
+					.toString();
+			} catch (URISyntaxException e) {
+				return value;
+			}
+		}
+
+		void string(String string) {
+			number(index(Objects.requireNonNull(string)));
+		}
+
+		private int index(String string) {
+			return strings.computeIfAbsent(string, k -> strings.size());
+		}
+
+		void number(int n) {
+			BinaryResourceIndex.number(body, n);
+		}
+	}
+
+	private static final class Reader {
+		final ByteBuffer	bb;
+		final URI			uri;
+		final String[]		strings;
+		final Object[]		values;
+		final int[]			types;
+
+		Reader(ByteBuffer bb, URI uri) {
+			this.bb = bb;
+			this.uri = uri;
+			int size = number(bb);
+			if (size > bb.remaining()) {
+				throw new BufferUnderflowException();
+			}
+			this.strings = new String[size];
+			this.values = new Object[size];
+			this.types = new int[size];
+			for (int i = 0; i < strings.length; i++) {
+				strings[i] = BinaryResourceIndex.string(bb, number(bb));
+			}
+		}
+
+		List<Resource> resources() throws IOException {
+			int size = number(bb);
+			List<Resource> resources = new ArrayList<>(size);
+			for (int r = 0; r < size; r++) {
+				ResourceBuilder rb = new ResourceBuilder();
+				for (int n = number(bb); n > 0; n--) {
+					rb.addCapability(clause());
+				}
+				for (int n = number(bb); n > 0; n--) {
+					rb.addRequirement(clause());
+				}
+				resources.add(rb.build());
+			}
+			if (bb.hasRemaining()) {
+				throw new IOException("Invalid binary index: data after the resources");
+			}
+			return resources;
+		}
+
+		private CapReqBuilder clause() {
+			String namespace = string();
+			CapReqBuilder builder = new CapReqBuilder(namespace);
+			for (int n = number(bb); n > 0; n--) {
+				builder.addDirective(string(), string());
+			}
+			boolean isContent = ContentNamespace.CONTENT_NAMESPACE.equals(namespace);
+			for (int n = number(bb); n > 0; n--) {
+				String name = string();
+				int type = number(bb);
+				int value = number(bb);
+				if (isContent && ContentNamespace.CAPABILITY_URL_ATTRIBUTE.equals(name)) {
+					builder.addAttribute(name, uri.resolve(strings[value])
+						.toString());
+				} else {
+					builder.addAttribute(name, value(type, value));
+				}
+			}
+			return builder;
+		}
+
+		/**
+		 * Convert a value as the XML parser does. Lists are mutable so only
+		 * scalar values are shared.
+		 */
+		private Object value(int type, int value) {
+			if (type == 0) {
+				return strings[value];
+			}
+			if (types[value] == type) {
+				return values[value];
+			}
+			Object converted = Attrs.convert(strings[type - 1], strings[value]);
+			if (!(converted instanceof List)) {
+				values[value] = converted;
+				types[value] = type;
+			}
+			return converted;
+		}
+
+		private String string() {
+			return strings[number(bb)];
+		}
+	}
+
+	private static String string(ByteBuffer bb, int length) {
+		if (length > bb.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		String string;
+		if (bb.hasArray()) {
+			string = new String(bb.array(), bb.arrayOffset() + bb.position(), length, UTF_8);
+			bb.position(bb.position() + length);
+		} else {
+			byte[] bytes = new byte[length];
+			bb.get(bytes);
+			string = new String(bytes, UTF_8);
+		}
+		return string;
+	}
+
+	private static void number(ByteBufferOutputStream out, int n) {
+		while ((n & ~0x7F) != 0) {
+			out.write((n & 0x7F) | 0x80);
+			n >>>= 7;
+		}
+		out.write(n);
+	}
+
+	private static int number(ByteBuffer bb) {
+		int n = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			byte b = bb.get();
+			n |= (b & 0x7F) << shift;
+			if (b >= 0) {
+				if (n < 0) {
+					throw new IllegalArgumentException("number out of range");
+				}
+				return n;
+			}
+		}
+		throw new IllegalArgumentException("number too long");
+	}
+}
@@ -0,0 +1,254 @@
+package aQute.bnd.osgi.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.osgi.namespace.service.ServiceNamespace;
+import org.osgi.resource.Capability;
+import org.osgi.resource.Namespace;
+import org.osgi.resource.Requirement;
+import org.osgi.resource.Resource;
+
+/**
+ * An immutable index of the capabilities of a set of resources.
+ * <p>
+ * The capabilities are grouped by namespace and, within a namespace, by the
+ * value of the primary attribute of the namespace. This is the attribute with
+ * the name of the namespace, like {@code osgi.wiring.package} or
+ * {@code osgi.identity}, or {@code objectClass} for the service namespace. When
+ * the filter of a requirement requires the primary attribute to be equal to a
+ * value, only the capabilities with that value and the capabilities that
+ * cannot be indexed are candidates. Otherwise all capabilities in the
+ * namespace are candidates.
+ * <p>
+ * The candidates are returned in resource order, the order a scan of all the
+ * resources would return them. The candidates must still be matched against
+ * the requirement.
+ */
+class CapabilityIndex {
+	private static final int[]					NONE		= new int[0];
+	private final Map<String, NamespaceIndex>	namespaces	= new HashMap<>();
+
+	CapabilityIndex(Collection<? extends Resource> resources) {
+		Map<String, List<Capability>> capabilities = new HashMap<>();
+		for (Resource resource : resources) {
+			for (Capability capability : resource.getCapabilities(null)) {
+				capabilities.computeIfAbsent(capability.getNamespace(), k -> new ArrayList<>())
+					.add(capability);
+			}
+		}
+		capabilities.forEach((namespace, list) -> namespaces.put(namespace, new NamespaceIndex(namespace, list)));
+	}
+
+	/**
+	 * Return the capabilities that can match the requirement.
+	 *
+	 * @param requirement the requirement
+	 * @return the candidate capabilities in resource order
+	 */
+	Stream<Capability> candidates(Requirement requirement) {
+		NamespaceIndex index = namespaces.get(requirement.getNamespace());
+		if (index == null) {
+			return Stream.empty();
+		}
+		String value = value(requirement.getDirectives()
+			.get(Namespace.REQUIREMENT_FILTER_DIRECTIVE), index.attribute);
+		return index.candidates(value);
+	}
+
+	private static String attribute(String namespace) {
+		return ServiceNamespace.SERVICE_NAMESPACE.equals(namespace) ? ServiceNamespace.CAPABILITY_OBJECTCLASS_ATTRIBUTE
+			: namespace;
+	}
+
+	/**
+	 * Return the value the filter requires the attribute to be equal to. This
+	 * recognizes a filter that is a single {@code (attribute=value)} item or
+	 * an and of filters where one of them is such an item. Anything else, like
+	 * wildcards or escaped characters in the value, returns {@code null}.
+	 *
+	 * @param filter the filter or {@code null}
+	 * @param attribute the name of the attribute
+	 * @return the required value or {@code null}
+	 */
+	static String value(String filter, String attribute) {
+		if (filter == null) {
+			return null;
+		}
+		String f = filter.trim();
+		int length = f.length();
+		if ((length < 2) || (f.charAt(0) != '(') || (f.charAt(length - 1) != ')')) {
+			return null;
+		}
+		if (f.charAt(1) != '&') {
+			return item(f.substring(1, length - 1), attribute);
+		}
+		int i = 2;
+		while (i < length - 1) {
+			char c = f.charAt(i);
+			if (Character.isWhitespace(c)) {
+				i++;
+				continue;
+			}
+			if (c != '(') {
+				return null;
+			}
+			int start = i + 1;
+			int depth = 1;
+			for (i = start; depth > 0; i++) {
+				if (i >= length - 1) {
+					return null;
+				}
+				switch (f.charAt(i)) {
+					case '\\' :
+						i++;
+						break;
+					case '(' :
+						depth++;
+						break;
+					case ')' :
+						depth--;
+						break;
+					default :
+						break;
+				}
+			}
+			String value = item(f.substring(start, i - 1), attribute);
+			if (value != null) {
+				return value;
+			}
+		}
+		return null;
+	}
+
+	private static String item(String item, String attribute) {
+		int eq = item.indexOf('=');
+		if (eq <= 0) {
+			return null;
+		}
+		switch (item.charAt(eq - 1)) {
+			case '~' :
+			case '<' :
+			case '>' :
+				return null;
+			default :
+				break;
+		}
+		if (!item.substring(0, eq)
+			.trim()
+			.equals(attribute)) {
+			return null;
+		}
+		String value = item.substring(eq + 1);
+		if (value.isEmpty()) {
+			return null;
+		}
+		for (int i = 0, length = value.length(); i < length; i++) {
+			switch (value.charAt(i)) {
+				case '*' :
+				case '\\' :
+				case '(' :
+				case ')' :
+					return null;
+				default :
+					break;
+			}
+		}
+		return value;
+	}
+
+	private static class NamespaceIndex {
+		final String				attribute;
+		final Capability[]			capabilities;
+		final Map<String, int[]>	keyed;
+		final int[]					unkeyed;
+
+		NamespaceIndex(String namespace, List<Capability> capabilities) {
+			this.attribute = attribute(namespace);
+			this.capabilities = capabilities.toArray(new Capability[0]);
+			Map<String, List<Integer>> keyed = new HashMap<>();
+			List<Integer> unkeyed = new ArrayList<>();
+			for (int i = 0; i < this.capabilities.length; i++) {
+				Set<String> keys = keys(this.capabilities[i].getAttributes()
+					.get(attribute));
+				if (keys == null) {
+					unkeyed.add(i);
+				} else {
+					for (String key : keys) {
+						keyed.computeIfAbsent(key, k -> new ArrayList<>())
+							.add(i);
+					}
+				}
+			}
+			this.keyed = new HashMap<>(keyed.size() * 4 / 3 + 1);
+			keyed.forEach((key, list) -> this.keyed.put(key, toArray(list)));
+			this.unkeyed = toArray(unkeyed);
+		}
+
+		/**
+		 * Return the string values of the attribute or {@code null} if a
+		 * capability with this value could match a filter that requires a
+		 * different string. Filters compare strings and collections of strings
+		 * exactly, other types are converted.
+		 */
+		private static Set<String> keys(Object value) {
+			if (value instanceof String string) {
+				return Set.of(string);
+			}
+			if (value instanceof Collection<?> collection) {
+				Set<String> keys = new LinkedHashSet<>();
+				for (Object element : collection) {
+					if (!(element instanceof String string)) {
+						return null;
+					}
+					keys.add(string);
+				}
+				return keys;
+			}
+			return null;
+		}
+
+		private static int[] toArray(List<Integer> list) {
+			return list.stream()
+				.mapToInt(Integer::intValue)
+				.toArray();
+		}
+
+		Stream<Capability> candidates(String value) {
+			if (value == null) {
+				return Stream.of(capabilities);
+			}
+			int[] bucket = keyed.getOrDefault(value, NONE);
+			if (unkeyed.length == 0) {
+				return IntStream.of(bucket)
+					.mapToObj(i -> capabilities[i]);
+			}
+			return IntStream.of(merge(bucket, unkeyed))
+				.mapToObj(i -> capabilities[i]);
+		}
+
+		private static int[] merge(int[] a, int[] b) {
+			int[] merged = new int[a.length + b.length];
+			int i = 0;
+			int j = 0;
+			int k = 0;
+			while ((i < a.length) && (j < b.length)) {
+				merged[k++] = (a[i] < b[j]) ? a[i++] : b[j++];
+			}
+			while (i < a.length) {
+				merged[k++] = a[i++];
+			}
+			while (j < b.length) {
+				merged[k++] = b[j++];
+			}
+			return merged;
+		}
+	}
+}
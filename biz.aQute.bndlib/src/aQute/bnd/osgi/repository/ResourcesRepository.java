@@ -24,6 +24,7 @@ import aQute.bnd.service.resource.SupportingResource;
 public class ResourcesRepository extends BaseRepository {
 	private final Set<Resource>									resources;
 	private final Map<String, Predicate<Map<String, Object>>>	cache;
+	private volatile CapabilityIndex							index;
 
 	/**
 	 * Creates a new resources repository with an empty set of resources.
@@ -66,18 +67,35 @@ public class ResourcesRepository extends BaseRepository {
 
 	/**
 	 * Finds the providers of the specified requirement in this repository.
+	 * <p>
+	 * The capabilities are looked up in an index of the capabilities of the
+	 * resources, see {@link CapabilityIndex}, which is built on first use
+	 * after the resources changed. The index is built and invalidated while
+	 * holding the lock of the resources, so a lookup concurrent with a change
+	 * uses the index of the resources either before or after the change.
 	 *
 	 * @param requirement The requirement to find providers for.
 	 * @return A list of capabilities that satisfy the requirement.
 	 */
 	public List<Capability> findProvider(Requirement requirement) {
-		String namespace = requirement.getNamespace();
-		return resources.stream()
-			.flatMap(resource -> ResourceUtils.capabilityStream(resource, namespace))
+		return index().candidates(requirement)
 			.filter(ResourceUtils.matcher(requirement, this::filterPredicate))
 			.collect(ResourceUtils.toCapabilities());
 	}
 
+	private CapabilityIndex index() {
+		CapabilityIndex index = this.index;
+		if (index == null) {
+			synchronized (resources) {
+				index = this.index;
+				if (index == null) {
+					this.index = index = new CapabilityIndex(resources);
+				}
+			}
+		}
+		return index;
+	}
+
 	/**
 	 * Gets the predicate that filters capabilities based on the specified
 	 * filter string.
@@ -100,9 +118,12 @@ public class ResourcesRepository extends BaseRepository {
 	 */
 	public void add(Resource resource) {
 		if (resource != null) {
-			resources.add(resource);
-			if (resource instanceof SupportingResource cr)
-				resources.addAll(cr.getSupportingResources());
+			synchronized (resources) {
+				resources.add(resource);
+				if (resource instanceof SupportingResource cr)
+					resources.addAll(cr.getSupportingResources());
+				index = null;
+			}
 		}
 	}
 
@@ -112,7 +133,9 @@ public class ResourcesRepository extends BaseRepository {
 	 * @param resources The resources to add.
 	 */
 	public void addAll(Collection<? extends Resource> resources) {
-		resources.forEach(this::add);
+		synchronized (this.resources) {
+			resources.forEach(this::add);
+		}
 	}
 
 	/**
@@ -122,8 +145,11 @@ public class ResourcesRepository extends BaseRepository {
 	 * @param resources The resources to set.
 	 */
 	protected void set(Collection<? extends Resource> resources) {
-		this.resources.clear();
-		addAll(resources);
+		synchronized (this.resources) {
+			this.resources.clear();
+			addAll(resources);
+			index = null;
+		}
 	}
 
 	/**
@@ -132,7 +158,9 @@ public class ResourcesRepository extends BaseRepository {
 	 * @return A list of all the resources in this repository.
 	 */
 	public List<Resource> getResources() {
-		return new ArrayList<>(resources);
+		synchronized (resources) {
+			return new ArrayList<>(resources);
+		}
 	}
 
 	/**
@@ -142,7 +170,9 @@ public class ResourcesRepository extends BaseRepository {
 	 * @return true if this resource is already part of this ResourcesRepository
 	 */
 	public boolean contains(Resource resource) {
-		return resources.contains(resource);
+		synchronized (resources) {
+			return resources.contains(resource);
+		}
 	}
 
 	/**
@@ -174,12 +204,14 @@ public class ResourcesRepository extends BaseRepository {
 	 *         input repositories.
 	 */
 	private static ResourcesRepository combiner(ResourcesRepository t, ResourcesRepository u) {
-		t.addAll(u.resources);
+		t.addAll(u.getResources());
 		return t;
 	}
 
 	@Override
 	public String toString() {
-		return resources.toString();
+		synchronized (resources) {
+			return resources.toString();
+		}
 	}
 }
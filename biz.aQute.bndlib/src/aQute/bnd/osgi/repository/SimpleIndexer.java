@@ -70,6 +70,7 @@ public class SimpleIndexer {
 	private final Set<File>	files		= new LinkedHashSet<>();
 	private Path			base;
 	private boolean			compress	= false;
+	private boolean			binary		= false;
 	private String			name;
 	private long			increment	= -1L;
 	private FileAnalyzer	analyzer;
@@ -107,6 +108,15 @@ public class SimpleIndexer {
 		return this;
 	}
 
+	/**
+	 * @param binary also save a binary index next to the index file when true,
+	 *            see {@link XMLResourceGenerator#binary()}
+	 */
+	public SimpleIndexer binary(boolean binary) {
+		this.binary = binary;
+		return this;
+	}
+
 	/**
 	 * @param name an optional name for the index
 	 */
@@ -184,6 +194,9 @@ public class SimpleIndexer {
 		if (compress) {
 			repository.compress();
 		}
+		if (binary) {
+			repository.binary();
+		}
 		return repository;
 	}
 
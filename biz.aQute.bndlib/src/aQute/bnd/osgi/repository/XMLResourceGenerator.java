@@ -26,6 +26,7 @@ import java.io.Writer;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -57,8 +58,10 @@ public class XMLResourceGenerator {
 
 	private Tag				repository	= new Tag(TAG_REPOSITORY);
 	private Set<Resource>	visited		= new HashSet<>();
+	private List<Resource>	resources	= new ArrayList<>();
 	private int				indent		= 0;
 	private boolean			compress	= false;
+	private boolean			binary		= false;
 	private URI				base;
 
 	/**
@@ -70,7 +73,9 @@ public class XMLResourceGenerator {
 	}
 
 	/**
-	 * Saves the contents of this generator to the specified file.
+	 * Saves the contents of this generator to the specified file. If
+	 * {@link #binary()} was called, a binary index of the resources is saved
+	 * next to it, see {@link BinaryResourceIndex#location(File)}.
 	 *
 	 * @param location The file to save the contents to.
 	 * @throws IOException If an I/O error occurs.
@@ -86,6 +91,9 @@ public class XMLResourceGenerator {
 		try (OutputStream out = IO.outputStream(tmp)) {
 			save(out);
 		}
+		if (binary) {
+			BinaryResourceIndex.save(resources, BinaryResourceIndex.location(location), base, null);
+		}
 		IO.rename(tmp, location);
 	}
 
@@ -206,6 +214,7 @@ public class XMLResourceGenerator {
 	}
 
 	void resource0(Resource resource) {
+		resources.add(resource);
 		Tag r = new Tag(repository, TAG_RESOURCE);
 		List<Capability> caps = resource.getCapabilities(null);
 		caps.forEach(cap -> {
@@ -289,6 +298,18 @@ public class XMLResourceGenerator {
 		return this;
 	}
 
+	/**
+	 * Also save a binary index of the resources when saving to a file. Reading
+	 * a binary index is much faster than parsing the XML index, see
+	 * {@link BinaryResourceIndex}. Referrals are not kept in the binary index.
+	 *
+	 * @return This generator.
+	 */
+	public XMLResourceGenerator binary() {
+		this.binary = true;
+		return this;
+	}
+
 	/**
 	 * @param base the base URI from which the index urls are relative
 	 */
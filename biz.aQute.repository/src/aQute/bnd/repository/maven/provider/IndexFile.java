@@ -1,5 +1,6 @@
 package aQute.bnd.repository.maven.provider;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.stream.Collectors.toCollection;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
@@ -8,6 +9,8 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Formatter;
@@ -52,6 +55,7 @@ import aQute.bnd.version.Version;
 import aQute.lib.io.IO;
 import aQute.lib.strings.Strings;
 import aQute.lib.zip.ZipUtil;
+import aQute.libg.cryptography.SHA256;
 import aQute.maven.api.Archive;
 import aQute.maven.api.IMavenRepo;
 import aQute.maven.api.Program;
@@ -84,6 +88,7 @@ class IndexFile {
 	private volatile long						lastModified;
 	private long								last		= 0L;
 	private volatile Memoize<BridgeRepository>	bridge;
+	private volatile Memoize<byte[]>			digest;
 	private volatile Promise<Boolean>			updateSerializer;
 
 	private String								status;
@@ -103,6 +108,7 @@ class IndexFile {
 		this.multi = multi;
 		this.updateSerializer = promiseFactory.resolved(Boolean.TRUE);
 		this.bridge = Memoize.supplier(BridgeRepository::new);
+		this.digest = Memoize.supplier(() -> digest(Collections.emptySet()));
 	}
 
 	/*
@@ -282,6 +288,8 @@ class IndexFile {
 				// snapshot archive resources
 				ResourcesRepository resourcesRepository = new ResourcesRepository(archives.values());
 				bridge = Memoize.supplier(() -> new BridgeRepository(resourcesRepository));
+				Set<Archive> snapshot = new HashSet<>(archives.keySet());
+				digest = Memoize.supplier(() -> digest(snapshot));
 				return Boolean.TRUE;
 			});
 	}
@@ -484,6 +492,35 @@ class IndexFile {
 		return bridge.get();
 	}
 
+	/**
+	 * Return the digest of the archives and the length and modification time
+	 * of their local files. It is calculated once after the archives changed.
+	 *
+	 * @return the digest or {@code null} if an archive has no local file, for
+	 *         example when it could not be downloaded
+	 */
+	byte[] getDigest() {
+		sync(updateSerializer);
+		return digest.get();
+	}
+
+	private byte[] digest(Set<Archive> archives) {
+		try {
+			MessageDigest md = MessageDigest.getInstance(SHA256.ALGORITHM);
+			for (Archive archive : new TreeSet<>(archives)) {
+				File file = repo.toLocalFile(archive);
+				if (!file.isFile()) {
+					return null;
+				}
+				md.update((archive + ":" + file.length() + ":" + file.lastModified()).getBytes(UTF_8));
+				md.update((byte) 0);
+			}
+			return md.digest();
+		} catch (NoSuchAlgorithmException e) {
+			throw Exceptions.duck(e);
+		}
+	}
+
 	/*
 	 * Create a resource with error information
 	 */
@@ -73,6 +73,7 @@ import aQute.bnd.service.clipboard.Clipboard;
 import aQute.bnd.service.maven.PomOptions;
 import aQute.bnd.service.maven.ToDependencyPom;
 import aQute.bnd.service.release.ReleaseBracketingPlugin;
+import aQute.bnd.service.repository.RepositoryDigest;
 import aQute.bnd.unmodifiable.Sets;
 import aQute.bnd.util.repository.DownloadListenerPromise;
 import aQute.bnd.version.Version;
@@ -98,7 +99,7 @@ import aQute.service.reporter.Reporter;
  */
 @BndPlugin(name = "MavenBndRepository", parameters = Configuration.class)
 public class MavenBndRepository extends BaseRepository implements RepositoryPlugin, RegistryPlugin, Plugin, Closeable,
-	Refreshable, Actionable, ToDependencyPom, ReleaseBracketingPlugin {
+	Refreshable, Actionable, ToDependencyPom, ReleaseBracketingPlugin, RepositoryDigest {
 	final static Pattern						PREPROCESS_P		= Pattern.compile("\\{\\s*(?<core>[^}]+)\\s*\\}");
 
 	private final static Logger					logger				= LoggerFactory.getLogger(MavenBndRepository.class);
@@ -994,6 +995,18 @@ public class MavenBndRepository extends BaseRepository implements RepositoryPlug
 			.findProviders(requirements);
 	}
 
+	/**
+	 * Return the digest of the archives in the index. It changes when the
+	 * archives change or their local files are downloaded again.
+	 */
+	@Override
+	public byte[] getDigest() {
+		if (!init()) {
+			return null;
+		}
+		return index.getDigest();
+	}
+
 	@Override
 	public void begin(Project project) {
 		releasePlugin = new ReleasePluginImpl(this, project);
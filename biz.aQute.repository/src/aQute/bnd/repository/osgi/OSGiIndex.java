@@ -1,5 +1,6 @@
 package aQute.bnd.repository.osgi;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.stream.Collectors.toList;
 
 import java.io.BufferedInputStream;
@@ -8,11 +9,15 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -28,6 +33,8 @@ import org.slf4j.LoggerFactory;
 
 import aQute.bnd.http.HttpClient;
 import aQute.bnd.http.HttpRequest;
+import aQute.bnd.memoize.Memoize;
+import aQute.bnd.osgi.repository.BinaryResourceIndex;
 import aQute.bnd.osgi.repository.BridgeRepository;
 import aQute.bnd.osgi.repository.ResourcesRepository;
 import aQute.bnd.osgi.repository.XMLResourceParser;
@@ -41,6 +48,7 @@ import aQute.libg.cryptography.SHA256;
 
 class OSGiIndex {
 	private final static Logger				logger	= LoggerFactory.getLogger(OSGiIndex.class);
+	private final static int				DEPTH	= 100;
 	private final Promise<BridgeRepository>	repository;
 	private final HttpClient				client;
 	private final PromiseFactory			promiseFactory;
@@ -48,6 +56,9 @@ class OSGiIndex {
 	private final File						cache;
 	private final String					name;
 	private final List<URI>					uris;
+	private final Map<URI, File>			indexes	= new ConcurrentHashMap<>();
+	private final Memoize<byte[]>			digest	= Memoize.supplier(this::digest);
+	private volatile boolean				referrals;
 	private volatile String					status;
 
 	OSGiIndex(String name, HttpClient client, File cache, List<URI> uris, int staleTime, boolean refresh)
@@ -100,36 +111,71 @@ class OSGiIndex {
 					this.status = "Not Found " + uri;
 					return Collections.emptyList();
 				}
-				// file could be xml, gzipped xml, OR zip with index.xml or
-				// index.xml.gz entry
-				try (InputStream in = new BufferedInputStream(IO.stream(file))) {
-					in.mark(2);
-					int magic = readUnsignedShort(in);
-					in.reset();
-					if (magic == 0x504b) { // "PK" means a zip file
-						try (ZipInputStream zin = new ZipInputStream(in)) {
-							for (ZipEntry entry; (entry = zin.getNextEntry()) != null;) {
-								switch (entry.getName()) {
-									case "index.xml" :
-									case "index.xml.gz" :
-										try (XMLResourceParser xrp = new XMLResourceParser(zin, name, uri)) {
-											return xrp.parse();
-										}
-									default :
-										break;
-								}
-							}
-							logger.debug("{}: No index.xml or index.xml.gz entry found in zip file {}", name, uri);
-							return Collections.emptyList();
+				indexes.put(uri, file);
+				// a binary copy of the parsed index is kept in the cache since
+				// reading it is much faster than parsing the index. Indexes
+				// with referrals are not kept since the referred indexes can
+				// change independently.
+				File binary = IO.getFile(cache, "index-" + SHA256.digest(uri.toString()
+					.getBytes(UTF_8))
+					.asHex() + ".bin");
+				String source = file.length() + ":" + file.lastModified();
+				if (binary.isFile()) {
+					try {
+						List<Resource> resources = BinaryResourceIndex.read(binary, uri, source);
+						if (resources != null) {
+							return resources;
 						}
+					} catch (IOException e) {
+						logger.debug("{}: Could not read the binary index {} for {}", name, binary, uri, e);
 					}
-					try (XMLResourceParser xrp = new XMLResourceParser(in, name, uri)) {
-						return xrp.parse();
+				}
+				Set<URI> referrals = new HashSet<>();
+				List<Resource> resources = parse(file, uri, referrals);
+				if (!referrals.isEmpty()) {
+					this.referrals = true;
+				}
+				if ((resources != null) && referrals.isEmpty()) {
+					try {
+						BinaryResourceIndex.save(resources, binary, null, source);
+					} catch (IOException e) {
+						logger.debug("{}: Could not save the binary index {} for {}", name, binary, uri, e);
 					}
 				}
+				return resources;
 			});
 	}
 
+	private List<Resource> parse(File file, URI uri, Set<URI> referrals) throws Exception {
+		// file could be xml, gzipped xml, OR zip with index.xml or
+		// index.xml.gz entry
+		try (InputStream in = new BufferedInputStream(IO.stream(file))) {
+			in.mark(2);
+			int magic = readUnsignedShort(in);
+			in.reset();
+			if (magic == 0x504b) { // "PK" means a zip file
+				try (ZipInputStream zin = new ZipInputStream(in)) {
+					for (ZipEntry entry; (entry = zin.getNextEntry()) != null;) {
+						switch (entry.getName()) {
+							case "index.xml" :
+							case "index.xml.gz" :
+								try (XMLResourceParser xrp = new XMLResourceParser(zin, name, DEPTH, referrals, uri)) {
+									return xrp.parse();
+								}
+							default :
+								break;
+						}
+					}
+					logger.debug("{}: No index.xml or index.xml.gz entry found in zip file {}", name, uri);
+					return Collections.emptyList();
+				}
+			}
+			try (XMLResourceParser xrp = new XMLResourceParser(in, name, DEPTH, referrals, uri)) {
+				return xrp.parse();
+			}
+		}
+	}
+
 	private static final int readUnsignedShort(InputStream in) throws IOException {
 		int b1 = in.read();
 		int b2 = in.read();
@@ -211,6 +257,41 @@ class OSGiIndex {
 		return cache;
 	}
 
+	/**
+	 * Return the digest of the index files, which is calculated once per
+	 * index. The referred indexes of an index are not part of its file, so
+	 * there is no digest when an index has referrals.
+	 *
+	 * @return the digest or {@code null}
+	 */
+	byte[] getDigest() throws Exception {
+		getBridge(); // wait for the indexes
+		return digest.get();
+	}
+
+	private byte[] digest() {
+		if (referrals) {
+			return null;
+		}
+		try {
+			MessageDigest md = MessageDigest.getInstance(SHA256.ALGORITHM);
+			for (URI uri : getURIs()) {
+				md.update(uri.toString()
+					.getBytes(UTF_8));
+				File file = indexes.get(uri);
+				if (file != null) {
+					md.update(SHA256.digest(file)
+						.digest());
+				}
+				md.update((byte) 0);
+			}
+			return md.digest();
+		} catch (Exception e) {
+			logger.debug("{}: Could not calculate the digest of the indexes", name, e);
+			return null;
+		}
+	}
+
 	/**
 	 * Check any of the URL indexes are stale.
 	 *
@@ -41,6 +41,7 @@ import aQute.bnd.service.RegistryPlugin;
 import aQute.bnd.service.RepositoryListenerPlugin;
 import aQute.bnd.service.RepositoryPlugin;
 import aQute.bnd.service.repository.Prepare;
+import aQute.bnd.service.repository.RepositoryDigest;
 import aQute.bnd.util.repository.DownloadListenerPromise;
 import aQute.bnd.version.Version;
 import aQute.lib.converter.Converter;
@@ -51,7 +52,7 @@ import aQute.service.reporter.Reporter;
 
 @BndPlugin(name = "OSGiRepository", parameters = OSGiRepository.Config.class)
 public class OSGiRepository extends BaseRepository
-	implements Plugin, RepositoryPlugin, Actionable, Refreshable, RegistryPlugin, Prepare, Closeable {
+	implements Plugin, RepositoryPlugin, Actionable, Refreshable, RegistryPlugin, Prepare, Closeable, RepositoryDigest {
 	private final static Logger	logger				= LoggerFactory.getLogger(OSGiRepository.class);
 	final static int			YEAR				= 365 * 24 * 60 * 60;
 	static int					DEFAULT_POLL_TIME	= (int) TimeUnit.MINUTES.toSeconds(5);
@@ -297,6 +298,20 @@ public class OSGiRepository extends BaseRepository
 		return getIndex().getCache();
 	}
 
+	/**
+	 * Return the digest of the index files. A refresh reads the indexes again
+	 * and so calculates a new digest.
+	 */
+	@Override
+	public byte[] getDigest() {
+		try {
+			return getIndex().getDigest();
+		} catch (Exception e) {
+			logger.debug("{}: Could not calculate the digest", getName(), e);
+			return null;
+		}
+	}
+
 	@Override
 	public void setProperties(Map<String, String> map) throws Exception {
 		config = Converter.cnv(Config.class, map);
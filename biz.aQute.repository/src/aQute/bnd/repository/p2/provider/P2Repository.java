@@ -164,11 +164,11 @@ public class P2Repository extends BaseRepository
 				Map<String, Runnable> menu = new LinkedHashMap<>();
 				menu.put("Refresh from " + p2Index.url, () -> {
 					try {
-						workspace.writeLocked(() -> {
+						workspace.writeLocked(this, () -> {
 							p2Index.reread();
-							workspace.refresh();
 							return null;
 						});
+						workspace.refresh();
 					} catch (Exception e) {
 						throw Exceptions.duck(e);
 					}
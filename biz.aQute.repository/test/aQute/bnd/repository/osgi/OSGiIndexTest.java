@@ -2,6 +2,7 @@ package aQute.bnd.repository.osgi;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.File;
 import java.net.URI;
@@ -84,6 +85,46 @@ public class OSGiIndexTest {
 		assertEquals(1, versions.size());
 	}
 
+	@Test
+	public void testBinaryIndexCache() throws Exception {
+		HttpClient client = new HttpClient();
+		client.setCache(tmp);
+		List<URI> uris = Collections.singletonList(IO.getFile("testdata/repo7/index.xml")
+			.toURI());
+		OSGiIndex oi = new OSGiIndex("name", client, cache, uris, 0, false);
+		List<String> list = oi.getBridge()
+			.list(null);
+		File[] binaries = cache.listFiles((dir, name) -> name.startsWith("index-") && name.endsWith(".bin"));
+		assertNotNull(binaries);
+		assertEquals(1, binaries.length);
+
+		oi = new OSGiIndex("name", client, cache, uris, 0, false);
+		assertEquals(list, oi.getBridge()
+			.list(null));
+
+		IO.store("garbage", binaries[0]);
+		oi = new OSGiIndex("name", client, cache, uris, 0, false);
+		assertEquals(list, oi.getBridge()
+			.list(null));
+		assertTrue(binaries[0].length() > 7);
+	}
+
+	@Test
+	public void testNoBinaryIndexCacheWithReferrals() throws Exception {
+		HttpClient client = new HttpClient();
+		client.setCache(tmp);
+		OSGiIndex oi = new OSGiIndex("name", client, cache,
+			Collections.singletonList(IO.getFile("testdata/repo7/index-aggregate.xml")
+				.toURI()),
+			0, false);
+		assertEquals(9, oi.getBridge()
+			.list("org.eclipse.*")
+			.size());
+		File[] binaries = cache.listFiles((dir, name) -> name.endsWith(".bin"));
+		assertNotNull(binaries);
+		assertEquals(0, binaries.length);
+	}
+
 	public OSGiIndex getIndex(HttpClient client) throws Exception, URISyntaxException {
 		return new OSGiIndex("name", client, cache, Collections.singletonList(
 			new URI("https://raw.githubusercontent.com/osgi/osgi.enroute/v1.0.0/cnf/distro/index.xml")), 0, false);
@@ -89,8 +89,12 @@ public abstract class AbstractResolveContext extends ResolveContext {
 	protected final LogService						log;
 	private final CapabilityIndex					systemCapabilityIndex					= new CapabilityIndex();
 	private final List<Repository>					repositories							= new ArrayList<>();
-	private final List<Requirement>					failed									= new ArrayList<>();
-	private final Map<CacheKey, List<Capability>>	providerCache							= new HashMap<>();
+	private final List<Requirement>					failed									= Collections
+		.synchronizedList(new ArrayList<>());
+	private final Map<CacheKey, List<Capability>>	providerCache							= new ConcurrentHashMap<>();
+	private final Map<Requirement, CacheKey>		cacheKeys								= new ConcurrentHashMap<>();
+	private volatile ProviderCache					sharedProviderCache;
+	private volatile ResolutionStatistics			statistics;
 	private final Set<Resource>						optionalRoots							= new HashSet<>();
 	private final ConcurrentMap<Resource, Integer>	resourcePriorities						= new ConcurrentHashMap<>();
 	private Map<String, Set<String>>				effectiveSet							= new HashMap<>();
@@ -100,7 +104,7 @@ public abstract class AbstractResolveContext extends ResolveContext {
 	private Resource								systemResource;
 	private Resource								inputResource;
 	private Set<Resource>							blacklistedResources					= new HashSet<>();
-	private final Set<Capability>					blacklistedCapabilities					= new HashSet<>();
+	private final Set<Capability>					blacklistedCapabilities					= ConcurrentHashMap.newKeySet();
 	private int										level									= 0;
 	private Resource								framework;
 	private final AtomicBoolean						reported								= new AtomicBoolean();
@@ -134,10 +138,15 @@ public abstract class AbstractResolveContext extends ResolveContext {
 	@Override
 	public List<Capability> findProviders(Requirement requirement) {
 		initAndReport();
+		ResolutionStatistics statistics = this.statistics;
+		long start = (statistics != null) ? System.nanoTime() : 0L;
 		List<Capability> result = findProviders0(requirement);
 		if (result.isEmpty()) {
 			failed.add(requirement);
 		}
+		if (statistics != null) {
+			statistics.findProviders(requirement, result.size(), System.nanoTime() - start);
+		}
 		return result;
 	}
 
@@ -194,7 +203,13 @@ public abstract class AbstractResolveContext extends ResolveContext {
 	}
 
 	private List<Capability> findProviders0(Requirement requirement) {
-		List<Capability> cached = providerCache.computeIfAbsent(getCacheKey(requirement), k -> {
+		CacheKey key = cacheKeys.computeIfAbsent(requirement, AbstractResolveContext::getCacheKey);
+		List<Capability> cached = providerCache.get(key);
+		ResolutionStatistics statistics = this.statistics;
+		if (statistics != null) {
+			statistics.cache(cached != null);
+		}
+		if (cached == null) {
 			// First stage: framework and self-capabilities. This should never
 			// be reordered by preferences or resolver
 			// hooks
@@ -230,8 +245,11 @@ public abstract class AbstractResolveContext extends ResolveContext {
 					.sorted(capabilityComparator)
 					.forEach(result::add);
 			}
-			return result;
-		});
+			// Computed outside the map since finding providers can be
+			// expensive and may be done concurrently by the resolver
+			List<Capability> previous = providerCache.putIfAbsent(key, result);
+			cached = (previous != null) ? previous : result;
+		}
 		List<Capability> capabilities = new ArrayList<>(cached);
 		log.log(LogService.LOG_DEBUG, "for " + requirement + " found " + capabilities);
 		return capabilities;
@@ -284,8 +302,19 @@ public abstract class AbstractResolveContext extends ResolveContext {
 	 *         that are skipped.
 	 */
 	protected Collection<Capability> findProviders(Repository repo, Requirement requirement) {
-		Map<Requirement, Collection<Capability>> map = repo.findProviders(Collections.singleton(requirement));
-		Collection<Capability> caps = map.get(requirement);
+		ProviderCache shared = sharedProviderCache;
+		ResolutionStatistics statistics = this.statistics;
+		long start = (statistics != null) ? System.nanoTime() : 0L;
+		Collection<Capability> caps;
+		if (shared != null) {
+			caps = shared.findProviders(repo, requirement, statistics);
+		} else {
+			Map<Requirement, Collection<Capability>> map = repo.findProviders(Collections.singleton(requirement));
+			caps = map.get(requirement);
+		}
+		if (statistics != null) {
+			statistics.repository(System.nanoTime() - start);
+		}
 		caps.removeIf(capability -> isBlacklisted(capability));
 		return caps;
 	}
@@ -322,6 +351,21 @@ public abstract class AbstractResolveContext extends ResolveContext {
 		return repositories;
 	}
 
+	/**
+	 * Use a provider cache that can be shared with other resolve contexts that
+	 * resolve against the same repositories.
+	 *
+	 * @param providerCache the shared cache or {@code null} to always ask the
+	 *            repositories
+	 */
+	public void setProviderCache(ProviderCache providerCache) {
+		this.sharedProviderCache = providerCache;
+	}
+
+	public ProviderCache getProviderCache() {
+		return sharedProviderCache;
+	}
+
 	public List<Requirement> getFailed() {
 		return failed;
 	}
@@ -522,6 +566,21 @@ public abstract class AbstractResolveContext extends ResolveContext {
 
 	public void addCallbacks(Collection<ResolutionCallback> callbacks) {
 		this.callbacks.addAll(callbacks);
+		for (ResolutionCallback callback : callbacks) {
+			if (callback instanceof ResolutionStatistics s) {
+				statistics = s;
+			}
+		}
+	}
+
+	/**
+	 * Return the statistics that are collected for this context.
+	 *
+	 * @return the statistics or {@code null} if the resolve is not
+	 *         instrumented
+	 */
+	public ResolutionStatistics getStatistics() {
+		return statistics;
 	}
 
 	public static Requirement createIdentityRequirement(String identity, String versionRange) {
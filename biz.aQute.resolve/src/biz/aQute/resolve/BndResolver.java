@@ -17,18 +17,34 @@ import aQute.bnd.osgi.Processor;
 
 public class BndResolver implements Resolver {
 
-	private final Resolver resolver;
+	private final Logger	logger;
+	private final Resolver	resolver;
 
 	public BndResolver(ResolverLogger logger) {
 		this(new InternalResolverLogger(logger));
 	}
 
 	public BndResolver(Logger logger) {
+		this.logger = logger;
 		resolver = new ResolverImpl(logger, Processor.getExecutor());
 	}
 
 	@Override
 	public Map<Resource, List<Wire>> resolve(ResolveContext resolveContext) throws ResolutionException {
+		if (resolveContext instanceof AbstractResolveContext context) {
+			ResolutionStatistics statistics = context.getStatistics();
+			if (statistics != null) {
+				// a resolver per resolve so its permutations can be counted
+				Resolver counting = new ResolverImpl(new StatisticsResolverLogger(logger, statistics),
+					Processor.getExecutor());
+				ResolutionStatistics.Phase phase = statistics.phase("resolver");
+				try {
+					return counting.resolve(resolveContext);
+				} finally {
+					phase.close();
+				}
+			}
+		}
 		return resolver.resolve(resolveContext);
 	}
 
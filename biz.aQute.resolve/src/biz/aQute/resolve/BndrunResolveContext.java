@@ -56,6 +56,8 @@ import aQute.bnd.service.Registry;
 import aQute.bnd.service.RepositoryPlugin;
 import aQute.bnd.service.Strategy;
 import aQute.bnd.service.resolve.hook.ResolverHook;
+import aQute.bnd.version.Version;
+import aQute.bnd.version.VersionRange;
 import aQute.lib.converter.Converter;
 import aQute.lib.strings.Strings;
 import aQute.lib.utf8properties.UTF8Properties;
@@ -81,6 +83,7 @@ public class BndrunResolveContext extends AbstractResolveContext {
 	private Project						project;
 	private boolean						initialized;
 	private volatile List<ResolverHook>	resolverHooks;
+	private Map<String, List<String>>	previous;
 
 	/**
 	 * The preferred constructor
@@ -130,6 +133,10 @@ public class BndrunResolveContext extends AbstractResolveContext {
 
 			loadPreferences();
 
+			if (getProviderCache() == null) {
+				setProviderCache(registry.getPlugin(ProviderCache.class));
+			}
+
 			Processor augments = loadRepositories();
 
 			constructBlacklist(augments);
@@ -503,6 +510,40 @@ public class BndrunResolveContext extends AbstractResolveContext {
 		}
 	}
 
+	/**
+	 * Restrict the candidates for a requirement to the resources of a previous
+	 * resolution when any of them can provide it. The resolver then only has
+	 * to search for the requirements that the previous resolution does not
+	 * cover, the other requirements are wired as before. A resource is part of
+	 * the previous resolution when its bsn is in the run bundles and its
+	 * version is in the range of the run bundle. A run bundle without a range,
+	 * for example a {@code snapshot} version, matches all versions.
+	 *
+	 * @param runbundles the run bundles of the previous resolution
+	 */
+	void setPrevious(Parameters runbundles) {
+		Map<String, List<String>> previous = new HashMap<>();
+		runbundles.forEach((key, attrs) -> previous
+			.computeIfAbsent(Processor.removeDuplicateMarker(key), k -> new ArrayList<>())
+			.add(attrs.getVersion()));
+		this.previous = previous;
+	}
+
+	private boolean isPrevious(Resource resource) {
+		List<String> ranges = previous.get(getResourceIdentity(resource));
+		if (ranges == null) {
+			return false;
+		}
+		org.osgi.framework.Version version = getResourceVersion(resource);
+		for (String range : ranges) {
+			if ((range == null) || (version == null) || !VersionRange.isVersionRange(range)
+				|| new VersionRange(range).includes(new Version(version.toString()))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	private void loadPreferences() {
 		resolvePrefs = new Parameters(properties.getProperty(Constants.RESOLVE_PREFERENCES), project);
 	}
@@ -526,6 +567,12 @@ public class BndrunResolveContext extends AbstractResolveContext {
 			resolverHook.filterMatches(requirement, candidates);
 		}
 
+		// Keep the providers of the previous resolution
+		if ((previous != null) && candidates.stream()
+			.anyMatch(capability -> isPrevious(capability.getResource()))) {
+			candidates.removeIf(capability -> !isPrevious(capability.getResource()));
+		}
+
 		// Process the resolve preferences
 		boolean prefsUsed = false;
 
@@ -0,0 +1,267 @@
+package biz.aQute.resolve;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.osgi.resource.Capability;
+import org.osgi.resource.Requirement;
+import org.osgi.service.repository.Repository;
+
+import aQute.bnd.osgi.Jar;
+import aQute.bnd.service.RepositoryListenerPlugin;
+import aQute.bnd.service.RepositoryPlugin;
+
+/**
+ * A thread safe, size bounded cache of the providers a repository returns for
+ * a requirement.
+ * <p>
+ * The answer of a repository does not depend on the resolve context that asks
+ * for it, so a single cache can be shared by all resolve contexts that resolve
+ * against the same repositories, for example all bndruns in a workspace. A
+ * resolve context picks up a cache that is registered as a plugin or that is
+ * set with {@link AbstractResolveContext#setProviderCache(ProviderCache)}.
+ * Entries are kept per repository and keyed by the namespace, directives and
+ * attributes of the requirement, the resource that declares the requirement
+ * is not part of the key. The blacklist and other context specific filtering
+ * is applied by the resolve context on the copy that is returned.
+ * <p>
+ * Repositories and requirements are only weakly referenced. A repository that
+ * is discarded, for example when the workspace is refreshed and its
+ * repository plugins are created again, is not kept alive by the cache and
+ * its entries are not used again. The key of a requirement is calculated once
+ * per requirement instance.
+ * <p>
+ * When the cache holds more than its maximum size, the oldest entries are
+ * evicted. When registered as a plugin, the entries of a repository are
+ * removed when the workspace reports that the repository changed. Otherwise
+ * {@link #invalidate(Repository)} or {@link #clear()} must be called when the
+ * content of a repository changes.
+ */
+public class ProviderCache implements RepositoryListenerPlugin {
+	public final static int										DEFAULT_MAXIMUM_SIZE	= 10_000;
+
+	private final int											maximumSize;
+	private final Map<Repository, Map<Key, List<Capability>>>	repositories			= Collections
+		.synchronizedMap(new WeakHashMap<>());
+	private final Map<Requirement, Key>							keys					= Collections
+		.synchronizedMap(new WeakHashMap<>());
+	private final Queue<Entry>									order					= new ConcurrentLinkedQueue<>();
+	private final AtomicInteger									size					= new AtomicInteger();
+	private final LongAdder										hits					= new LongAdder();
+	private final LongAdder										misses					= new LongAdder();
+	private final LongAdder										evictions				= new LongAdder();
+
+	/**
+	 * Create a cache holding at most {@link #DEFAULT_MAXIMUM_SIZE} entries.
+	 */
+	public ProviderCache() {
+		this(DEFAULT_MAXIMUM_SIZE);
+	}
+
+	/**
+	 * Create a cache holding at most the given number of entries.
+	 *
+	 * @param maximumSize the maximum number of entries, must be positive
+	 */
+	public ProviderCache(int maximumSize) {
+		if (maximumSize <= 0)
+			throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+		this.maximumSize = maximumSize;
+	}
+
+	/**
+	 * Return the providers of the repository for the requirement. The
+	 * repository is only asked when the answer is not cached.
+	 *
+	 * @param repository the repository
+	 * @param requirement the requirement
+	 * @return a modifiable copy of the providers
+	 */
+	public Collection<Capability> findProviders(Repository repository, Requirement requirement) {
+		return findProviders(repository, requirement, null);
+	}
+
+	Collection<Capability> findProviders(Repository repository, Requirement requirement,
+		ResolutionStatistics statistics) {
+		Map<Key, List<Capability>> cache = repositories.computeIfAbsent(repository, r -> new ConcurrentHashMap<>());
+		Key key = keys.computeIfAbsent(requirement, Key::new);
+		List<Capability> providers = cache.get(key);
+		if (statistics != null) {
+			statistics.sharedCache(providers != null);
+		}
+		if (providers != null) {
+			hits.increment();
+			return new ArrayList<>(providers);
+		}
+		misses.increment();
+		Collection<Capability> found = repository.findProviders(Collections.singleton(requirement))
+			.get(requirement);
+		providers = (found == null) ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(found));
+		List<Capability> previous = cache.putIfAbsent(key, providers);
+		if (previous != null) {
+			providers = previous;
+		} else if (repositories.get(repository) == cache) {
+			size.incrementAndGet();
+			order.add(new Entry(cache, key));
+			evict();
+		} else {
+			// invalidated while asking the repository
+			cache.remove(key);
+		}
+		return new ArrayList<>(providers);
+	}
+
+	private void evict() {
+		while (size.get() > maximumSize) {
+			Entry eldest = order.poll();
+			if (eldest == null)
+				return;
+			if (eldest.providers()
+				.remove(eldest.key()) != null) {
+				size.decrementAndGet();
+				evictions.increment();
+			}
+		}
+	}
+
+	/**
+	 * Remove the entries of a repository, for example because its content
+	 * changed. The statistics are kept.
+	 *
+	 * @param repository the repository
+	 */
+	public void invalidate(Repository repository) {
+		Map<Key, List<Capability>> providers = repositories.remove(repository);
+		if (providers != null) {
+			size.addAndGet(-drain(providers));
+			order.removeIf(entry -> entry.providers() == providers);
+		}
+	}
+
+	/**
+	 * Remove all entries. The statistics are kept.
+	 */
+	public void clear() {
+		List<Map<Key, List<Capability>>> all;
+		synchronized (repositories) {
+			all = new ArrayList<>(repositories.values());
+			repositories.clear();
+		}
+		for (Map<Key, List<Capability>> providers : all) {
+			size.addAndGet(-drain(providers));
+		}
+		order.clear();
+	}
+
+	@Override
+	public void bundleAdded(RepositoryPlugin repository, Jar jar, File file) {
+		invalidate(repository);
+	}
+
+	@Override
+	public void bundleRemoved(RepositoryPlugin repository, Jar jar, File file) {
+		invalidate(repository);
+	}
+
+	@Override
+	public void repositoryRefreshed(RepositoryPlugin repository) {
+		invalidate(repository);
+	}
+
+	@Override
+	public void repositoriesRefreshed() {
+		clear();
+	}
+
+	public int size() {
+		return size.get();
+	}
+
+	public int getMaximumSize() {
+		return maximumSize;
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "ProviderCache [size=" + size() + ", maximumSize=" + maximumSize + ", hits=" + getHits() + ", misses="
+			+ getMisses() + ", evictions=" + getEvictions() + "]";
+	}
+
+	private void invalidate(RepositoryPlugin repository) {
+		if (repository instanceof Repository r) {
+			invalidate(r);
+		} else {
+			clear();
+		}
+	}
+
+	/**
+	 * Remove the entries of a repository and return how many were removed.
+	 */
+	private static int drain(Map<Key, List<Capability>> providers) {
+		int n = 0;
+		for (Key key : providers.keySet()) {
+			if (providers.remove(key) != null)
+				n++;
+		}
+		return n;
+	}
+
+	private record Entry(Map<Key, List<Capability>> providers, Key key) {}
+
+	/**
+	 * The key of a requirement. It does not reference the requirement so that
+	 * the requirement can be collected.
+	 */
+	private static final class Key {
+		final String				namespace;
+		final Map<String, String>	directives;
+		final Map<String, Object>	attributes;
+		final int					hashcode;
+
+		Key(Requirement requirement) {
+			this.namespace = requirement.getNamespace();
+			this.directives = requirement.getDirectives();
+			this.attributes = requirement.getAttributes();
+			this.hashcode = Objects.hash(namespace, directives, attributes);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashcode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Key other))
+				return false;
+			return (hashcode == other.hashcode) && Objects.equals(namespace, other.namespace)
+				&& Objects.equals(directives, other.directives) && Objects.equals(attributes, other.attributes);
+		}
+	}
+}
@@ -0,0 +1,391 @@
+package biz.aQute.resolve;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.osgi.resource.Capability;
+import org.osgi.resource.Requirement;
+import org.osgi.resource.Resource;
+import org.osgi.resource.Wire;
+import org.osgi.service.repository.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import aQute.bnd.build.Container;
+import aQute.bnd.build.Project;
+import aQute.bnd.build.Workspace;
+import aQute.bnd.osgi.Constants;
+import aQute.bnd.osgi.Processor;
+import aQute.bnd.osgi.repository.BinaryResourceIndex;
+import aQute.bnd.osgi.repository.WorkspaceRepositoryMarker;
+import aQute.bnd.osgi.resource.ResourceUtils;
+import aQute.bnd.osgi.resource.WireImpl;
+import aQute.bnd.service.RepositoryPlugin;
+import aQute.bnd.service.Strategy;
+import aQute.bnd.service.repository.RepositoryDigest;
+import aQute.bnd.service.resource.SupportingResource;
+import aQute.lib.hex.Hex;
+import aQute.lib.io.IO;
+
+/**
+ * A cache of complete resolutions, shared by all resolves in a workspace.
+ * <p>
+ * A resolution is stored under a key that is the digest of everything that
+ * goes into a resolve: the resolve instructions, like {@code -runrequires},
+ * {@code -runee}, {@code -runfw} and {@code -runblacklist}, the files of the
+ * {@code -runpath} and {@code -distro} bundles, and the digests of the
+ * repositories the resolve can consult. The key is calculated from the
+ * properties without setting up a resolve context. A repository that
+ * implements {@link RepositoryDigest}, like the OSGi and Maven repositories,
+ * provides its own digest. The digest of the workspace projects is calculated
+ * from their build files. For other repositories the digest is calculated
+ * from the capabilities and requirements of all their resources. When any of
+ * these change, the key changes and the resolve runs again. A cached
+ * resolution holds the required and the optional wiring so it can be used
+ * wherever a resolution is used.
+ * <p>
+ * Resolutions that failed are not cached.
+ */
+class ResolutionCache {
+	private final static Logger	logger		= LoggerFactory.getLogger(ResolutionCache.class);
+
+	private static final int	MAGIC		= 0x42525743;		// BRWC
+	private static final int	FORMAT		= 1;
+
+	private static final String	DIRECTORY	= "resolutions/wirings/";
+
+	/**
+	 * The instructions that are read by the resolve context.
+	 */
+	private static final List<String>	INSTRUCTIONS	= List.of(Constants.RUNREQUIRES, Constants.RUNEE,
+		Constants.RUNFW, Constants.RUNBLACKLIST, Constants.RUNSYSTEMPACKAGES, Constants.RUNSYSTEMCAPABILITIES,
+		Constants.RUNPROVIDEDCAPABILITIES, Constants.RUNPATH, Constants.RUNREPOS, Constants.DISTRO, Constants.AUGMENT,
+		Constants.RESOLVE_EFFECTIVE, Constants.RESOLVE_PREFERENCES, Constants.RESOLVE_REJECT,
+		Constants.RESOLVE_EXCLUDESYSTEM, Constants.RESOLVE_INCREMENTAL);
+
+	private final File			file;
+
+	private ResolutionCache(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Create the cache entry for a resolve.
+	 *
+	 * @param project the project that resolves
+	 * @param properties the properties used for resolving
+	 * @return the cache entry or {@code null} if the resolve cannot be cached
+	 */
+	static ResolutionCache create(Project project, Processor properties) {
+		try {
+			MessageDigest md = MessageDigest.getInstance("SHA-256");
+			update(md, "format");
+			update(md, Integer.toString(FORMAT));
+			for (String instruction : INSTRUCTIONS) {
+				update(md, instruction);
+				update(md, properties.mergeProperties(instruction));
+			}
+			// an incremental resolve starts from the current run bundles
+			if (properties.is(Constants.RESOLVE_INCREMENTAL)) {
+				update(md, Constants.RUNBUNDLES);
+				update(md, properties.mergeProperties(Constants.RUNBUNDLES));
+			}
+			// the system resource gets the capabilities of these bundles
+			for (String instruction : List.of(Constants.RUNPATH, Constants.DISTRO)) {
+				String path = properties.mergeProperties(instruction);
+				if (path != null) {
+					for (Container container : Container
+						.flatten(project.getBundles(Strategy.HIGHEST, path, instruction))) {
+						update(md, file(container.getFile()));
+					}
+				}
+			}
+			if (project.isStandalone()) {
+				for (Repository repository : project.getPlugins(Repository.class, Constants.REPOTAGS_RESOLVE)) {
+					update(md, digest(repository));
+				}
+			} else {
+				Workspace workspace = project.getWorkspace();
+				for (Repository repository : workspace.getPlugins(Repository.class, Constants.REPOTAGS_RESOLVE)) {
+					if (!(repository instanceof WorkspaceRepositoryMarker)) {
+						update(md, digest(repository));
+					}
+				}
+				update(md, digest(workspace));
+			}
+			String key = Hex.toHexString(md.digest());
+			return new ResolutionCache(project.getWorkspace()
+				.getCache(DIRECTORY + key));
+		} catch (Exception e) {
+			logger.debug("{} cannot calculate the resolution cache key {}", project, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Read the cached resolution.
+	 *
+	 * @param project the project that resolves
+	 * @param properties the properties used for resolving
+	 * @param log the log of the resolve
+	 * @return the resolution or {@code null} if there is no cached resolution
+	 */
+	RunResolution get(Project project, Processor properties, String log) {
+		if (!file.isFile()) {
+			return null;
+		}
+		try {
+			ByteBuffer bb = IO.read(file.toPath());
+			if ((bb.remaining() < 9) || (bb.getInt() != MAGIC) || (bb.get() != FORMAT)) {
+				return null;
+			}
+			int length = bb.getInt();
+			ByteBuffer index = bb.slice();
+			index.limit(length);
+			bb.position(bb.position() + length);
+			List<Resource> resources = BinaryResourceIndex.read(index, file.toURI(), null);
+			if (resources == null) {
+				return null;
+			}
+			Map<Resource, List<Wire>> required = wiring(bb, resources);
+			Map<Resource, List<Wire>> optional = wiring(bb, resources);
+			logger.debug("{} read the resolution from the cache {}", project, file);
+			return new RunResolution(project, properties, required, optional, log);
+		} catch (Exception e) {
+			logger.warn("{} exception in reading the resolution cache {}, ignoring", project, e);
+			IO.delete(file);
+			return null;
+		}
+	}
+
+	/**
+	 * Store a resolution. Nothing is stored when a wire does not refer to the
+	 * capabilities and requirements of its resources.
+	 *
+	 * @param required the required wiring
+	 * @param optional the optional wiring
+	 */
+	void put(Map<Resource, List<Wire>> required, Map<Resource, List<Wire>> optional) {
+		Map<Resource, Integer> index = new IdentityHashMap<>();
+		List<Resource> resources = new ArrayList<>();
+		for (Map<Resource, List<Wire>> wiring : List.of(required, optional)) {
+			wiring.forEach((resource, wires) -> {
+				add(resource, index, resources);
+				if (wires != null) {
+					for (Wire wire : wires) {
+						add(wire.getRequirement()
+							.getResource(), index, resources);
+						add(wire.getCapability()
+							.getResource(), index, resources);
+					}
+				}
+			});
+		}
+		try {
+			ByteArrayOutputStream wirings = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(wirings);
+			if (!wiring(out, required, index) || !wiring(out, optional, index)) {
+				logger.debug("resolution cannot be cached {}", file);
+				return;
+			}
+			ByteArrayOutputStream resourceIndex = new ByteArrayOutputStream();
+			BinaryResourceIndex.write(resources, resourceIndex, null, null);
+
+			IO.mkdirs(file.getParentFile());
+			File tmp = IO.createTempFile(file.getParentFile(), "resolution", ".bin");
+			try (OutputStream fout = IO.outputStream(tmp); DataOutputStream dout = new DataOutputStream(fout)) {
+				dout.writeInt(MAGIC);
+				dout.writeByte(FORMAT);
+				dout.writeInt(resourceIndex.size());
+				resourceIndex.writeTo(dout);
+				wirings.writeTo(dout);
+			} catch (IOException | RuntimeException e) {
+				IO.delete(tmp);
+				throw e;
+			}
+			IO.rename(tmp, file);
+		} catch (Exception e) {
+			logger.warn("exception in writing the resolution cache {}, ignoring", file, e);
+		}
+	}
+
+	/*
+	 * Add a resource and its supporting resources in the order the binary
+	 * index writes them
+	 */
+	private static void add(Resource resource, Map<Resource, Integer> index, List<Resource> resources) {
+		if (index.putIfAbsent(resource, resources.size()) == null) {
+			resources.add(resource);
+			if (resource instanceof SupportingResource s) {
+				for (Resource supporting : s.getSupportingResources()) {
+					if (index.putIfAbsent(supporting, resources.size()) == null) {
+						resources.add(supporting);
+					}
+				}
+			}
+		}
+	}
+
+	private static boolean wiring(DataOutputStream out, Map<Resource, List<Wire>> wiring,
+		Map<Resource, Integer> index) throws IOException {
+		out.writeInt(wiring.size());
+		for (Map.Entry<Resource, List<Wire>> entry : wiring.entrySet()) {
+			out.writeInt(index.get(entry.getKey()));
+			List<Wire> wires = entry.getValue();
+			if (wires == null) {
+				out.writeInt(-1);
+				continue;
+			}
+			out.writeInt(wires.size());
+			for (Wire wire : wires) {
+				Requirement requirement = wire.getRequirement();
+				Capability capability = wire.getCapability();
+				Resource requirer = requirement.getResource();
+				Resource provider = capability.getResource();
+				if ((wire.getRequirer() != requirer) || (wire.getProvider() != provider)) {
+					return false;
+				}
+				int r = indexOf(requirer.getRequirements(null), requirement);
+				int c = indexOf(provider.getCapabilities(null), capability);
+				if ((r < 0) || (c < 0)) {
+					return false;
+				}
+				out.writeInt(index.get(requirer));
+				out.writeInt(r);
+				out.writeInt(index.get(provider));
+				out.writeInt(c);
+			}
+		}
+		return true;
+	}
+
+	private static Map<Resource, List<Wire>> wiring(ByteBuffer bb, List<Resource> resources) throws IOException {
+		try {
+			int size = bb.getInt();
+			Map<Resource, List<Wire>> wiring = new LinkedHashMap<>();
+			for (int i = 0; i < size; i++) {
+				Resource resource = resources.get(bb.getInt());
+				int n = bb.getInt();
+				if (n < 0) {
+					wiring.put(resource, null);
+					continue;
+				}
+				List<Wire> wires = new ArrayList<>(n);
+				for (int w = 0; w < n; w++) {
+					Requirement requirement = resources.get(bb.getInt())
+						.getRequirements(null)
+						.get(bb.getInt());
+					Capability capability = resources.get(bb.getInt())
+						.getCapabilities(null)
+						.get(bb.getInt());
+					wires.add(new WireImpl(capability, requirement));
+				}
+				wiring.put(resource, wires);
+			}
+			return wiring;
+		} catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+			throw new IOException("Invalid resolution cache: " + e, e);
+		}
+	}
+
+	private static <T> int indexOf(List<T> list, T element) {
+		for (int i = 0; i < list.size(); i++) {
+			if (list.get(i) == element) {
+				return i;
+			}
+		}
+		return list.indexOf(element);
+	}
+
+	private static String digest(Repository repository) throws Exception {
+		if (repository instanceof RepositoryDigest repositoryDigest) {
+			byte[] digest = repositoryDigest.getDigest();
+			if (digest != null) {
+				return Hex.toHexString(digest);
+			}
+		}
+		List<String> digests = new ArrayList<>();
+		for (Resource resource : ResourceUtils.getAllResources(repository)) {
+			digests.add(digest(resource));
+		}
+		Collections.sort(digests);
+		MessageDigest md = MessageDigest.getInstance("SHA-256");
+		update(md, (repository instanceof RepositoryPlugin plugin) ? plugin.getName() : repository.toString());
+		for (String digest : digests) {
+			update(md, digest);
+		}
+		return Hex.toHexString(md.digest());
+	}
+
+	/*
+	 * The workspace projects are used through a WorkspaceResourcesRepository,
+	 * which indexes the files listed in the build files of the projects
+	 */
+	private static String digest(Workspace workspace) throws Exception {
+		MessageDigest md = MessageDigest.getInstance("SHA-256");
+		for (Project project : workspace.getAllProjects()) {
+			File target = project.getTargetDir();
+			File buildfiles = new File(target, Constants.BUILDFILES);
+			if (buildfiles.isFile()) {
+				update(md, project.getName());
+				try (BufferedReader reader = IO.reader(buildfiles)) {
+					for (String line; (line = reader.readLine()) != null;) {
+						update(md, file(IO.getFile(target, line.trim())));
+					}
+				}
+			}
+		}
+		return Hex.toHexString(md.digest());
+	}
+
+	private static String file(File file) {
+		if ((file == null) || !file.isFile()) {
+			return String.valueOf(file);
+		}
+		return IO.absolutePath(file) + ":" + file.length() + ":" + file.lastModified();
+	}
+
+	private static String digest(Resource resource) throws Exception {
+		MessageDigest md = MessageDigest.getInstance("SHA-256");
+		if (resource != null) {
+			for (Capability capability : resource.getCapabilities(null)) {
+				update(md, capability.getNamespace(), capability.getDirectives(), capability.getAttributes());
+			}
+			update(md, "");
+			for (Requirement requirement : resource.getRequirements(null)) {
+				update(md, requirement.getNamespace(), requirement.getDirectives(), requirement.getAttributes());
+			}
+		}
+		return Hex.toHexString(md.digest());
+	}
+
+	private static void update(MessageDigest md, String namespace, Map<String, String> directives,
+		Map<String, Object> attributes) {
+		update(md, namespace);
+		update(md, new TreeMap<>(directives).toString());
+		update(md, new TreeMap<>(attributes).toString());
+	}
+
+	private static void update(MessageDigest md, String s) {
+		if (s != null) {
+			md.update(s.getBytes(UTF_8));
+		}
+		md.update((byte) 0);
+	}
+}
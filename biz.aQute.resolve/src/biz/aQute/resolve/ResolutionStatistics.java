@@ -0,0 +1,272 @@
+package biz.aQute.resolve;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Formatter;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.osgi.resource.Capability;
+import org.osgi.resource.Requirement;
+
+import aQute.bnd.exceptions.Exceptions;
+import aQute.lib.json.JSONCodec;
+
+/**
+ * Collects statistics about a resolve: the wall and CPU time of its phases,
+ * the number of calls to find the providers of a requirement and the time
+ * spent in them and in the repositories, the hit rates of the provider
+ * caches, the number of candidates per requirement, and the number of
+ * candidate permutations the resolver tried.
+ * <p>
+ * A resolve is instrumented by adding an instance to its
+ * {@link ResolutionCallback}s. The same instance can be used for several
+ * resolves, the statistics are then accumulated. All methods are thread safe
+ * since the resolver finds providers concurrently.
+ * <p>
+ * The CPU time of a phase is the CPU time of the thread that ran the phase,
+ * work the resolver does on other threads is only included in the wall time.
+ */
+public class ResolutionStatistics implements ResolutionCallback {
+	private final static JSONCodec				JSON_CODEC			= new JSONCodec();
+	private final static ThreadMXBean			threads				= ManagementFactory.getThreadMXBean();
+	private final static int					TOP					= 20;
+
+	private final Map<String, PhaseDTO>			phases				= new TreeMap<>();
+	private final Map<Requirement, Integer>		candidates			= new ConcurrentHashMap<>();
+	private final LongAdder						findProvidersCalls	= new LongAdder();
+	private final LongAdder						findProvidersNanos	= new LongAdder();
+	private final LongAdder						repositoryQueries	= new LongAdder();
+	private final LongAdder						repositoryNanos		= new LongAdder();
+	private final LongAdder						cacheHits			= new LongAdder();
+	private final LongAdder						cacheMisses			= new LongAdder();
+	private final LongAdder						sharedCacheHits		= new LongAdder();
+	private final LongAdder						sharedCacheMisses	= new LongAdder();
+	private final LongAdder						permutations		= new LongAdder();
+	private final LongAdder						usesViolations		= new LongAdder();
+
+	public static class PhaseDTO {
+		public String	name;
+		public long		count;
+		public long		wallNanos;
+		public long		cpuNanos;
+	}
+
+	public static class CandidatesDTO {
+		public String	requirement;
+		public String	resource;
+		public int		candidates;
+	}
+
+	public static class StatisticsDTO {
+		public List<PhaseDTO>		phases;
+		public long					findProvidersCalls;
+		public long					findProvidersNanos;
+		public long					repositoryQueries;
+		public long					repositoryNanos;
+		public long					cacheHits;
+		public long					cacheMisses;
+		public long					sharedCacheHits;
+		public long					sharedCacheMisses;
+		public long					failedPermutations;
+		public long					usesConstraintViolations;
+		public int					requirements;
+		public long					totalCandidates;
+		public int					maxCandidates;
+		public List<CandidatesDTO>	topCandidates;
+	}
+
+	/**
+	 * Measures a phase of the resolve until it is closed.
+	 */
+	public final class Phase implements AutoCloseable {
+		private final String	name;
+		private final long		wall;
+		private final long		cpu;
+
+		Phase(String name) {
+			this.name = name;
+			this.wall = System.nanoTime();
+			this.cpu = cpuTime();
+		}
+
+		@Override
+		public void close() {
+			long wallNanos = System.nanoTime() - wall;
+			long cpuNanos = cpuTime() - cpu;
+			synchronized (phases) {
+				PhaseDTO phase = phases.computeIfAbsent(name, k -> {
+					PhaseDTO dto = new PhaseDTO();
+					dto.name = k;
+					return dto;
+				});
+				phase.count++;
+				phase.wallNanos += wallNanos;
+				phase.cpuNanos += cpuNanos;
+			}
+		}
+	}
+
+	/**
+	 * Start measuring a phase. Phases with the same name are accumulated.
+	 *
+	 * @param name the name of the phase
+	 * @return the phase, closing it ends the measurement
+	 */
+	public Phase phase(String name) {
+		return new Phase(name);
+	}
+
+	/**
+	 * The candidates are recorded by the resolve context when it returns them
+	 * to the resolver, this callback does not change them.
+	 */
+	@Override
+	public void processCandidates(Requirement requirement, Set<Capability> wired, List<Capability> candidates) {}
+
+	void findProviders(Requirement requirement, int count, long nanos) {
+		findProvidersCalls.increment();
+		findProvidersNanos.add(nanos);
+		candidates.put(requirement, count);
+	}
+
+	void repository(long nanos) {
+		repositoryQueries.increment();
+		repositoryNanos.add(nanos);
+	}
+
+	void cache(boolean hit) {
+		(hit ? cacheHits : cacheMisses).increment();
+	}
+
+	void sharedCache(boolean hit) {
+		(hit ? sharedCacheHits : sharedCacheMisses).increment();
+	}
+
+	void failedPermutation() {
+		permutations.increment();
+	}
+
+	void usesConstraintViolation() {
+		usesViolations.increment();
+	}
+
+	/**
+	 * Return a snapshot of the statistics.
+	 *
+	 * @return the statistics
+	 */
+	public StatisticsDTO getStatistics() {
+		StatisticsDTO dto = new StatisticsDTO();
+		dto.phases = new ArrayList<>();
+		synchronized (phases) {
+			for (PhaseDTO phase : phases.values()) {
+				PhaseDTO copy = new PhaseDTO();
+				copy.name = phase.name;
+				copy.count = phase.count;
+				copy.wallNanos = phase.wallNanos;
+				copy.cpuNanos = phase.cpuNanos;
+				dto.phases.add(copy);
+			}
+		}
+		dto.findProvidersCalls = findProvidersCalls.sum();
+		dto.findProvidersNanos = findProvidersNanos.sum();
+		dto.repositoryQueries = repositoryQueries.sum();
+		dto.repositoryNanos = repositoryNanos.sum();
+		dto.cacheHits = cacheHits.sum();
+		dto.cacheMisses = cacheMisses.sum();
+		dto.sharedCacheHits = sharedCacheHits.sum();
+		dto.sharedCacheMisses = sharedCacheMisses.sum();
+		dto.failedPermutations = permutations.sum();
+		dto.usesConstraintViolations = usesViolations.sum();
+		dto.topCandidates = new ArrayList<>();
+		candidates.forEach((requirement, count) -> {
+			dto.requirements++;
+			dto.totalCandidates += count;
+			dto.maxCandidates = Math.max(dto.maxCandidates, count);
+		});
+		candidates.entrySet()
+			.stream()
+			.sorted(Map.Entry.<Requirement, Integer> comparingByValue()
+				.reversed())
+			.limit(TOP)
+			.forEachOrdered(e -> {
+				CandidatesDTO c = new CandidatesDTO();
+				c.requirement = e.getKey()
+					.toString();
+				c.resource = String.valueOf(e.getKey()
+					.getResource());
+				c.candidates = e.getValue();
+				dto.topCandidates.add(c);
+			});
+		return dto;
+	}
+
+	/**
+	 * Return the statistics as JSON.
+	 *
+	 * @return the JSON report
+	 */
+	public String toJSON() {
+		try {
+			return JSON_CODEC.enc()
+				.indent("  ")
+				.put(getStatistics())
+				.toString();
+		} catch (Exception e) {
+			throw Exceptions.duck(e);
+		}
+	}
+
+	/**
+	 * Return a human readable report of the statistics.
+	 *
+	 * @return the report
+	 */
+	public String report() {
+		StatisticsDTO dto = getStatistics();
+		try (Formatter f = new Formatter()) {
+			f.format("%-30s %8s %10s %10s%n", "Phase", "Count", "Wall ms", "CPU ms");
+			for (PhaseDTO phase : dto.phases) {
+				f.format("%-30s %8d %10d %10d%n", phase.name, phase.count, millis(phase.wallNanos),
+					millis(phase.cpuNanos));
+			}
+			f.format("%n");
+			f.format("%-30s %8d %10d%n", "findProviders", dto.findProvidersCalls, millis(dto.findProvidersNanos));
+			f.format("%-30s %8d %10d%n", "repository queries", dto.repositoryQueries, millis(dto.repositoryNanos));
+			f.format("%-30s %8d/%d%n", "cache hits/misses", dto.cacheHits, dto.cacheMisses);
+			f.format("%-30s %8d/%d%n", "shared cache hits/misses", dto.sharedCacheHits, dto.sharedCacheMisses);
+			f.format("%-30s %8d%n", "failed permutations", dto.failedPermutations);
+			f.format("%-30s %8d%n", "uses constraint violations", dto.usesConstraintViolations);
+			f.format("%-30s %8d%n", "requirements", dto.requirements);
+			f.format("%-30s %8d%n", "candidates", dto.totalCandidates);
+			f.format("%-30s %8d%n", "max candidates", dto.maxCandidates);
+			if (!dto.topCandidates.isEmpty()) {
+				f.format("%nRequirements with most candidates%n");
+				for (CandidatesDTO c : dto.topCandidates) {
+					f.format("%8d %s from %s%n", c.candidates, c.requirement, c.resource);
+				}
+			}
+			return f.toString();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return report();
+	}
+
+	private static long millis(long nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+
+	private static long cpuTime() {
+		return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : 0L;
+	}
+}
@@ -37,6 +37,7 @@ import org.osgi.service.resolver.Resolver;
 
 import aQute.bnd.build.Project;
 import aQute.bnd.build.model.BndEditModel;
+import aQute.bnd.header.Parameters;
 import aQute.bnd.osgi.Constants;
 import aQute.bnd.osgi.Processor;
 import aQute.bnd.osgi.resource.CapReqBuilder;
@@ -47,6 +48,7 @@ import aQute.bnd.osgi.resource.FilterParser.PackageExpression;
 import aQute.bnd.osgi.resource.ResourceUtils;
 import aQute.bnd.osgi.resource.WireImpl;
 import aQute.bnd.service.Registry;
+import aQute.lib.io.IO;
 import aQute.lib.strings.Strings;
 import aQute.libg.generics.Create;
 import aQute.libg.tuple.Pair;
@@ -75,11 +77,38 @@ public class ResolveProcess {
 
 	public Map<Resource, List<Wire>> resolveRequired(Processor properties, Project project, Registry plugins,
 		Resolver resolver, Collection<ResolutionCallback> callbacks, LogService log) throws ResolutionException {
+		if (properties.is(Constants.RESOLVE_INCREMENTAL)) {
+			Parameters previous = new Parameters(properties.mergeProperties(Constants.RUNBUNDLES), project);
+			if (!previous.isEmpty()) {
+				try {
+					return resolveRequired(properties, project, plugins, resolver, callbacks, log, previous);
+				} catch (ResolutionException re) {
+					log.log(LogService.LOG_INFO,
+						"Incremental resolve failed, resolving without the previous resolution: " + re.getMessage());
+				}
+			}
+		}
+		return resolveRequired(properties, project, plugins, resolver, callbacks, log, null);
+	}
+
+	private Map<Resource, List<Wire>> resolveRequired(Processor properties, Project project, Registry plugins,
+		Resolver resolver, Collection<ResolutionCallback> callbacks, LogService log, Parameters previous)
+		throws ResolutionException {
 		required = new HashMap<>();
 		optional = new HashMap<>();
 
 		BndrunResolveContext rc = new BndrunResolveContext(properties, project, plugins, log);
+		if (previous != null) {
+			rc.setPrevious(previous);
+		}
 		rc.addCallbacks(callbacks);
+		ResolutionStatistics statistics = rc.getStatistics();
+		ResolutionStatistics.Phase initialInit = phase(statistics, "initial.init");
+		try {
+			rc.init();
+		} finally {
+			IO.close(initialInit);
+		}
 		// 1. Resolve initial requirements
 		Map<Resource, List<Wire>> wirings;
 		try {
@@ -186,7 +215,16 @@ public class ResolveProcess {
 
 		};
 
+		if (previous != null) {
+			rc2.setPrevious(previous);
+		}
 		rc2.addCallbacks(callbacks);
+		ResolutionStatistics.Phase runbundlesInit = phase(statistics, "runbundles.init");
+		try {
+			rc2.init();
+		} finally {
+			IO.close(runbundlesInit);
+		}
 		try {
 			wirings = resolver.resolve(rc2);
 		} catch (ResolutionException re) {
@@ -200,10 +238,19 @@ public class ResolveProcess {
 		if (Processor.isTrue(properties.getProperty(Constants.RESOLVE_EXCLUDESYSTEM, "true")))
 			removeFrameworkAndInputResources(result, rc2);
 		required.putAll(result);
-		optional = tidyUpOptional(wirings, discoveredOptional, log);
+		ResolutionStatistics.Phase optionalTidyup = phase(statistics, "optional.tidyup");
+		try {
+			optional = tidyUpOptional(wirings, discoveredOptional, log);
+		} finally {
+			IO.close(optionalTidyup);
+		}
 		return result;
 	}
 
+	private static ResolutionStatistics.Phase phase(ResolutionStatistics statistics, String name) {
+		return (statistics != null) ? statistics.phase(name) : null;
+	}
+
 	/*
 	 * The Felix resolver reports an initial resource as unresolved if one of
 	 * its requirements cannot be found, even though it is in the repo. This
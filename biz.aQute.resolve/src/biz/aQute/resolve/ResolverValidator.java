@@ -15,6 +15,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import org.osgi.resource.Capability;
@@ -48,6 +53,8 @@ public class ResolverValidator extends Processor {
 	Resolver					resolver		= new BndResolver(reporter);
 	List<URI>					repositories	= new ArrayList<>();
 	Resource					system			= null;
+	int							parallelism		= 1;
+	final ProviderCache			providerCache	= new ProviderCache();
 
 	public enum ResolutionType {
 		OK,
@@ -82,6 +89,16 @@ public class ResolverValidator extends Processor {
 		this.system = resource;
 	}
 
+	/**
+	 * Set the number of resources that are resolved concurrently. The default
+	 * is 1, the resources are then resolved one after another.
+	 *
+	 * @param parallelism the maximum number of concurrent resolves
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+	}
+
 	public List<Resolution> validate() throws Exception {
 		try (OSGiRepository repository = new OSGiRepository(); HttpClient httpClient = new HttpClient()) {
 			Map<String, String> map = new HashMap<>();
@@ -110,19 +127,23 @@ public class ResolverValidator extends Processor {
 	public List<Resolution> validateResources(Repository repository, Collection<Resource> resources) throws Exception {
 		setProperty("-runfw", "dummy");
 		setProperty("-runprovidedcapabilities.extra", "${native_capability}");
-		List<Resolution> result = new ArrayList<>();
-		List<Resource> resourceList = new ArrayList<>(resources);
-
-		while (!resourceList.isEmpty()) {
-			Resource resource = resourceList.remove(0);
-			Resolution resolution = resolve(repository, resource);
-			result.add(resolution);
-			for (Resource resolved : resolution.resolved) {
-				if (resourceList.remove(resolved)) {
-					Resolution curResolution = new Resolution();
-					curResolution.resource = resolved;
-					curResolution.type = ResolutionType.OK;
-					result.add(curResolution);
+		// all resolves ask the same repository so they share its answers
+		providerCache.clear();
+		List<Resolution> result;
+		if ((parallelism > 1) && (resources.size() > 1)) {
+			result = resolveConcurrently(repository, resources);
+		} else {
+			result = new ArrayList<>();
+			List<Resource> resourceList = new ArrayList<>(resources);
+
+			while (!resourceList.isEmpty()) {
+				Resource resource = resourceList.remove(0);
+				Resolution resolution = resolve(repository, resource);
+				result.add(resolution);
+				for (Resource resolved : resolution.resolved) {
+					if (resourceList.remove(resolved)) {
+						result.add(resolved(resolved));
+					}
 				}
 			}
 		}
@@ -142,6 +163,65 @@ public class ResolverValidator extends Processor {
 		return result;
 	}
 
+	/*
+	 * Resolve the resources on a bounded number of workers. The workers share
+	 * a single index of the repository. A resource that is part of an earlier
+	 * resolution is not resolved again, this is the same shortcut as the
+	 * sequential validation takes. The resolutions are returned in the order
+	 * of the resources.
+	 */
+	private List<Resolution> resolveConcurrently(Repository repository, Collection<Resource> resources)
+		throws Exception {
+		Repository shared = (repository instanceof ResourcesRepository) ? repository
+			: new ResourcesRepository(getAllResources(repository));
+		getAllResources(shared); // build the index before fanning out
+
+		List<Resource> resourceList = new ArrayList<>(resources);
+		Resolution[] resolutions = new Resolution[resourceList.size()];
+		Set<Resource> covered = ConcurrentHashMap.newKeySet();
+		AtomicInteger next = new AtomicInteger();
+		AtomicReference<Exception> failure = new AtomicReference<>();
+		Runnable worker = () -> {
+			for (int i; (failure.get() == null) && ((i = next.getAndIncrement()) < resolutions.length);) {
+				Resource resource = resourceList.get(i);
+				if (covered.contains(resource)) {
+					continue;
+				}
+				try {
+					Resolution resolution = resolve(shared, resource);
+					covered.addAll(resolution.resolved);
+					resolutions[i] = resolution;
+				} catch (Exception e) {
+					failure.compareAndSet(null, e);
+				}
+			}
+		};
+		Executor executor = getExecutor();
+		CompletableFuture<?>[] workers = new CompletableFuture<?>[Math.min(parallelism, resolutions.length) - 1];
+		for (int i = 0; i < workers.length; i++) {
+			workers[i] = CompletableFuture.runAsync(worker, executor);
+		}
+		worker.run();
+		CompletableFuture.allOf(workers)
+			.join();
+		if (failure.get() != null) {
+			throw failure.get();
+		}
+
+		List<Resolution> result = new ArrayList<>(resolutions.length);
+		for (int i = 0; i < resolutions.length; i++) {
+			result.add((resolutions[i] != null) ? resolutions[i] : resolved(resourceList.get(i)));
+		}
+		return result;
+	}
+
+	private static Resolution resolved(Resource resource) {
+		Resolution resolution = new Resolution();
+		resolution.resource = resource;
+		resolution.type = ResolutionType.OK;
+		return resolution;
+	}
+
 	public static Set<Resource> getAllResources(Repository repository) {
 		Requirement r = createWildcardRequirement();
 
@@ -150,13 +230,14 @@ public class ResolverValidator extends Processor {
 		return resources;
 	}
 
-	private BndrunResolveContext getResolveContext() throws Exception {
-		BndrunResolveContext context = new BndrunResolveContext(this, null, this, reporter) {
+	private BndrunResolveContext getResolveContext(Processor properties) throws Exception {
+		BndrunResolveContext context = new BndrunResolveContext(properties, null, this, reporter) {
 			@Override
 			void loadFramework(ResourceBuilder systemBuilder) throws Exception {
 				systemBuilder.addCapabilities(system.getCapabilities(null));
 			}
 		};
+		context.setProviderCache(providerCache);
 		return context;
 	}
 
@@ -169,9 +250,11 @@ public class ResolverValidator extends Processor {
 		Resolution resolution = new Resolution();
 
 		Requirement identity = getIdentity(resource);
-		setProperty("-runrequires", ResourceUtils.toRequireCapability(identity));
+		// the requirement is set per resolve so resolves can run concurrently
+		Processor properties = new Processor(this);
+		properties.setProperty("-runrequires", ResourceUtils.toRequireCapability(identity));
 
-		BndrunResolveContext context = getResolveContext();
+		BndrunResolveContext context = getResolveContext(properties);
 
 		context.addRepository(repository);
 		context.init();
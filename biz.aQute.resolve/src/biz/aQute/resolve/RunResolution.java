@@ -113,9 +113,22 @@ public class RunResolution {
 			: resolverLogger;
 		try {
 			try {
+				// callbacks can change the outcome so they disable the cache
+				ResolutionCache cache = callbacks.isEmpty() && actualProperties.is(Constants.RESOLVE_CACHE)
+					? ResolutionCache.create(project, actualProperties)
+					: null;
+				if (cache != null) {
+					RunResolution cached = cache.get(project, actualProperties, logger.getLog());
+					if (cached != null) {
+						return cached;
+					}
+				}
 				ResolveProcess resolve = new ResolveProcess();
 				Resolver resolver = new BndResolver(logger);
 				resolve.resolveRequired(actualProperties, project, project, resolver, callbacks, logger);
+				if (cache != null) {
+					cache.put(resolve.getRequiredWiring(), resolve.getOptionalWiring());
+				}
 				return new RunResolution(project, actualProperties, resolve.getRequiredWiring(),
 					resolve.getOptionalWiring(), logger.getLog());
 			} catch (ResolutionException e) {
@@ -0,0 +1,39 @@
+package biz.aQute.resolve;
+
+import org.apache.felix.resolver.Logger;
+import org.apache.felix.resolver.ResolutionError;
+import org.osgi.resource.Resource;
+
+/**
+ * Counts the failed candidate permutations and uses constraint violations the
+ * Felix resolver reports and passes all messages on to the logger of the
+ * resolve. The resolver only reports failed permutations at debug level so
+ * this logger always enables debug, the logger it passes on to still applies
+ * its own level.
+ */
+class StatisticsResolverLogger extends Logger {
+	private final static String			FAILED_PERMUTATION	= "Candidate permutation failed";
+
+	private final Logger				logger;
+	private final ResolutionStatistics	statistics;
+
+	StatisticsResolverLogger(Logger logger, ResolutionStatistics statistics) {
+		super(LOG_DEBUG);
+		this.logger = logger;
+		this.statistics = statistics;
+	}
+
+	@Override
+	protected void doLog(int level, String msg, Throwable throwable) {
+		if ((msg != null) && msg.startsWith(FAILED_PERMUTATION)) {
+			statistics.failedPermutation();
+		}
+		logger.log(level, msg, throwable);
+	}
+
+	@Override
+	public void logUsesConstraintViolation(Resource resource, ResolutionError error) {
+		statistics.usesConstraintViolation();
+		logger.logUsesConstraintViolation(resource, error);
+	}
+}
@@ -0,0 +1,127 @@
+package biz.aQute.resolve;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.osgi.resource.Capability;
+import org.osgi.resource.Requirement;
+import org.osgi.resource.Resource;
+
+import aQute.bnd.build.model.EE;
+import aQute.bnd.build.model.OSGI_CORE;
+import aQute.bnd.osgi.repository.ResourcesRepository;
+import aQute.bnd.osgi.repository.XMLResourceParser;
+import aQute.bnd.osgi.resource.CapReqBuilder;
+import aQute.bnd.osgi.resource.ResourceBuilder;
+import aQute.lib.io.IO;
+import biz.aQute.resolve.ResolverValidator.Resolution;
+
+public class ProviderCacheTest {
+
+	private static ResourcesRepository repository() throws Exception {
+		List<Resource> resources = XMLResourceParser.getResources(IO.getFile("testdata/repo1.index.xml")
+			.toURI());
+		return new ResourcesRepository(resources);
+	}
+
+	private static Requirement packageRequirement(String name) throws Exception {
+		return CapReqBuilder.createPackageRequirement(name, null)
+			.buildSyntheticRequirement();
+	}
+
+	@Test
+	public void testHitsAndMisses() throws Exception {
+		ResourcesRepository repository = repository();
+		Requirement requirement = packageRequirement("org.apache.felix.gogo.api");
+		Collection<Capability> expected = repository.findProviders(Collections.singleton(requirement))
+			.get(requirement);
+		assertThat(expected).isNotEmpty();
+
+		ProviderCache cache = new ProviderCache();
+		Collection<Capability> first = cache.findProviders(repository, requirement);
+		assertThat(first).containsExactlyElementsOf(expected);
+		assertThat(cache.getMisses()).isEqualTo(1);
+		assertThat(cache.getHits()).isZero();
+
+		// the copy handed out can be filtered without affecting the cache
+		first.clear();
+
+		// an equal requirement is a hit
+		Collection<Capability> second = cache.findProviders(repository,
+			packageRequirement("org.apache.felix.gogo.api"));
+		assertThat(second).containsExactlyElementsOf(expected);
+		assertThat(cache.getMisses()).isEqualTo(1);
+		assertThat(cache.getHits()).isEqualTo(1);
+
+		// another repository is not a hit
+		cache.findProviders(repository(), requirement);
+		assertThat(cache.getMisses()).isEqualTo(2);
+		assertThat(cache.size()).isEqualTo(2);
+
+		cache.clear();
+		assertThat(cache.size()).isZero();
+	}
+
+	@Test
+	public void testEviction() throws Exception {
+		ResourcesRepository repository = repository();
+		ProviderCache cache = new ProviderCache(2);
+		cache.findProviders(repository, packageRequirement("org.apache.felix.gogo.api"));
+		cache.findProviders(repository, packageRequirement("org.apache.felix.service.threadio"));
+		cache.findProviders(repository, packageRequirement("org.osgi.framework"));
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(cache.getEvictions()).isEqualTo(1);
+
+		// the oldest entry was evicted
+		cache.findProviders(repository, packageRequirement("org.apache.felix.gogo.api"));
+		assertThat(cache.getMisses()).isEqualTo(4);
+		assertThat(cache.getHits()).isZero();
+
+		assertThatIllegalArgumentException().isThrownBy(() -> new ProviderCache(0));
+	}
+
+	@Test
+	public void testInvalidate() throws Exception {
+		ResourcesRepository repository = repository();
+		ResourcesRepository other = repository();
+		Requirement requirement = packageRequirement("org.apache.felix.gogo.api");
+		ProviderCache cache = new ProviderCache();
+		cache.findProviders(repository, requirement);
+		cache.findProviders(other, requirement);
+		assertThat(cache.size()).isEqualTo(2);
+
+		// only the entries of the changed repository are removed
+		cache.invalidate(repository);
+		assertThat(cache.size()).isEqualTo(1);
+		cache.findProviders(other, requirement);
+		assertThat(cache.getHits()).isEqualTo(1);
+		cache.findProviders(repository, requirement);
+		assertThat(cache.getMisses()).isEqualTo(3);
+		assertThat(cache.size()).isEqualTo(2);
+
+		cache.repositoriesRefreshed();
+		assertThat(cache.size()).isZero();
+	}
+
+	@Test
+	public void testSharedByResolves() throws Exception {
+		try (ResolverValidator validator = new ResolverValidator();) {
+			ResourceBuilder system = new ResourceBuilder();
+			system.addEE(EE.JavaSE_1_8);
+			system.addManifest(OSGI_CORE.R8_0_0.getManifest());
+			validator.setSystem(system.build());
+			validator.addRepository(IO.getFile("testdata/repo3.index.xml")
+				.toURI());
+			List<Resolution> resolutions = validator.validate();
+			assertThat(resolutions).hasSize(4);
+			// resources in the same repository share many requirements
+			assertThat(validator.providerCache.getHits()).isPositive();
+			assertThat(validator.providerCache.size()).isEqualTo(validator.providerCache.getMisses());
+		}
+	}
+}
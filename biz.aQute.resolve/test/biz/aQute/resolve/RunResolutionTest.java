@@ -137,6 +137,88 @@ public class RunResolutionTest {
 		// assertThat(runbundles).hasSize(22);
 	}
 
+	@Test
+	public void testResolutionCache() throws Exception {
+		Bndrun bndrun = Bndrun.createBndrun(workspace, workspace.getFile("test.simple/resolve.bndrun"));
+		bndrun.setProperty(Constants.RESOLVE_CACHE, "true");
+		RunResolution.clearCache(workspace);
+		File wirings = workspace.getCache("resolutions/wirings");
+
+		RunResolution resolution = RunResolution.resolve(bndrun, null);
+		assertThat(resolution.isOK()).isTrue();
+		File[] files = wirings.listFiles();
+		assertThat(files).hasSize(1);
+		File cached = files[0];
+		cached.setLastModified(1000L);
+
+		RunResolution fromCache = RunResolution.resolve(bndrun, null);
+		assertThat(fromCache.isOK()).isTrue();
+		assertThat(cached.lastModified()).isEqualTo(1000L);
+		assertThat(fromCache.getRunBundlesAsString()).isEqualTo(resolution.getRunBundlesAsString());
+		assertThat(fromCache.getRequired()).hasSameSizeAs(resolution.getRequired());
+		for (Map.Entry<Resource, List<Wire>> entry : resolution.getRequired()
+			.entrySet()) {
+			assertThat(fromCache.getRequired()
+				.get(entry.getKey())).hasSameSizeAs(entry.getValue());
+		}
+		assertThat(fromCache.optional).hasSameSizeAs(resolution.optional);
+		assertThat(fromCache.getOrderedResources()).isEqualTo(resolution.getOrderedResources());
+
+		bndrun.setProperty(Constants.RUNBLACKLIST, "osgi.identity;filter:='(osgi.identity=foo)'");
+		RunResolution other = RunResolution.resolve(bndrun, null);
+		assertThat(other.isOK()).isTrue();
+		assertThat(wirings.listFiles()).hasSize(2);
+	}
+
+	@Test
+	public void testIncrementalResolve() throws Exception {
+		Bndrun bndrun = Bndrun.createBndrun(workspace, IO.getFile(tmp.toFile(), "resolver.bndrun"));
+		RunResolution full = RunResolution.resolve(bndrun, null);
+		assertThat(full.isOK()).isTrue();
+
+		bndrun.setProperty(Constants.RESOLVE_INCREMENTAL, "true");
+		bndrun.setProperty(Constants.RUNBUNDLES, full.getRunBundlesAsString());
+		RunResolution incremental = RunResolution.resolve(bndrun, null);
+		assertThat(incremental.isOK()).isTrue();
+		assertThat(incremental.getRunBundlesAsString()).isEqualTo(full.getRunBundlesAsString());
+
+		bndrun.setProperty(Constants.RUNREQUIRES, bndrun.getProperty(Constants.RUNREQUIRES)
+			+ ",osgi.identity;filter:='(osgi.identity=org.apache.felix.gogo.runtime)'");
+		incremental = RunResolution.resolve(bndrun, null);
+		assertThat(incremental.isOK()).isTrue();
+		assertThat(incremental.getRunBundles()).hasSize(full.getRunBundles()
+			.size() + 1);
+
+		bndrun.unsetProperty(Constants.RESOLVE_INCREMENTAL);
+		full = RunResolution.resolve(bndrun, null);
+		assertThat(incremental.getRunBundlesAsString()).isEqualTo(full.getRunBundlesAsString());
+	}
+
+	@Test
+	public void testStatistics() throws Exception {
+		Bndrun bndrun = Bndrun.createBndrun(workspace, IO.getFile(tmp.toFile(), "resolver.bndrun"));
+		RunResolution expected = RunResolution.resolve(bndrun, null);
+		assertThat(expected.isOK()).isTrue();
+
+		ResolutionStatistics statistics = new ResolutionStatistics();
+		RunResolution actual = RunResolution.resolve(bndrun, Collections.singletonList(statistics));
+		assertThat(actual.isOK()).isTrue();
+		assertThat(actual.getRunBundlesAsString()).isEqualTo(expected.getRunBundlesAsString());
+
+		ResolutionStatistics.StatisticsDTO dto = statistics.getStatistics();
+		assertThat(dto.phases).extracting(phase -> phase.name)
+			.containsExactly("initial.init", "optional.tidyup", "resolver", "runbundles.init");
+		assertThat(dto.phases).allMatch(phase -> phase.count > 0 && phase.wallNanos > 0);
+		assertThat(dto.findProvidersCalls).isPositive();
+		assertThat(dto.repositoryQueries).isPositive();
+		assertThat(dto.cacheHits + dto.cacheMisses).isEqualTo(dto.findProvidersCalls);
+		assertThat(dto.requirements).isPositive();
+		assertThat(dto.topCandidates).isNotEmpty();
+		assertThat(dto.topCandidates.get(0).candidates).isEqualTo(dto.maxCandidates);
+		assertThat(statistics.toJSON()).contains("\"findProvidersCalls\"");
+		assertThat(statistics.report()).contains("optional.tidyup");
+	}
+
 	@Test
 	public void testResolveCachedWithStandalone() throws Exception {
 		Bndrun bndrun = Bndrun.createBndrun(workspace, IO.getFile(tmp.toFile(), "resolver.bndrun"));
@@ -6,7 +6,9 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.osgi.framework.namespace.PackageNamespace.PACKAGE_NAMESPACE;
 
 import java.io.File;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import org.junit.jupiter.api.Test;
@@ -21,6 +23,7 @@ import aQute.bnd.osgi.resource.CapReqBuilder;
 import aQute.bnd.osgi.resource.ResourceBuilder;
 import aQute.lib.io.IO;
 import biz.aQute.resolve.ResolverValidator.Resolution;
+import biz.aQute.resolve.ResolverValidator.ResolutionType;
 
 public class ValidatorTest {
 
@@ -71,6 +74,36 @@ public class ValidatorTest {
 		}
 	}
 
+	@Test
+	public void testParallel() throws Exception {
+		List<Resource> resources = XMLResourceParser.getResources(IO.getFile("testdata/repo1.index.xml")
+			.toURI());
+		Map<Resource, ResolutionType> expected = validate(resources, 1);
+		Map<Resource, ResolutionType> actual = validate(resources, 4);
+		assertEquals(expected, actual);
+		assertTrue(actual.values()
+			.stream()
+			.allMatch(type -> type == ResolutionType.OK));
+	}
+
+	private Map<Resource, ResolutionType> validate(List<Resource> resources, int parallelism) throws Exception {
+		try (ResolverValidator validator = new ResolverValidator();) {
+			ResourceBuilder system = new ResourceBuilder();
+			system.addEE(EE.JavaSE_1_8);
+			system.addManifest(OSGI_CORE.R8_0_0.getManifest());
+			validator.setSystem(system.build());
+			validator.setParallelism(parallelism);
+			validator.addRepository(IO.getFile("testdata/repo1.index.xml")
+				.toURI());
+			List<Resolution> resolutions = validator.validate(resources);
+			assertTrue(validator.check());
+			assertEquals(resources.size(), resolutions.size());
+			Map<Resource, ResolutionType> types = new HashMap<>();
+			resolutions.forEach(resolution -> types.put(resolution.resource, resolution.type));
+			return types;
+		}
+	}
+
 	@Test
 	public void testSmall() throws Exception {
 		try (ResolverValidator validator = new ResolverValidator();) {
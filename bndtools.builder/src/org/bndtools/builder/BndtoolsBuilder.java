@@ -164,14 +164,15 @@ public class BndtoolsBuilder extends IncrementalProjectBuilder {
 
 			try {
 				markers.deleteMarkers(BndtoolsConstants.MARKER_BND_BLOCKER);
-				Workspace ws = model.getWorkspace();
-				Central.bndCall(ws::readLocked, after -> {
+				// The project state is updated under the write lock, the build
+				// itself only needs the read lock
+				boolean build = Central.bndCall(model::writeLocked, after -> {
 					if (!model.isValid()) {
 						after.accept("Not a valid project" + model, () -> {
 							markers.createMarker(null, IMarker.SEVERITY_ERROR, "Not a valid bnd project",
 								BndtoolsConstants.MARKER_BND_PATH_PROBLEM);
 						});
-						return null;
+						return false;
 					}
 
 					boolean force = kind == FULL_BUILD;
@@ -247,7 +248,7 @@ public class BndtoolsBuilder extends IncrementalProjectBuilder {
 
 					if (!force) {
 						buildLog.full("Auto/Incr. build, no changes detected");
-						return null;
+						return false;
 					}
 
 					WorkingSetTracker.doWorkingSets(model, myProject);
@@ -255,7 +256,7 @@ public class BndtoolsBuilder extends IncrementalProjectBuilder {
 					if (model.isNoBundles()) {
 						buildLog.basic("-nobundles was set, so no build");
 						buildLog.setFiles(0);
-						return null;
+						return false;
 					}
 
 					if (markers.hasBlockingErrors(delta)) {
@@ -273,7 +274,7 @@ public class BndtoolsBuilder extends IncrementalProjectBuilder {
 										BndtoolsConstants.MARKER_BND_BLOCKER);
 								}
 							});
-							return null;
+							return false;
 						}
 
 						buildLog.basic("Blocking errors, continuing anyway");
@@ -284,6 +285,12 @@ public class BndtoolsBuilder extends IncrementalProjectBuilder {
 						});
 					}
 
+					return true;
+				}, monitor);
+				if (!build) {
+					return null;
+				}
+				Central.bndCall(model::readLocked, after -> {
 					File buildFiles[] = model.build();
 					// We can now decorate based on the build we just did.
 					BndProjectInfoAdapter adapter = new BndProjectInfoAdapter(model);
@@ -361,8 +368,7 @@ public class BndtoolsBuilder extends IncrementalProjectBuilder {
 				return;
 
 			try {
-				Workspace ws = model.getWorkspace();
-				ws.readLocked(() -> {
+				model.readLocked(() -> {
 					model.clean();
 					return null;
 				}, monitor::isCanceled);
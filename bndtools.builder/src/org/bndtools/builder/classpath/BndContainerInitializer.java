@@ -244,8 +244,7 @@ public class BndContainerInitializer extends ClasspathContainerInitializer imple
 			}
 
 			try {
-				model.getWorkspace()
-					.readLocked(this::calculateProjectClasspath);
+				model.readLocked(this::calculateProjectClasspath);
 			} catch (Exception e) {
 				SetLocation error = error("Unable to calculate classpath for project %s", e, project.getName());
 				logger.logError(error.location().message, e);
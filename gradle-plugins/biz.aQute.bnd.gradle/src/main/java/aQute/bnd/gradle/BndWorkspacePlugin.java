@@ -5,11 +5,13 @@ import static aQute.bnd.gradle.BndUtils.unwrapFile;
 import java.io.File;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import aQute.bnd.build.Container;
 import aQute.bnd.build.Workspace;
 import aQute.bnd.exceptions.Exceptions;
 import aQute.bnd.osgi.Constants;
@@ -21,6 +23,7 @@ import org.gradle.api.Action;
 import org.gradle.api.GradleException;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
+import org.gradle.api.Task;
 import org.gradle.api.file.Directory;
 import org.gradle.api.initialization.Settings;
 import org.gradle.api.internal.plugins.DslObject;
@@ -48,6 +51,7 @@ public class BndWorkspacePlugin implements Plugin<Object> {
 	private static final Pattern		OPTION_P			= Pattern.compile("--(?<option>\\w+)(?:=(?<value>\\S+)?)?");
 	private static final Pattern		TASKNAME_SPLITTER	= Pattern.compile(":");
 	private static final Set<String>	SPECIAL_FOLDERS		= Sets.of("buildSrc", "gradle");
+	private static final int			PREFETCH_PARALLEL	= 8;
 
 	/**
 	 * Default public constructor.
@@ -230,6 +234,36 @@ public class BndWorkspacePlugin implements Plugin<Object> {
 	private void configureWorkspaceProject(Project workspace) throws Exception {
 		Workspace bndWorkspace = getBndWorkspace(workspace);
 
+		/* Download the repository bundles of the Bnd projects */
+		int parallel = Math.max(PREFETCH_PARALLEL, workspace.getGradle()
+			.getStartParameter()
+			.getMaxWorkerCount());
+		workspace.getTasks()
+			.register("prefetch", t -> {
+				t.setDescription("Downloads the repository bundles of all Bnd projects and bndrun files.");
+				t.setGroup(LifecycleBasePlugin.BUILD_GROUP);
+				t.doLast("prefetch", new Action<>() {
+					@Override
+					public void execute(Task tt) {
+						try {
+							List<Container> containers = bndWorkspace.prefetch(parallel);
+							long failed = 0L;
+							for (Container container : containers) {
+								if (container.getError() != null) {
+									failed++;
+									tt.getLogger()
+										.warn("Prefetch {}: {}", container, container.getError());
+								}
+							}
+							tt.getLogger()
+								.lifecycle("Prefetched {} bundles, {} failed", containers.size() - failed, failed);
+						} catch (Exception e) {
+							throw Exceptions.duck(e);
+						}
+					}
+				});
+			});
+
 		/* Configure the Bnd projects */
 		for (Project project : workspace.getSubprojects()) {
 			if (Objects.nonNull(bndWorkspace.getProject(project.getName()))) {